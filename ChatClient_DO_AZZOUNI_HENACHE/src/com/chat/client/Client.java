@@ -1,18 +1,25 @@
 /*
  Etats du client :
-DISCONNECTED : le client est dconnect
+DISCONNECTED : le client est déconnecté
 SEARCHING : le client recherche le serveur
-NOTFOUND : le client n'a pas trouv le serveur
-CONNECTING : le serveur a t trouv mais le client attend que le serveur valide la demande (utilisateur+mot de passe)
-REFUSED : le serveur a refus la connexion car l'utilisateur ou son mot de passe sont incorrects
-CONNECTED : le client est connect 
-DISCONNECTING : le client est entrain de se dconnecter
+NOTFOUND : le client n'a pas trouvé le serveur
+CONNECTING : le serveur a été trouvé mais le client attend que le serveur valide la demande (utilisateur+mot de passe)
+REFUSED : le serveur a refusé la connexion car l'utilisateur ou son mot de passe sont incorrects
+CONNECTED : le client est connecté 
+DISCONNECTING : le client est entrain de se déconnecter
 */
 
 package com.chat.client;
 
 import java.net.Socket;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
 import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.chat.commun.net.Connexion;
 import com.chat.commun.thread.Lecteur;
@@ -21,9 +28,9 @@ import com.chat.commun.evenement.EvenementUtil;
 import com.chat.commun.thread.ThreadEcouteurDeTexte;
 
 /**
- * Cette classe reprsente un client capable de se connecter  un serveur.
+ * Cette classe représente un client capable de se connecter à un serveur.
  *
- * @author Abdelmoumne Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
+ * @author Abdelmoumène Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
  * @version 1.0
  * @since 2023-09-01
  */
@@ -31,18 +38,27 @@ public class Client implements Lecteur {
 
     private String adrServeur = Config.ADRESSE_SERVEUR;
     private int portServeur = Config.PORT_SERVEUR;
+    //Chemin du socket Unix du serveur, qui remplace l'adresse et le port s'il n'est pas null :
+    private String cheminSocketUnix = Config.CHEMIN_SOCKET_UNIX;
     private boolean connecte;
     private Connexion connexion;
     private GestionnaireEvenementClient gestionnaireEvenementClient;
     private ThreadEcouteurDeTexte vt;
+    //Thread qui bloque en lecture sur la connexion, en mode BLOQUANT :
+    private ThreadReception reception;
+    private ModeReception modeReception = Config.MODE_RECEPTION;
+    //Requêtes envoyées par envoyerRequete() qui attendent leur réponse, par identifiant :
+    private final Map<String, CompletableFuture<Evenement>> requetesEnCours = new ConcurrentHashMap<>();
+    private final AtomicInteger prochainIdRequete = new AtomicInteger();
 
     /**
-     * Connecte le client au serveur en utilisant un socket. Si la connexion russit, un objet
-     * Connexion est cr qui cre les flux d'entre/sortie permettant de communiquer du texte
-     * avec le serveur.
+     * Connecte le client au serveur en utilisant un socket. Si la connexion réussit, un objet
+     * Connexion est créé qui crée les flux d'entrée/sortie permettant de communiquer du texte
+     * avec le serveur. Si un chemin de socket Unix est spécifié, le client s'y connecte plutôt qu'à l'adresse et
+     * au port du serveur, et reçoit toujours le texte en mode BLOQUANT.
      *
-     * @return boolean true, si la connexion a russi. false, si la connexion choue
-     * ou si le client tait dj connect.
+     * @return boolean true, si la connexion a réussi. false, si la connexion échoue
+     * ou si le client était déjà connecté.
      */
     public boolean connecter() {
         boolean resultat = false;
@@ -50,19 +66,34 @@ public class Client implements Lecteur {
             return resultat;
 
         try {
-            Socket socket = new Socket(adrServeur, portServeur);
-            connexion = new Connexion(socket);
+            if (cheminSocketUnix != null) {
+                connexion = new Connexion(SocketChannel.open(UnixDomainSocketAddress.of(cheminSocketUnix)));
+            } else {
+                Socket socket = new Socket(adrServeur, portServeur);
+                connexion = new Connexion(socket);
+            }
             this.setAdrServeur(adrServeur);
             this.setPortServeur(portServeur);
 
             //On cree l'ecouteur d'evenements pour le client :
             gestionnaireEvenementClient = new GestionnaireEvenementClient(this);
 
-            //Dmarrer le thread inspecteur de texte:
-            vt = new ThreadEcouteurDeTexte(this);
-            vt.start();  //la methode run() de l'ecouteur de texte s'execute en parallele avec le reste du programme.
+            //Demander la compression avant de s'identifier, pour recevoir l'historique compressé :
+            if (Config.COMPRESSION)
+                connexion.envoyer("PROTO DEFLATE");
+
             resultat = true;
             this.setConnecte(true);
+
+            //Démarrer le thread qui reçoit le texte, en bloquant sur le socket ou en l'inspectant toutes les 100 ms :
+            //Un canal sur un socket Unix ne peut pas être inspecté sans bloquer :
+            if (modeReception == ModeReception.BLOQUANT || cheminSocketUnix != null) {
+                reception = new ThreadReception(this);
+                reception.start();
+            } else {
+                vt = new ThreadEcouteurDeTexte(this);
+                vt.start();  //la methode run() de l'ecouteur de texte s'execute en parallele avec le reste du programme.
+            }
         } catch (IOException e) {
             this.deconnecter();
         }
@@ -70,10 +101,10 @@ public class Client implements Lecteur {
     }
 
     /**
-     * Dconnecte le client, s'il est connect, en fermant l'objet Connexion. Le texte "exit" est envoy au serveur
-     * pour l'informer de la dconnexion. Le thread couteur de texte est arrt.
+     * Déconnecte le client, s'il est connecté, en fermant l'objet Connexion. Le texte "exit" est envoyé au serveur
+     * pour l'informer de la déconnexion. Le thread écouteur de texte est arrêté.
      *
-     * @return boolean true, si le client s'est dconnect, false, s'il tait dj dconnect
+     * @return boolean true, si le client s'est déconnecté, false, s'il était déjà déconnecté
      */
     public boolean deconnecter() {
         if (!isConnecte())
@@ -83,34 +114,83 @@ public class Client implements Lecteur {
         connexion.close();
         if (vt != null)
             vt.interrupt();
+        if (reception != null && reception != Thread.currentThread())
+            reception.interrupt();
         this.setConnecte(false);
+        //Les requêtes en cours n'auront jamais de réponse :
+        for (String id : requetesEnCours.keySet()) {
+            CompletableFuture<Evenement> requete = requetesEnCours.remove(id);
+            if (requete != null)
+                requete.completeExceptionally(new IOException("Connexion fermee"));
+        }
         return true;
     }
     /**
-     * Cette mthode vrifie s'il y a du texte qui arrive sur la connexion du client et, si c'est le cas, elle cre
-     * un vnement contenant les donnes du texte et demande au gestionnaire d'vnement client de traiter l'vnement.
+     * Cette méthode vérifie s'il y a du texte qui arrive sur la connexion du client et, pour chaque trame reçue, elle
+     * crée un événement contenant les données du texte et demande au gestionnaire d'événement client de traiter l'événement.
      *
-     * @author Abdelmoumne Toudeft
+     * @author Abdelmoumène Toudeft
      * @version 1.0
      * @since   2023-09-20
      */
     public void lire() {
+        for (String texte : connexion.getTramesDisponibles())
+            traiterTexte(texte);
+        if (connexion.isFermee())
+            connexionPerdue();
+    }
 
+    /**
+     * Appelée lorsque la connexion a été fermée par le serveur, ou perdue, sans que le client ne se soit déconnecté.
+     * Le client est simplement déconnecté.
+     */
+    protected void connexionPerdue() {
+        deconnecter();
+    }
+
+    /**
+     * Cette méthode bloque jusqu'à ce que du texte arrive sur la connexion du client, puis traite chaque trame reçue
+     * comme lire(). Elle est appelée continuellement par le thread de réception en mode BLOQUANT.
+     *
+     * @return boolean true si la connexion est toujours ouverte, false si elle a été fermée
+     */
+    public boolean attendre() {
+        List<String> trames = connexion.attendreTrames();
+        if (trames == null)
+            return false;
+        for (String texte : trames)
+            traiterTexte(texte);
+        return true;
+    }
+
+    /**
+     * Crée un événement à partir d'un texte reçu du serveur et demande au gestionnaire d'événement client de le
+     * traiter. Si le texte est la réponse à une requête envoyée par envoyerRequete(), la requête est ensuite
+     * complétée avec l'événement.
+     *
+     * @param texte String le texte reçu
+     */
+    protected void traiterTexte(String texte) {
         String[] t;
         Evenement evenement;
-        String texte = connexion.getAvailableText();
-
-        if (!"".equals(texte)){
-            t = EvenementUtil.extraireInfosEvenement(texte);
-            evenement = new Evenement(connexion,t[0],t[1]);
-            gestionnaireEvenementClient.traiter(evenement);
+        CompletableFuture<Evenement> requete;
+        if (!"".equals(texte.trim())){
+            t = EvenementUtil.extraireInfosRequete(texte);
+            evenement = new Evenement(connexion,t[1],t[2],t[0]);
+            //La requête est retirée avant le traitement, qui peut déconnecter le client (END) :
+            requete = t[0] == null ? null : requetesEnCours.remove(t[0]);
+            //Un simple accusé de réception n'a pas besoin d'être traité :
+            if (t[0] == null || !"ACK".equals(t[1]))
+                gestionnaireEvenementClient.traiter(evenement);
+            if (requete != null)
+                requete.complete(evenement);
         }
     }
     /**
-     * Cette mthode retourne l'adresse IP du serveur sur lequel ce client se connecte.
+     * Cette méthode retourne l'adresse IP du serveur sur lequel ce client se connecte.
      *
      * @return String l'adresse IP du serveur dans le format "192.168.25.32"
-     * @author Abdelmoumne Toudeft
+     * @author Abdelmoumène Toudeft
      * @version 1.0
      * @since   2023-09-20
      */
@@ -121,45 +201,114 @@ public class Client implements Lecteur {
         this.adrServeur = adrServeur;
     }
     /**
-     * Indique si le client est connect  un serveur..
+     * Indique si le client est connecté à un serveur..
      *
-     * @return boolean true si le client est connect et false sinon
+     * @return boolean true si le client est connecté et false sinon
      */
     public boolean isConnecte() {
         return connecte;
     }
 
     /**
-     * Marque ce client comme tant connect ou dconnect.
+     * Marque ce client comme étant connecté ou déconnecté.
      *
-     * @param connecte boolean Si true, marque le client comme tant connect, si false, le marque comme dconnect
+     * @param connecte boolean Si true, marque le client comme étant connecté, si false, le marque comme déconnecté
      */
     public void setConnecte(boolean connecte) {
         this.connecte = connecte;
     }
 
     /**
-     * Retourne le port d'coute du serveur auquel ce client se connecte.
+     * Retourne le port d'écoute du serveur auquel ce client se connecte.
      *
-     * @return int Port d'coute du serveur
+     * @return int Port d'écoute du serveur
      */
     public int getPortServeur() {
         return portServeur;
     }
 
     /**
-     * Spcifie le port d'coute du serveur sur lequel ce client se connecte.
+     * Spécifie le port d'écoute du serveur sur lequel ce client se connecte.
      *
-     * @param portServeur int Port d'coute du serveur
+     * @param portServeur int Port d'écoute du serveur
      */
     public void setPortServeur(int portServeur) {
         this.portServeur = portServeur;
     }
 
+    /**
+     * Retourne le chemin du socket Unix du serveur sur lequel ce client se connecte.
+     *
+     * @return String Chemin du socket, ou null si le client se connecte en TCP
+     */
+    public String getCheminSocketUnix() {
+        return cheminSocketUnix;
+    }
+
+    /**
+     * Spécifie le chemin du socket Unix du serveur, pour un serveur sur le même hôte. N'a d'effet qu'à la prochaine
+     * connexion.
+     *
+     * @param cheminSocketUnix String Chemin du socket, ou null pour se connecter à l'adresse et au port du serveur
+     */
+    public void setCheminSocketUnix(String cheminSocketUnix) {
+        this.cheminSocketUnix = cheminSocketUnix;
+    }
+
+    /**
+     * Envoie une commande au serveur sous la forme d'une requête identifiée et retourne un CompletableFuture qui
+     * sera complété par la première réponse du serveur à cette requête (ACK si la commande n'appelle pas d'autre
+     * réponse). Plusieurs requêtes peuvent être en cours en même temps. La réponse est aussi traitée normalement
+     * par le gestionnaire d'événement client. Si la connexion est fermée avant la réponse, le CompletableFuture est
+     * complété par une IOException.
+     *
+     * @param s String la commande à envoyer, par exemple "MOVE e2-e4"
+     * @return CompletableFuture l'événement correspondant à la réponse du serveur
+     */
+    public CompletableFuture<Evenement> envoyerRequete(String s) {
+        CompletableFuture<Evenement> requete = new CompletableFuture<>();
+        if (!isConnecte()) {
+            requete.completeExceptionally(new IOException("Client non connecte"));
+            return requete;
+        }
+        //Identifiant d'au plus 9 chiffres, recyclé après un milliard de requêtes :
+        String id = Integer.toString(prochainIdRequete.getAndUpdate(n -> (n + 1) % 1000000000));
+        requetesEnCours.put(id, requete);
+        envoyer("#" + id + " " + s);
+        return requete;
+    }
+
+    /**
+     * Retourne la façon dont le client reçoit le texte du serveur.
+     *
+     * @return ModeReception le mode de réception
+     */
+    public ModeReception getModeReception() {
+        return modeReception;
+    }
+
+    /**
+     * Spécifie la façon dont le client reçoit le texte du serveur. N'a d'effet qu'à la prochaine connexion.
+     *
+     * @param modeReception ModeReception le mode de réception
+     */
+    public void setModeReception(ModeReception modeReception) {
+        this.modeReception = modeReception;
+    }
+
+    /**
+     * Demande au serveur d'utiliser le format binaire compact pour les trames échangées. Le client continue à
+     * envoyer du texte jusqu'à ce que le serveur confirme (PROTO BIN). Les trames reçues sont acceptées dans tous
+     * les formats.
+     */
+    public void demanderProtocoleBinaire() {
+        this.connexion.envoyer("PROTO BIN");
+    }
+
     /**
      * Envoie un texte au serveur en utilisant un objet Connexion.
      *
-     * @param s String texte  envoyer
+     * @param s String texte à envoyer
      */
     public void envoyer(String s) {
         this.connexion.envoyer(s);
@@ -1,5 +1,7 @@
 package com.chat.client;
 
+import com.chat.commun.evenement.EvenementUtil;
+
 /**
  * Cette classe étend la classe Client pour lui ajouter des fonctionnalités
  * spécifiques au chat et au jeu d'échecs en réseau.
@@ -10,6 +12,108 @@ package com.chat.client;
  */
 public class ClientChat extends Client {
     private EtatPartieEchecs etatPartieEchecs;
+    //Alias et jeton qui permettent de reprendre la session après une perte de connexion (SESSION) :
+    private String aliasSession, jetonSession;
+    //Numéro de séquence du dernier message du salon public vu, reçu ou envoyé :
+    private long sequence;
+    //Nombre de réponses données au serveur qui attend l'identification depuis la dernière session ouverte :
+    private int nbIdentifications;
+
+    /**
+     * Enregistre la session ouverte par le serveur (SESSION alias jeton sequence).
+     *
+     * @param argument String l'alias, le jeton et le numéro de séquence du dernier message de l'historique
+     */
+    public synchronized void setSession(String argument) {
+        String[] t = argument.split(" ");
+        if (t.length < 3)
+            return;
+        aliasSession = t[0];
+        jetonSession = t[1];
+        sequence = Long.parseLong(t[2]);
+        nbIdentifications = 0;
+    }
+
+    /**
+     * Note un message du salon public reçu ou envoyé : chacun a son numéro de séquence dans l'historique du serveur.
+     */
+    public synchronized void noterMessagePublic() {
+        sequence++;
+    }
+
+    /**
+     * Retourne la réponse à envoyer au serveur, au lieu de l'alias, pour reprendre la session après une perte de
+     * connexion : seuls les messages du salon public qui n'ont pas été vus sont alors renvoyés.
+     *
+     * @return String REPRISE alias jeton sequence, ou null si le serveur n'a pas ouvert de session
+     */
+    public synchronized String getReprise() {
+        return jetonSession == null ? null : "REPRISE " + aliasSession + " " + jetonSession + " " + sequence;
+    }
+
+    /**
+     * Retourne la réponse à donner au serveur qui attend l'identification du client (WAIT_FOR alias). Après une
+     * perte de connexion, le client reprend d'abord sa session ; si le serveur la refuse, parce qu'elle a expiré, il
+     * s'identifie avec l'alias de la session. Si le serveur refuse aussi l'alias, c'est à l'utilisateur de le saisir.
+     *
+     * @return String REPRISE alias jeton sequence, l'alias de la session, ou null si l'utilisateur doit saisir son
+     * alias
+     */
+    public synchronized String getIdentification() {
+        switch (nbIdentifications++) {
+            case 0:
+                return getReprise();
+            case 1:
+                return aliasSession;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Déconnecte le client qui a perdu sa connexion puis, si le serveur lui avait ouvert une session, tente de le
+     * reconnecter, par un autre thread, pour la reprendre.
+     */
+    @Override
+    protected void connexionPerdue() {
+        if (!deconnecter() || getReprise() == null)
+            return;
+        Thread reconnexion = new Thread(this::reconnecter, "reconnexion");
+        reconnexion.setDaemon(true);
+        reconnexion.start();
+    }
+
+    /**
+     * Tente de reconnecter le client au serveur, jusqu'à Config.NB_TENTATIVES_RECONNEXION fois. Une fois reconnecté,
+     * le client reprend sa session lorsque le serveur attend son identification (voir getIdentification()).
+     *
+     * @return boolean true, si le client s'est reconnecté, false, sinon
+     */
+    public boolean reconnecter() {
+        for (int i = 0; i < Config.NB_TENTATIVES_RECONNEXION; i++) {
+            try {
+                Thread.sleep(Config.DELAI_RECONNEXION);
+            } catch (InterruptedException e) {
+                return false;
+            }
+            if (connecter())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Envoie un texte au serveur. Un message du salon public, identifié par une requête ou non (#42 MSG texte), est
+     * noté : il a son numéro de séquence dans l'historique, mais le serveur ne le renvoie pas à son expéditeur.
+     *
+     * @param s String texte à envoyer
+     */
+    @Override
+    public void envoyer(String s) {
+        if ("MSG".equals(EvenementUtil.extraireInfosRequete(s)[1]))
+            noterMessagePublic();
+        super.envoyer(s);
+    }
 
     public EtatPartieEchecs getEtatPartieEchecs() {
         return etatPartieEchecs;
@@ -12,4 +12,25 @@ public interface Config {
      * Port d'écoute du serveur.
      */
     int PORT_SERVEUR = 8888;
+    /**
+     * Chemin du socket Unix du serveur, utilisé à la place de l'adresse et du port lorsque le serveur est sur le
+     * même hôte (null pour se connecter en TCP).
+     */
+    String CHEMIN_SOCKET_UNIX = null;
+    /**
+     * Indique si le client demande au serveur, dès la connexion, de compresser les longs textes (l'historique).
+     */
+    boolean COMPRESSION = true;
+    /**
+     * Façon dont le client reçoit le texte du serveur.
+     */
+    ModeReception MODE_RECEPTION = ModeReception.BLOQUANT;
+    /**
+     * Nombre de tentatives de reconnexion d'un client de chat qui a perdu sa connexion au serveur.
+     */
+    int NB_TENTATIVES_RECONNEXION = 5;
+    /**
+     * Délai, en millisecondes, avant chaque tentative de reconnexion.
+     */
+    long DELAI_RECONNEXION = 1000;
 }
@@ -4,6 +4,7 @@ import com.chat.commun.evenement.Evenement;
 import com.chat.commun.evenement.GestionnaireEvenement;
 import com.chat.commun.net.Connexion;
 
+import java.util.Arrays;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,6 +47,16 @@ public class GestionnaireEvenementClient implements GestionnaireEvenement {
                 case "END" : //Le serveur demande de fermer la connexion
                     client.deconnecter(); //On ferme la connexion
                     break;
+                case "PING" : //Le serveur vérifie que le client est toujours là
+                    cnx.envoyer("PONG");
+                    break;
+                case "PONG" : //Réponse du serveur à un PING
+                    break;
+                case "PROTO" : //Le serveur confirme les options des trames qu'il envoie : on envoie avec les mêmes
+                    arguments = evenement.getArgument().split(" ");
+                    cnx.setBinaire(Arrays.asList(arguments).contains("BIN"));
+                    cnx.setCompression(Arrays.asList(arguments).contains("DEFLATE"));
+                    break;
                 case "LIST" : //Le serveur a renvoyé la liste des connectés
                     arg = evenement.getArgument();
                     membres = arg.split(":");
@@ -64,6 +75,16 @@ public class GestionnaireEvenementClient implements GestionnaireEvenement {
                             System.out.println("\t\t\t." + m);
                     }
                     break;
+                case "SESSION" : //Le serveur donne le jeton qui permet de reprendre la session
+                    ((ClientChat) client).setSession(evenement.getArgument());
+                    break;
+                case "WAIT_FOR" : //Le serveur attend l'identification : après une perte de connexion, on reprend la session
+                    arg = ((ClientChat) client).getIdentification();
+                    if (arg != null)
+                        cnx.envoyer(arg);
+                    else
+                        System.out.println("\t\t\t."+evenement.getType()+" "+evenement.getArgument());
+                    break;
                 case "JOIN" : //Informe un client de la réception d’une invitation à un chat privé
                     arg = evenement.getArgument();
                     System.out.println("\t\t" + "Vous avez recu une invitation de chat prive de " + arg + "!");
@@ -108,6 +129,23 @@ public class GestionnaireEvenementClient implements GestionnaireEvenement {
                     else
                         System.out.println("\t\t" + "Partie d'echec cree. Vous etes noir, attendez votre tour!");
                     break;
+                case "ECHIQUIER" : //Rétablit l'échiquier d'une partie reprise avec la session.
+                    arguments = evenement.getArgument().split(" ");
+                    etatPartieEchecs = ((ClientChat) client).getEtatPartieEchecs();
+                    if (etatPartieEchecs != null && arguments[0].length() == 64) {
+                        char[][] etat = new char[8][8];
+                        for (int i = 0; i < 64; i++) {
+                            char piece = arguments[0].charAt(i);
+                            etat[i / 8][i % 8] = piece == '.' ? ' ' : piece;
+                        }
+                        etatPartieEchecs.setEtatEchiquier(etat);
+                        System.out.println(etatPartieEchecs);
+                        System.out.println();
+                        System.out.println("\t\t" + "Partie d'echec reprise, c'est aux "
+                                + ("b".equals(arguments.length > 1 ? arguments[1] : "") ? "blancs" : "noirs")
+                                + " de jouer!");
+                    }
+                    break;
                 case "MOVE" : //Valide un déplacement de pièce envoyé par un client.
                     ((ClientChat) client).gererMouvement(evenement.getArgument(), client);
                     break;
@@ -134,7 +172,12 @@ public class GestionnaireEvenementClient implements GestionnaireEvenement {
                     System.out.println("\t\t" + "Gagnant par abandon, le gagnant est " + arg + "!");
                     ((ClientChat) client).setEtatPartieEchecs(null);
                     break;
+                case "PRV" : //Message reçu dans un salon privé
+                    System.out.println("\t\t\t."+evenement.getArgument());
+                    break;
                 default: //Afficher le texte recu :
+                    if (typeEvenement.contains(">>")) //Message du salon public, les messages privés arrivent par PRV
+                        ((ClientChat) client).noterMessagePublic();
                     System.out.println("\t\t\t."+evenement.getType()+" "+evenement.getArgument());
             }
         }
@@ -0,0 +1,15 @@
+package com.chat.client;
+
+/**
+ * Façons dont un client peut recevoir le texte envoyé par le serveur.
+ */
+public enum ModeReception {
+    /**
+     * Un thread vérifie toutes les 100 ms si du texte est arrivé (mode d'origine, conservé comme solution de repli).
+     */
+    SCRUTATION,
+    /**
+     * Un thread bloque en lecture sur le socket et traite chaque trame dès qu'elle arrive.
+     */
+    BLOQUANT
+}
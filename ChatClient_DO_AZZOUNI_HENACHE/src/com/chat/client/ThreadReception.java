@@ -0,0 +1,31 @@
+package com.chat.client;
+
+/**
+ * Thread qui reçoit le texte envoyé par le serveur à un client en mode BLOQUANT : il appelle continuellement la
+ * méthode attendre() du client, qui bloque jusqu'à l'arrivée de texte et le traite aussitôt. Lorsque le serveur
+ * ferme la connexion, ou qu'elle est perdue, le client en est averti par sa méthode connexionPerdue().
+ */
+public class ThreadReception extends Thread {
+    private final Client client;
+
+    /**
+     * Construit un thread de réception pour un client.
+     *
+     * @param client Client le client dont le thread reçoit le texte
+     */
+    public ThreadReception(Client client) {
+        super("reception");
+        this.client = client;
+        setDaemon(true);
+    }
+
+    /**
+     * Méthode principale du thread. Cette méthode appelle continuellement la méthode attendre() du client, jusqu'à
+     * ce que la connexion soit fermée.
+     */
+    public void run() {
+        while (!interrupted() && client.attendre())
+            ;
+        client.connexionPerdue();
+    }
+}
@@ -1,20 +1,20 @@
 package com.chat.commun.evenement;
 
 /**
- * Classe utilitaire fournissant des mthodes pour manipuler des vnements.
+ * Classe utilitaire fournissant des méthodes pour manipuler des événements.
  */
 public class EvenementUtil {
     /*
-      Contructeur priv pour empcher l'instanciation (inutile) de la classe.
+      Contructeur privé pour empêcher l'instanciation (inutile) de la classe.
     */
     private EvenementUtil() {
     }
 
     /**
-     * Mthode utilitaire qui extrait  partir d'une chaine de caractres le type et l'argument d'un vnement.
+     * Méthode utilitaire qui extrait à partir d'une chaine de caractères le type et l'argument d'un événement.
      *
-     * @param str chaine de caractres dcrivant l'vnement
-     * @return String[] tableau de taille 2 contenant le type et l'argument de l'vnement
+     * @param str chaine de caractères décrivant l'événement
+     * @return String[] tableau de taille 2 contenant le type et l'argument de l'événement
      */
     public static String[] extraireInfosEvenement(String str) {
 
@@ -30,4 +30,41 @@ public class EvenementUtil {
                 return new String[]{str.substring(0,i),str.substring(i).trim()};
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Méthode utilitaire qui extrait à partir d'une chaine de caractères l'identifiant de requête, le type et
+     * l'argument d'un événement. L'identifiant de requête, facultatif, précède le type sous la forme #42, où 42 est
+     * un nombre d'au plus 9 chiffres écrit sans zéro non significatif : il doit être relu à l'identique une fois
+     * encodé en binaire.
+     *
+     * @param str chaine de caractères décrivant l'événement, par exemple "#42 MOVE e2e4"
+     * @return String[] tableau de taille 3 contenant l'identifiant de requête (ou null), le type et l'argument
+     */
+    public static String[] extraireInfosRequete(String str) {
+        String idRequete = extraireIdRequete(str);
+        String[] t;
+        if (idRequete != null)
+            str = str.trim().substring(idRequete.length() + 1);
+        t = extraireInfosEvenement(str);
+        return new String[]{idRequete, t[0], t[1]};
+    }
+
+    /**
+     * Méthode utilitaire qui retourne l'identifiant de requête qui préfixe une chaine de caractères.
+     *
+     * @param str chaine de caractères décrivant l'événement
+     * @return String l'identifiant de requête, sans le #, ou null si la chaine n'en a pas (un nombre écrit avec des
+     * zéros non significatifs, comme #007, n'est pas un identifiant)
+     */
+    public static String extraireIdRequete(String str) {
+        str = str.trim();
+        if (!str.startsWith("#"))
+            return null;
+        int i = 1;
+        while (i < str.length() && i <= 9 && Character.isDigit(str.charAt(i)))
+            i++;
+        if (i == 1 || (i < str.length() && str.charAt(i) != ' ') || (i > 2 && str.charAt(1) == '0'))
+            return null;
+        return str.substring(1, i);
+    }
+}
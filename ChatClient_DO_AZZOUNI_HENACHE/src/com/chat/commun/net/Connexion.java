@@ -1,87 +1,602 @@
 package com.chat.commun.net;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
- * Cette classe reprsente un point de connexion d'un client vers un serveur ou d'un serveur vers un client.
- * Encapsule le socket utilis pour la connexion ainsi que les flux de caractres pour envoyer et recevoir du texte.
+ * Cette classe représente un point de connexion d'un client vers un serveur ou d'un serveur vers un client.
+ * Encapsule le socket utilisé pour la connexion ainsi que les flux de caractères pour envoyer et recevoir du texte.
+ * <p>
+ * Le texte envoyé est mis dans une file d'envoi. Si un PlanificateurEnvoi est associé à la connexion, c'est lui qui
+ * fait écrire la file, plus tard et sur son propre thread ; sinon la file est écrite tout de suite par le thread
+ * qui envoie. Dans les deux cas, toutes les trames en attente sont écrites ensemble, en aussi peu d'appels système
+ * que possible.
  *
- * @author Abdelmoumne Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
+ * @author Abdelmoumène Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
  * @version 1.0
  * @since 2023-09-01
  */
 public class Connexion {
 
     private Socket socket;
-    private PrintWriter os;
+    private BufferedOutputStream os;
+    //Vue sous forme de canal du flux de sortie, pour écrire des ByteBuffer :
+    private WritableByteChannel sortie;
     private BufferedInputStream is;
+    //Vue sous forme de canal du flux d'entrée, pour lire dans un ByteBuffer :
+    private ReadableByteChannel entree;
+    //Canal utilisé à la place des flux lorsque la connexion est gérée par un sélecteur NIO :
+    private SocketChannel canal;
+    //Découpe en trames le texte reçu :
+    private final DecodeurTrames decodeur = new DecodeurTrames();
+    //Tampon de lecture propre à la connexion, obtenu de la réserve à la première lecture :
+    private ByteBuffer tampon;
+    //Empêche de rendre le tampon à la réserve pendant qu'une lecture l'utilise. Ce n'est pas un moniteur : un thread
+    //virtuel qui bloque en lecture sous un moniteur immobiliserait son thread porteur.
+    private final ReentrantLock verrouLecture = new ReentrantLock();
+    //Liste réutilisée pour retourner les trames reçues :
+    private final List<String> trames = new ArrayList<>();
+    //Trames encodées en attente d'écriture :
+    private final FileEnvoi fileEnvoi = new FileEnvoi();
+    //Tableau réutilisé pour écrire plusieurs trames en une seule fois :
+    private final ByteBuffer[] lotEcriture = new ByteBuffer[64];
+    //Couche d'entrée/sortie qui écrit la file d'envoi, ou null pour l'écrire sur le thread qui envoie :
+    private volatile PlanificateurEnvoi planificateurEnvoi;
+    //Indique qu'une écriture de la file a été demandée au planificateur et n'a pas encore commencé :
+    private final AtomicBoolean envoiPlanifie = new AtomicBoolean();
+    //Indique qu'un thread est en train d'écrire la file :
+    private final AtomicBoolean ecritureEnCours = new AtomicBoolean();
+    //Indique que la connexion doit être fermée dès que sa file d'envoi aura été écrite :
+    private volatile boolean fermetureDemandee;
+    //Méthode qui ferme la connexion lorsque la politique DECONNECTER s'applique, ou null pour appeler close() :
+    private volatile Consumer<Connexion> deconnexion;
+    //Indique si la connexion est fermée :
+    private volatile boolean fermee;
+    //Identifiant de la requête en cours de traitement, thread qui la traite et nombre de réponses envoyées :
+    private volatile String idRequete;
+    private volatile Thread threadRequete;
+    private int nbReponsesRequete;
+    //Indique si les trames envoyées sont au format binaire compact plutôt qu'en texte :
+    private volatile boolean binaire;
+    //Indique si les textes envoyés sont compressés à partir de seuilCompression octets :
+    private volatile boolean compression;
+    private volatile int seuilCompression = CompressionTrames.SEUIL_COMPRESSION;
+    //Date, en millisecondes, de la dernière réception d'octets (ou de la création de la connexion) :
+    private volatile long derniereActivite = System.currentTimeMillis();
+    //Compteurs d'octets, de trames et de commandes de la connexion :
+    private final StatistiquesConnexion statistiques = new StatistiquesConnexion();
     private String alias;
 
     /**
-     * Construit une connexion sur un socket, initialisant les flux de caractres utiliss par le socket.
+     * Construit une connexion sur un socket, initialisant les flux de caractères utilisés par le socket. L'algorithme
+     * de Nagle est désactivé : la connexion regroupe déjà elle-même ses trames, et une trame retenue en attendant
+     * l'accusé de réception TCP d'une précédente arriverait jusqu'à 40 ms en retard.
      *
-     * @param s Socket Le socket sur lequel la connexion est cre
+     * @param s Socket Le socket sur lequel la connexion est créée
      */
     public Connexion(Socket s) {
         try {
             socket = s;
+            socket.setTcpNoDelay(true);
             is = new BufferedInputStream(socket.getInputStream());
-            os = new PrintWriter(socket.getOutputStream());
+            entree = Channels.newChannel(is);
+            os = new BufferedOutputStream(socket.getOutputStream());
+            sortie = Channels.newChannel(os);
         } catch (IOException e) {
         }
     }
 
     /**
-     * Vrifie si du texte est arriv sur la connexion et le retourne. Retourne la chaine vide s'il n'y a pas de texte.
+     * Construit une connexion sans socket ni canal, pour une sous-classe qui redéfinit l'envoi des textes, par
+     * exemple pour les relayer vers un autre serveur.
+     */
+    protected Connexion() {
+    }
+
+    /**
+     * Construit une connexion sur un canal NIO, TCP ou socket Unix. Le canal peut être en mode non bloquant : les
+     * lectures retournent alors immédiatement s'il n'y a rien à lire. Sur un canal TCP, l'algorithme de Nagle est
+     * désactivé, comme pour un socket.
      *
-     * @return String le texte reu, ou la chaine vide, si aucun texte n'est arriv.
+     * @param canal SocketChannel Le canal sur lequel la connexion est créée
      */
-    public String getAvailableText() {
-        String t = "";
+    public Connexion(SocketChannel canal) {
+        this.canal = canal;
         try {
-            byte buf[] = new byte[2000];    //buffer de lecture
-
-            if (is.available() <= 0)
-                return "";
-            //Lire le inputstream
-            is.read(buf);
-            t = (new String(buf)).trim();
-            //System.out.println(texte);
-            //Effacer le buffer
-            buf = null;
+            if (canal.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY))
+                canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
         } catch (IOException e) {
+            //Le canal est déjà fermé : la première lecture le signalera.
         }
-        return t;
     }
 
     /**
-     * Envoie un texte sur la connexion
+     * Vérifie si une trame de texte est arrivée sur la connexion et la retourne. Retourne la chaine vide s'il n'y a
+     * pas de trame complète. Les trames suivantes, si plusieurs sont arrivées ensemble, restent disponibles pour les
+     * prochaines lectures.
+     *
+     * @return String le texte reçu, ou la chaine vide, si aucun texte n'est arrivé.
+     */
+    public String getAvailableText() {
+        if (!decodeur.hasTrame())
+            lireOctets(null, false);
+        String t = decodeur.prochaineTrame();
+        if (t == null)
+            return "";
+        statistiques.compterTramesRecues(1);
+        return t.trim();
+    }
+
+    /**
+     * Lit, sans bloquer, les octets arrivés sur la connexion et retourne toutes les trames complètes reçues. Une
+     * trame partielle est conservée jusqu'à ce que la suite arrive. La liste retournée est réutilisée par la
+     * prochaine lecture.
+     *
+     * @return List la liste des textes reçus, éventuellement vide
+     */
+    public List<String> getTramesDisponibles() {
+        return getTramesDisponibles(null);
+    }
+
+    /**
+     * Comme getTramesDisponibles(), mais lit dans un tampon fourni par l'appelant, typiquement le tampon d'une
+     * boucle d'événements partagé par toutes ses connexions. La connexion n'a alors pas besoin de son propre tampon.
      *
-     * @param texte String texte envoy
+     * @param tamponLecture ByteBuffer le tampon dans lequel lire
+     * @return List la liste des textes reçus, éventuellement vide
+     */
+    public List<String> getTramesDisponibles(ByteBuffer tamponLecture) {
+        lireOctets(tamponLecture, false);
+        trames.clear();
+        decodeur.trames(trames);
+        statistiques.compterTramesRecues(trames.size());
+        return trames;
+    }
+
+    /**
+     * Bloque jusqu'à ce que des octets arrivent sur la connexion et retourne toutes les trames complètes reçues.
+     * Pour une connexion construite sur un canal, le canal doit être en mode bloquant.
+     *
+     * @return List la liste des textes reçus (éventuellement vide si seule une trame partielle est arrivée), ou
+     * null si la connexion a été fermée. La liste est réutilisée par la prochaine lecture.
+     */
+    public List<String> attendreTrames() {
+        if (!decodeur.hasTrame() && lireOctets(null, true) == -1)
+            return null;
+        trames.clear();
+        decodeur.trames(trames);
+        statistiques.compterTramesRecues(trames.size());
+        return trames;
+    }
+
+    /*
+      Lit les octets arrivés sur la connexion dans tamponLecture (ou, s'il est null, dans le tampon de la connexion)
+      et les fournit au décodeur de trames. Si bloquant est false, seuls les octets déjà arrivés sont lus. Retourne
+      le nombre d'octets lus, ou -1 si l'autre bout a fermé la connexion.
+    */
+    private int lireOctets(ByteBuffer tamponLecture, boolean bloquant) {
+        int n;
+        verrouLecture.lock();
+        try {
+            if (fermee)
+                return -1;
+            try {
+                if (canal == null && !bloquant && is.available() <= 0)
+                    return 0;
+                if (tamponLecture == null) {
+                    if (tampon == null)
+                        tampon = PoolTampons.commun().obtenir();
+                    tamponLecture = tampon;
+                }
+                tamponLecture.clear();
+                n = (canal != null ? canal : entree).read(tamponLecture);
+                if (n > 0) {
+                    derniereActivite = System.currentTimeMillis();
+                    statistiques.compterOctetsRecus(n);
+                    tamponLecture.flip();
+                    decodeur.ajouter(tamponLecture);
+                }
+            } catch (IOException e) {
+                n = -1;
+            }
+            if (n == -1)
+                fermee = true;
+        } finally {
+            verrouLecture.unlock();
+        }
+        return n;
+    }
+
+    /**
+     * Envoie un texte sur la connexion, sous la forme d'une trame. La trame est mise dans la file d'envoi : si un
+     * planificateur d'envoi est associé à la connexion, cette méthode ne bloque pas. La classe de la trame, pour
+     * les limites de la file d'envoi, est le premier mot du texte.
+     *
+     * @param texte String texte envoyé
      */
     public void envoyer(String texte) {
-        os.print(texte);
-        os.flush();
+        int i = texte.indexOf(' ');
+        envoyer(texte, i == -1 ? texte : texte.substring(0, i));
+    }
+
+    /**
+     * Envoie un texte sur la connexion, sous la forme d'une trame, en précisant la classe de la trame. Si la trame
+     * fait dépasser les limites de la file d'envoi, la politique de débordement de sa classe est appliquée.
+     *
+     * @param texte String texte envoyé
+     * @param classe String la classe de la trame, par exemple MSG pour un message du salon public
+     */
+    public void envoyer(String texte, String classe) {
+        if (fermee || fermetureDemandee)
+            return;
+        String id = idRequete;
+        if (id != null && threadRequete == Thread.currentThread()) { //Réponse à la requête en cours
+            texte = "#" + id + " " + texte;
+            nbReponsesRequete++;
+        }
+        mettreEnFile(ByteBuffer.wrap(encoder(texte, classe)), classe);
+    }
+
+    /**
+     * Envoie sur la connexion un texte encodé une seule fois pour tous ses destinataires, par exemple un message du
+     * salon public. La file d'envoi reçoit une vue sur les octets partagés de la trame, au format de cette
+     * connexion, sans copie. Une trame diffusée ne porte jamais l'identifiant de la requête en cours.
+     *
+     * @param trame TrameDiffusee la trame envoyée
+     */
+    public void envoyer(TrameDiffusee trame) {
+        if (fermee || fermetureDemandee)
+            return;
+        mettreEnFile(trame.getTrame(binaire, compression, seuilCompression), trame.getClasse());
+    }
+
+    /*
+      Ajoute une trame encodée à la file d'envoi et en demande l'écriture.
+    */
+    private void mettreEnFile(ByteBuffer trame, String classe) {
+        if (!fileEnvoi.ajouter(trame, classe)) {
+            //Politique DECONNECTER : le client ne recevra plus que END, puis la connexion sera fermée.
+            fileEnvoi.remplacerPar(ByteBuffer.wrap(encoder("END", "END")));
+            fermetureDemandee = true;
+        }
+        demanderEcriture();
+    }
+
+    /*
+      Transforme un texte en trame, au format choisi pour cette connexion. Un long texte est compressé si la
+      compression est activée et qu'elle en réduit la taille ; la classe de la trame sert alors de type de message
+      pour les statistiques.
+    */
+    private byte[] encoder(String texte, String classe) {
+        if (compression && texte.length() >= seuilCompression / 4) { //Un caractère fait au plus 4 octets en UTF-8
+            byte[] octets = texte.getBytes(StandardCharsets.UTF_8), trame;
+            if (octets.length >= seuilCompression) {
+                trame = CompressionTrames.compresser(classe, octets);
+                if (trame != null)
+                    return trame;
+            }
+        }
+        if (binaire)
+            return ProtocoleBinaire.encoder(texte);
+        return TrameUtil.encoder(texte).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*
+      Fait écrire la file d'envoi : par le planificateur s'il y en a un (une seule demande à la fois), sinon tout
+      de suite.
+    */
+    private void demanderEcriture() {
+        PlanificateurEnvoi planificateur = planificateurEnvoi;
+        if (planificateur == null)
+            vider();
+        else if (envoiPlanifie.compareAndSet(false, true))
+            planificateur.planifier(this);
+    }
+
+    /**
+     * Écrit sur le réseau les trames de la file d'envoi, plusieurs à la fois. Sur un canal non bloquant, s'arrête
+     * lorsque le socket n'accepte plus d'octets. Si un autre thread est déjà en train d'écrire la file, c'est lui
+     * qui écrira aussi les trames ajoutées entre-temps.
+     *
+     * @return boolean true si la file est vide, false s'il reste des trames à écrire
+     */
+    public boolean vider() {
+        boolean vide;
+        envoiPlanifie.set(false);
+        do {
+            //Un autre thread écrit déjà la file (il peut être bloqué sur un client qui ne lit plus) :
+            if (!ecritureEnCours.compareAndSet(false, true)) {
+                vide = false;
+                break;
+            }
+            try {
+                vide = ecrireFile();
+            } finally {
+                ecritureEnCours.set(false);
+            }
+            //On recommence si des trames ont été ajoutées pendant que l'écriture était marquée en cours :
+        } while (vide && !fileEnvoi.isVide());
+        //Politique DECONNECTER : la connexion est fermée une fois END écrit, ou tout de suite si le socket n'accepte
+        //plus d'octets ou qu'une autre écriture est en cours, puisque le client ne lit plus.
+        if (fermetureDemandee && !fermee) {
+            fermetureDemandee = false;
+            Consumer<Connexion> d = deconnexion;
+            if (d != null)
+                d.accept(this);
+            else
+                close();
+        }
+        return vide;
+    }
+
+    /*
+      Écrit les trames de la file par lots : une écriture regroupée (gathering write) sur un canal, ou plusieurs
+      écritures dans le tampon du flux suivies d'un seul flush. Retourne false si le canal n'accepte plus d'octets.
+    */
+    private boolean ecrireFile() {
+        int n;
+        long ecrits;
+        boolean plein;
+        try {
+            while ((n = fileEnvoi.remplir(lotEcriture)) > 0) {
+                if (canal != null) {
+                    ecrits = canal.write(lotEcriture, 0, n);
+                } else {
+                    ecrits = 0;
+                    for (int i = 0; i < n; i++)
+                        ecrits += sortie.write(lotEcriture[i]);
+                }
+                statistiques.compterEnvoi(ecrits, fileEnvoi.retirerEcrites());
+                plein = lotEcriture[n - 1].hasRemaining();
+                Arrays.fill(lotEcriture, 0, n, null);
+                if (plein) //Le socket n'accepte plus d'octets
+                    return false;
+            }
+            if (canal == null)
+                os.flush();
+        } catch (IOException e) {
+            fermee = true;
+            fileEnvoi.effacer();
+        }
+        return true;
+    }
+
+    /**
+     * Associe à la connexion la couche d'entrée/sortie chargée d'écrire sa file d'envoi.
+     *
+     * @param planificateurEnvoi PlanificateurEnvoi le planificateur, ou null pour écrire sur le thread qui envoie
+     */
+    public void setPlanificateurEnvoi(PlanificateurEnvoi planificateurEnvoi) {
+        this.planificateurEnvoi = planificateurEnvoi;
+    }
+
+    /**
+     * Associe à la connexion la méthode qui la ferme lorsque la politique DECONNECTER s'applique, une fois END écrit.
+     * Un serveur s'en sert pour retirer le client de ses connectés avant de fermer la connexion, plutôt que de la
+     * voir fermée à son insu.
+     *
+     * @param deconnexion Consumer la méthode qui ferme la connexion, ou null pour simplement appeler close()
+     */
+    public void setDeconnexion(Consumer<Connexion> deconnexion) {
+        this.deconnexion = deconnexion;
+    }
+
+    /**
+     * Associe des limites à la file d'envoi de la connexion.
+     *
+     * @param limites LimitesEnvoi les limites, ou null pour une file sans limite
+     */
+    public void setLimitesEnvoi(LimitesEnvoi limites) {
+        fileEnvoi.setLimites(limites);
+    }
+
+    /**
+     * Retourne la file des trames en attente d'envoi.
+     *
+     * @return FileEnvoi la file d'envoi
+     */
+    public FileEnvoi getFileEnvoi() {
+        return fileEnvoi;
     }
 
     /**
-     * Ferme la connexion en fermant le socket et les flux utiliss.
+     * Ferme la connexion en fermant le socket et les flux utilisés. Les trames encore en attente sont d'abord
+     * écrites, dans la mesure où le socket les accepte.
      *
-     * @return true si la connexion a t ferme correctement et false, sinon.
+     * @return true si la connexion a été fermée correctement et false, sinon.
      */
     public boolean close() {
+        boolean res = true;
+        if (!fermee)
+            vider();
+        fileEnvoi.effacer();
         try {
             //envoyer("Connexion closed !");
-            is.close();
-            os.close();
-            socket.close();
+            if (canal != null) {
+                canal.close();
+            } else {
+                is.close();
+                os.close();
+                socket.close();
+            }
         } catch (IOException e) {
-            return false;
+            res = false;
         }
-        return true;
+        //Le socket étant fermé, une lecture bloquée en cours se termine et libère le tampon :
+        verrouLecture.lock();
+        try {
+            fermee = true;
+            PoolTampons.commun().rendre(tampon);
+            tampon = null;
+        } finally {
+            verrouLecture.unlock();
+        }
+        return res;
+    }
+
+    /**
+     * Ferme brusquement le socket ou le canal de la connexion, sans écrire les trames en attente. Une écriture
+     * bloquée sur un autre thread, par exemple celle de close() vers un client qui ne lit plus, se termine alors en
+     * erreur. Il faut tout de même appeler close() pour libérer les ressources de la connexion.
+     */
+    public void interrompre() {
+        try {
+            if (canal != null)
+                canal.close();
+            else if (socket != null)
+                socket.close();
+        } catch (IOException e) {
+            //La connexion est fermée de toute façon.
+        }
+    }
+
+    /**
+     * Indique si la connexion est fermée, soit par close(), soit par l'autre bout, ce qui est détecté lors d'une
+     * lecture ou d'une écriture.
+     *
+     * @return boolean true si la connexion est fermée, false sinon
+     */
+    public boolean isFermee() {
+        return fermee;
+    }
+
+    /**
+     * Indique que le thread courant commence à traiter une requête identifiée reçue sur cette connexion. Jusqu'à
+     * l'appel de terminerRequete(), tout texte envoyé sur la connexion par ce thread est une réponse à la requête et
+     * est préfixé de son identifiant (#42). Les textes envoyés par les autres threads ne sont pas touchés.
+     *
+     * @param idRequete String l'identifiant de la requête, sans le #
+     */
+    public void debuterRequete(String idRequete) {
+        nbReponsesRequete = 0;
+        threadRequete = Thread.currentThread();
+        this.idRequete = idRequete;
+    }
+
+    /**
+     * Indique que la requête en cours est transmise à un autre serveur, qui y répondra lui-même : elle compte comme
+     * une réponse, pour que terminerRequete() ne la considère pas comme restée sans réponse, et les textes envoyés
+     * ensuite par ce thread ne sont plus préfixés. Les réponses de l'autre serveur portent déjà l'identifiant, même
+     * si elles sont envoyées par ce thread. N'a d'effet que dans le thread qui traite la requête.
+     */
+    public void deleguerRequete() {
+        if (idRequete != null && threadRequete == Thread.currentThread()) {
+            nbReponsesRequete++;
+            threadRequete = null;
+        }
+    }
+
+    /**
+     * Indique que le traitement de la requête commencé par debuterRequete() est terminé.
+     *
+     * @return int le nombre de réponses envoyées à la requête
+     */
+    public int terminerRequete() {
+        idRequete = null;
+        threadRequete = null;
+        return nbReponsesRequete;
+    }
+
+    /**
+     * Indique si les trames envoyées sur cette connexion sont au format binaire compact.
+     *
+     * @return boolean true pour le format binaire, false pour le texte
+     */
+    public boolean isBinaire() {
+        return binaire;
+    }
+
+    /**
+     * Choisit le format des trames envoyées sur cette connexion. Les trames reçues sont toujours acceptées dans les
+     * deux formats ; le format binaire ne doit être choisi que si l'autre bout a annoncé qu'il le comprend.
+     *
+     * @param binaire boolean true pour le format binaire compact, false pour le texte
+     * @see ProtocoleBinaire
+     */
+    public void setBinaire(boolean binaire) {
+        this.binaire = binaire;
+    }
+
+    /**
+     * Indique si les longs textes envoyés sur cette connexion sont compressés.
+     *
+     * @return boolean true si la compression est activée
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+
+    /**
+     * Active ou désactive la compression des longs textes envoyés sur cette connexion. Les trames compressées
+     * reçues sont toujours décompressées ; la compression ne doit être activée que si l'autre bout a annoncé qu'il
+     * la comprend.
+     *
+     * @param compression boolean true pour compresser les textes d'au moins getSeuilCompression() octets
+     * @see CompressionTrames
+     */
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Retourne la taille, en octets, à partir de laquelle un texte envoyé est compressé.
+     *
+     * @return int la taille, en octets
+     */
+    public int getSeuilCompression() {
+        return seuilCompression;
+    }
+
+    /**
+     * Spécifie la taille, en octets, à partir de laquelle un texte envoyé est compressé.
+     *
+     * @param seuilCompression int la taille, en octets
+     */
+    public void setSeuilCompression(int seuilCompression) {
+        this.seuilCompression = seuilCompression;
+    }
+
+    /**
+     * Retourne la date de la dernière réception d'octets sur la connexion, ou de sa création si rien n'a encore été
+     * reçu.
+     *
+     * @return long la date, en millisecondes depuis l'époque
+     */
+    public long getDerniereActivite() {
+        return derniereActivite;
+    }
+
+    /**
+     * Retourne les compteurs d'activité de la connexion.
+     *
+     * @return StatistiquesConnexion les statistiques de la connexion
+     */
+    public StatistiquesConnexion getStatistiques() {
+        return statistiques;
+    }
+
+    /**
+     * Retourne le canal NIO de la connexion, s'il y en a un.
+     *
+     * @return SocketChannel le canal de la connexion ou null si la connexion utilise des flux
+     */
+    public SocketChannel getCanal() {
+        return canal;
     }
 
     public String getAlias() {
@@ -0,0 +1,314 @@
+package com.chat.commun.net;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Décodeur de trames en continu. Les octets reçus sur une connexion lui sont fournis au fur et à mesure, dans des
+ * morceaux de n'importe quelle taille. Il en extrait toutes les trames complètes et conserve la trame partielle
+ * jusqu'à la prochaine lecture. Une trame plus longue que la taille maximale est ignorée jusqu'à sa fin.
+ * <p>
+ * Le découpage se fait sur les octets : en UTF-8, l'octet '\n' n'apparaît jamais à l'intérieur d'un caractère
+ * multi-octets. Un caractère coupé entre deux lectures reste donc dans la trame partielle, et n'est décodé, par un
+ * CharsetDecoder UTF-8 réutilisé, qu'une fois la trame complète. Les tampons internes ne sont agrandis que
+ * lorsqu'une trame plus longue que les précédentes arrive.
+ * <p>
+ * Une trame qui commence par l'octet ProtocoleBinaire.MARQUEUR ou CompressionTrames.MARQUEUR, qui n'existent pas
+ * en UTF-8, est une trame binaire ou compressée : sa longueur est donnée dans son en-tête au lieu d'être marquée par
+ * '\n'. Le décodeur en redonne le texte de la commande, si bien que les trois formats peuvent arriver sur la même
+ * connexion.
+ *
+ * @see TrameUtil
+ * @see ProtocoleBinaire
+ * @see CompressionTrames
+ */
+public class DecodeurTrames {
+    /**
+     * Taille maximale, en octets, d'une trame acceptée par défaut.
+     */
+    public static final int TAILLE_MAX_TRAME = 8 * 1024 * 1024;
+
+    private final int tailleMax;
+    private final CharsetDecoder decodeurUtf8 = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    //Octets reçus qui n'ont pas encore été découpés en trames, et vue réutilisée sur ces octets pour les décoder :
+    private byte[] octets = new byte[2048];
+    private ByteBuffer vueOctets = ByteBuffer.wrap(octets);
+    //Caractères de la dernière trame décodée :
+    private CharBuffer caracteres = CharBuffer.allocate(2048);
+    private int debut, fin;
+    //Position à partir de laquelle chercher la prochaine fin de trame (ce qui précède a déjà été examiné) :
+    private int recherche;
+    //Indique qu'on est en train d'ignorer une trame texte trop longue :
+    private boolean ignorer;
+    //Nombre d'octets restants d'une trame binaire trop longue, à ignorer dès leur arrivée :
+    private long aIgnorer;
+    //Position du contenu, position de la fin (exclue) et, pour une trame compressée, taille originale de la trame
+    //binaire trouvée par chercherTrameBinaire() :
+    private int debutContenu, finBinaire, tailleOriginale;
+    //Identifiant de requête de la trame binaire trouvée par chercherTrameBinaire(), ou -1 :
+    private long idRequete;
+    //Résultat de lireVarint() : valeur lue et position qui suit le varint :
+    private long valeurVarint;
+    private int finVarint;
+
+    /**
+     * Construit un décodeur qui accepte des trames jusqu'à TAILLE_MAX_TRAME octets.
+     */
+    public DecodeurTrames() {
+        this(TAILLE_MAX_TRAME);
+    }
+
+    /**
+     * Construit un décodeur.
+     *
+     * @param tailleMax int la taille maximale, en octets, d'une trame
+     */
+    public DecodeurTrames(int tailleMax) {
+        this.tailleMax = tailleMax;
+    }
+
+    /**
+     * Ajoute au décodeur les octets reçus, c'est-à-dire les octets restants du tampon (entre sa position et sa
+     * limite). Le tampon est entièrement consommé.
+     *
+     * @param tampon ByteBuffer tampon contenant les octets reçus
+     */
+    public void ajouter(ByteBuffer tampon) {
+        if (aIgnorer > 0) {
+            int n = (int) Math.min(aIgnorer, tampon.remaining());
+            tampon.position(tampon.position() + n);
+            aIgnorer -= n;
+        }
+        int longueur = tampon.remaining();
+        reserver(longueur);
+        tampon.get(octets, fin, longueur);
+        fin += longueur;
+    }
+
+    /*
+      S'assure qu'il y a de la place pour longueur octets après fin : récupère d'abord la place des trames déjà
+      extraites, puis agrandit le tableau si nécessaire.
+    */
+    private void reserver(int longueur) {
+        if (fin + longueur <= octets.length)
+            return;
+        System.arraycopy(octets, debut, octets, 0, fin - debut);
+        fin -= debut;
+        recherche -= debut;
+        debut = 0;
+        if (fin + longueur > octets.length) {
+            byte[] nouveau = new byte[Math.max(octets.length * 2, fin + longueur)];
+            System.arraycopy(octets, 0, nouveau, 0, fin);
+            octets = nouveau;
+            vueOctets = ByteBuffer.wrap(octets);
+        }
+    }
+
+    /**
+     * Extrait la prochaine trame complète.
+     *
+     * @return String le texte de la trame, ou null s'il n'y a pas de trame complète
+     */
+    public String prochaineTrame() {
+        int i;
+        String contenu;
+        while (true) {
+            if (!ignorer && recherche == debut && debut < fin && estTrameBinaire()) {
+                if (!chercherTrameBinaire())
+                    return null;
+                if (finBinaire == -1) //Trame binaire trop longue, ignorée jusqu'à sa fin
+                    continue;
+                contenu = octets[debut] == CompressionTrames.MARQUEUR ? decoderCompresse() : decoderBinaire();
+                debut = recherche = finBinaire;
+                if (debut == fin)
+                    debut = fin = recherche = 0;
+                if (contenu == null) //Trame compressée invalide
+                    continue;
+                return contenu;
+            }
+            i = chercherFinTrame();
+            if (i == -1) {
+                if (fin - debut > tailleMax) { //Trame trop longue : on abandonne ce qui a été reçu
+                    ignorer = true;
+                    debut = fin = recherche = 0;
+                }
+                return null;
+            }
+            contenu = ignorer ? null : decoder(debut, i);
+            debut = recherche = i + 1;
+            if (debut == fin)
+                debut = fin = recherche = 0;
+            if (ignorer) { //Fin de la trame trop longue
+                ignorer = false;
+                continue;
+            }
+            return TrameUtil.decoder(contenu);
+        }
+    }
+
+    /*
+      Décode en UTF-8 les octets de octets[de] à octets[a - 1].
+    */
+    private String decoder(int de, int a) {
+        vueOctets.limit(a).position(de);
+        return decoder(vueOctets);
+    }
+
+    /*
+      Décode en UTF-8 les octets restants d'un tampon.
+    */
+    private String decoder(ByteBuffer source) {
+        int longueurMax = source.remaining();
+        if (caracteres.capacity() < longueurMax) //En UTF-8, il n'y a jamais plus de caractères que d'octets
+            caracteres = CharBuffer.allocate(Math.max(caracteres.capacity() * 2, longueurMax));
+        caracteres.clear();
+        decodeurUtf8.reset();
+        decodeurUtf8.decode(source, caracteres, true);
+        decodeurUtf8.flush(caracteres);
+        caracteres.flip();
+        return caracteres.toString();
+    }
+
+    /*
+      Indique si la trame qui commence à debut est une trame binaire ou compressée.
+    */
+    private boolean estTrameBinaire() {
+        return octets[debut] == ProtocoleBinaire.MARQUEUR || octets[debut] == CompressionTrames.MARQUEUR;
+    }
+
+    /*
+      Examine l'en-tête de la trame binaire ou compressée qui commence à debut. Retourne false si la trame n'est pas
+      encore arrivée en entier. Sinon, place la position de son contenu dans debutContenu et sa fin dans finBinaire,
+      ou, si elle dépasse la taille maximale, abandonne ce qui en a été reçu, note ce qu'il en reste à ignorer et met
+      finBinaire à -1.
+    */
+    private boolean chercherTrameBinaire() {
+        long longueur, taille = 0;
+        int i;
+        idRequete = -1;
+        if (octets[debut] == CompressionTrames.MARQUEUR) {
+            if (!lireVarint(debut + 1))
+                return false;
+            taille = valeurVarint;
+            i = finVarint;
+        } else {
+            i = debut + 2; //Saute l'opcode
+            if (i <= fin && (octets[debut + 1] & ProtocoleBinaire.AVEC_ID) != 0) {
+                if (!lireVarint(i))
+                    return false;
+                idRequete = valeurVarint;
+                i = finVarint;
+            }
+        }
+        if (!lireVarint(i))
+            return false;
+        longueur = valeurVarint;
+        i = finVarint;
+        if (longueur > tailleMax || taille > tailleMax) {
+            aIgnorer = Math.max(0, longueur - (fin - i));
+            debut = fin = recherche = 0;
+            finBinaire = -1;
+            return true;
+        }
+        if (fin - i < longueur)
+            return false;
+        debutContenu = i;
+        finBinaire = i + (int) longueur;
+        tailleOriginale = (int) taille;
+        return true;
+    }
+
+    /*
+      Lit un varint (voir ProtocoleBinaire) à partir de la position i. Retourne false s'il n'est pas encore arrivé
+      en entier ; sinon, place sa valeur dans valeurVarint et la position qui le suit dans finVarint.
+    */
+    private boolean lireVarint(int i) {
+        long valeur = 0;
+        int decalage = 0;
+        byte b;
+        do {
+            if (i >= fin)
+                return false;
+            b = octets[i++];
+            valeur |= (long) (b & 0x7F) << decalage;
+            decalage += 7;
+        } while (b < 0 && decalage < 35);
+        valeurVarint = valeur;
+        finVarint = i;
+        return true;
+    }
+
+    /*
+      Retourne le texte contenu dans la trame compressée qui va de debut à finBinaire, ou null s'il est invalide.
+    */
+    private String decoderCompresse() {
+        long debutDecompression = System.nanoTime();
+        byte[] texte = CompressionTrames.decompresser(octets, debutContenu, finBinaire - debutContenu,
+                tailleOriginale);
+        if (texte == null)
+            return null;
+        String contenu = decoder(ByteBuffer.wrap(texte)), type = contenu;
+        if (type.startsWith("#")) //Identifiant de requête
+            type = type.substring(type.indexOf(' ') + 1);
+        int i = type.indexOf(' ');
+        CompressionTrames.compterDecompression(i == -1 ? type : type.substring(0, i),
+                System.nanoTime() - debutDecompression);
+        return contenu;
+    }
+
+    /*
+      Retourne le texte de la commande contenue dans la trame binaire qui va de debut à finBinaire.
+    */
+    private String decoderBinaire() {
+        int opcode = octets[debut + 1] & ~ProtocoleBinaire.AVEC_ID & 0xFF;
+        int i = debutContenu;
+        String verbe = ProtocoleBinaire.getVerbe(opcode), prefixe = idRequete < 0 ? "" : "#" + idRequete + " ";
+        if (verbe == null)
+            return prefixe + decoder(i, finBinaire);
+        if (i == finBinaire)
+            return prefixe + verbe;
+        if (opcode == ProtocoleBinaire.DEPLACEMENT)
+            return prefixe + verbe + " " + ProtocoleBinaire.decoderDeplacements(octets, i, finBinaire - i);
+        return prefixe + verbe + " " + decoder(i, finBinaire);
+    }
+
+    /**
+     * Extrait toutes les trames complètes et les ajoute à une liste.
+     *
+     * @param destination List la liste à laquelle ajouter les textes des trames complètes
+     * @return List la liste destination
+     */
+    public List<String> trames(List<String> destination) {
+        String trame;
+        while ((trame = prochaineTrame()) != null)
+            destination.add(trame);
+        return destination;
+    }
+
+    /**
+     * Indique si le décodeur contient au moins une trame complète.
+     *
+     * @return boolean true s'il y a une trame complète, false sinon
+     */
+    public boolean hasTrame() {
+        if (!ignorer && recherche == debut && debut < fin && estTrameBinaire())
+            return chercherTrameBinaire() && finBinaire != -1;
+        return chercherFinTrame() != -1;
+    }
+
+    /*
+      Retourne la position de la prochaine fin de trame, ou -1 s'il n'y en a pas dans les octets reçus.
+    */
+    private int chercherFinTrame() {
+        for (; recherche < fin; recherche++)
+            if (octets[recherche] == TrameUtil.FIN_TRAME)
+                return recherche;
+        return -1;
+    }
+}
@@ -0,0 +1,16 @@
+package com.chat.commun.net;
+
+/**
+ * Cette interface représente la couche d'entrée/sortie chargée d'écrire sur le réseau les trames mises en file par
+ * Connexion.envoyer(). Elle est prévenue chaque fois qu'une connexion a des trames en attente d'envoi.
+ */
+@FunctionalInterface
+public interface PlanificateurEnvoi {
+    /**
+     * Demande que les trames en attente de la connexion soient écrites, plus tard, par la couche d'entrée/sortie.
+     * Cette méthode ne doit pas bloquer.
+     *
+     * @param connexion Connexion la connexion qui a des trames en attente
+     */
+    void planifier(Connexion connexion);
+}
@@ -0,0 +1,24 @@
+package com.chat.commun.net;
+
+/**
+ * Ce que fait une connexion lorsqu'une trame envoyée fait dépasser les limites de sa file d'envoi, c'est-à-dire
+ * lorsque le client ne lit pas aussi vite qu'on lui écrit.
+ *
+ * @see LimitesEnvoi
+ */
+public enum PolitiqueDebordement {
+    /**
+     * Supprime les plus anciennes trames en attente soumises à cette même politique (par exemple les messages du
+     * salon public) jusqu'à repasser sous les limites.
+     */
+    SUPPRIMER_PLUS_ANCIEN,
+    /**
+     * Garde la trame malgré le dépassement (par exemple les coups d'une partie d'échecs, qui ne doivent pas se
+     * perdre).
+     */
+    JAMAIS_SUPPRIMER,
+    /**
+     * Abandonne les trames en attente, envoie END au client et ferme la connexion.
+     */
+    DECONNECTER
+}
@@ -0,0 +1,74 @@
+package com.chat.commun.net;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Réserve de tampons directs (hors du tas Java) réutilisables pour les lectures sur les connexions. Un tampon est
+ * obtenu une fois, par boucle d'événements ou par connexion, et rendu lorsqu'il ne sert plus : la lecture d'un
+ * socket ne crée alors plus de tableau à chaque appel.
+ */
+public class PoolTampons {
+    /**
+     * Taille, en octets, des tampons de lecture.
+     */
+    public static final int TAILLE_TAMPON = 16 * 1024;
+    /**
+     * Nombre maximal de tampons libres conservés dans la réserve.
+     */
+    public static final int NB_MAX_LIBRES = 1024;
+
+    //Réserve partagée par toutes les connexions du programme :
+    private static final PoolTampons COMMUN = new PoolTampons(TAILLE_TAMPON, NB_MAX_LIBRES);
+
+    private final int taille, nbMaxLibres;
+    private final ConcurrentLinkedQueue<ByteBuffer> libres = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nbLibres = new AtomicInteger();
+
+    /**
+     * Construit une réserve de tampons.
+     *
+     * @param taille int taille, en octets, de chaque tampon
+     * @param nbMaxLibres int nombre maximal de tampons libres conservés
+     */
+    public PoolTampons(int taille, int nbMaxLibres) {
+        this.taille = taille;
+        this.nbMaxLibres = nbMaxLibres;
+    }
+
+    /**
+     * Retourne la réserve partagée par toutes les connexions.
+     *
+     * @return PoolTampons la réserve partagée
+     */
+    public static PoolTampons commun() {
+        return COMMUN;
+    }
+
+    /**
+     * Obtient un tampon vide de la réserve, ou en alloue un nouveau si la réserve est vide.
+     *
+     * @return ByteBuffer un tampon direct vide
+     */
+    public ByteBuffer obtenir() {
+        ByteBuffer tampon = libres.poll();
+        if (tampon == null)
+            return ByteBuffer.allocateDirect(taille);
+        nbLibres.decrementAndGet();
+        return tampon;
+    }
+
+    /**
+     * Rend un tampon à la réserve. Le tampon ne doit plus être utilisé par l'appelant.
+     *
+     * @param tampon ByteBuffer le tampon rendu
+     */
+    public void rendre(ByteBuffer tampon) {
+        if (tampon == null || nbLibres.get() >= nbMaxLibres)
+            return;
+        tampon.clear();
+        nbLibres.incrementAndGet();
+        libres.offer(tampon);
+    }
+}
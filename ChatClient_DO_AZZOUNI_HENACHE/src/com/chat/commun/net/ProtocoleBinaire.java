@@ -0,0 +1,178 @@
+package com.chat.commun.net;
+
+import com.chat.commun.evenement.EvenementUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe utilitaire qui définit le format binaire compact des trames, négocié par la commande PROTO BIN. Une trame
+ * binaire a la forme :
+ * <pre>
+ *   MARQUEUR (0xFF) | opcode (1 octet) | longueur du contenu (varint) | contenu
+ * </pre>
+ * L'opcode remplace le verbe de la commande (MSG, JOIN, MOVE...) et le contenu est l'argument, en UTF-8. Le texte
+ * d'une commande inconnue est envoyé en entier avec l'opcode TEXTE. Les coups d'échecs bien formés sont envoyés
+ * avec l'opcode DEPLACEMENT, sur 2 octets par coup (case de départ et case d'arrivée sur 6 bits chacune). Si le
+ * texte est préfixé d'un identifiant de requête (#42), le bit de poids fort de l'opcode (AVEC_ID) est mis et
+ * l'identifiant suit l'opcode, au format varint.
+ * <p>
+ * L'octet 0xFF n'apparaît jamais en UTF-8 : une trame binaire se distingue donc d'une trame texte par son premier
+ * octet, et les deux formats peuvent se suivre sur la même connexion. Le décodage est fait par DecodeurTrames, qui
+ * redonne le texte de la commande.
+ *
+ * @see TrameUtil
+ * @see DecodeurTrames
+ */
+public class ProtocoleBinaire {
+    /**
+     * Premier octet de toute trame binaire.
+     */
+    public static final byte MARQUEUR = (byte) 0xFF;
+    /**
+     * Opcode d'une trame dont le contenu est le texte complet d'une commande sans opcode propre.
+     */
+    public static final int TEXTE = 0;
+    /**
+     * Opcode d'une commande MOVE dont l'argument est codé sur 2 octets par coup.
+     */
+    public static final int DEPLACEMENT = 1;
+    /**
+     * Bit de l'opcode qui indique qu'un identifiant de requête suit l'opcode.
+     */
+    public static final int AVEC_ID = 0x80;
+
+    //Verbe correspondant à chaque opcode (l'ordre ne doit pas changer) :
+    private static final String[] VERBES = {null, "MOVE", "EXIT", "LIST", "MSG", "HIST", "JOIN", "JOINOK",
+            "DECLINE", "INV", "PRV", "QUIT", "CHESS", "CHESSOK", "MOVE", "INVALID", "ECHEC", "MAT", "ABANDON",
+            "END", "OK", "WAIT_FOR", "PING", "PONG", "PROTO"};
+    private static final Map<String, Integer> OPCODES = new HashMap<>();
+
+    static {
+        for (int i = 2; i < VERBES.length; i++)
+            OPCODES.put(VERBES[i], i);
+    }
+
+    /*
+      Contructeur privé pour empêcher l'instanciation (inutile) de la classe.
+    */
+    private ProtocoleBinaire() {
+    }
+
+    /**
+     * Transforme un texte en trame binaire.
+     *
+     * @param texte String le texte à envoyer
+     * @return byte[] les octets de la trame
+     */
+    public static byte[] encoder(String texte) {
+        String idRequete = EvenementUtil.extraireIdRequete(texte);
+        if (idRequete != null)
+            texte = texte.substring(idRequete.length() + 2);
+        int i = texte.indexOf(' ');
+        String verbe = i == -1 ? texte : texte.substring(0, i);
+        String argument = i == -1 ? "" : texte.substring(i + 1);
+        Integer opcode = OPCODES.get(verbe);
+        byte[] contenu;
+        if (opcode == null) {
+            opcode = TEXTE;
+            contenu = texte.getBytes(StandardCharsets.UTF_8);
+        } else if ("MOVE".equals(verbe) && (contenu = encoderDeplacements(argument)) != null) {
+            opcode = DEPLACEMENT;
+        } else
+            contenu = argument.getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream trame = new ByteArrayOutputStream(contenu.length + 12);
+        trame.write(MARQUEUR);
+        if (idRequete == null)
+            trame.write(opcode);
+        else {
+            trame.write(opcode | AVEC_ID);
+            ecrireVarint(trame, Integer.parseInt(idRequete));
+        }
+        ecrireVarint(trame, contenu.length);
+        trame.write(contenu, 0, contenu.length);
+        return trame.toByteArray();
+    }
+
+    /*
+      Écrit un entier positif au format varint : 7 bits par octet, en commençant par les bits de poids faible, le
+      bit de poids fort de chaque octet indiquant si un autre octet suit.
+    */
+    static void ecrireVarint(ByteArrayOutputStream sortie, int n) {
+        while ((n & ~0x7F) != 0) {
+            sortie.write((n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        sortie.write(n);
+    }
+
+    /**
+     * Retourne le verbe correspondant à un opcode.
+     *
+     * @param opcode int l'opcode
+     * @return String le verbe, ou null pour TEXTE ou un opcode inconnu
+     */
+    public static String getVerbe(int opcode) {
+        return opcode > 0 && opcode < VERBES.length ? VERBES[opcode] : null;
+    }
+
+    /**
+     * Code une suite de coups d'échecs, par exemple "e2-e4" ou "e1g1h1f1" (roque), sur 2 octets par coup. Les
+     * espaces et les tirets sont ignorés.
+     *
+     * @param deplacements String les coups, chacun sous la forme case de départ, case d'arrivée
+     * @return byte[] les coups codés, ou null si le texte n'est pas une suite de coups bien formés
+     */
+    public static byte[] encoderDeplacements(String deplacements) {
+        byte[] cases = new byte[deplacements.length() / 2];
+        int nbCases = 0, i = 0, valeur;
+        char colonne, ligne;
+        while (i < deplacements.length()) {
+            colonne = deplacements.charAt(i++);
+            if (colonne == ' ' || colonne == '-')
+                continue;
+            if (i == deplacements.length() || nbCases == cases.length)
+                return null;
+            ligne = deplacements.charAt(i++);
+            if (colonne < 'a' || colonne > 'h' || ligne < '1' || ligne > '8')
+                return null;
+            cases[nbCases++] = (byte) ((colonne - 'a') * 8 + (ligne - '1'));
+        }
+        if (nbCases == 0 || nbCases % 2 != 0)
+            return null;
+        byte[] contenu = new byte[nbCases];
+        for (int j = 0; j < nbCases; j += 2) {
+            valeur = cases[j] << 6 | cases[j + 1];
+            contenu[j] = (byte) (valeur >> 8);
+            contenu[j + 1] = (byte) valeur;
+        }
+        return contenu;
+    }
+
+    /**
+     * Retrouve le texte de coups codés par encoderDeplacements(), par exemple "e2e4".
+     *
+     * @param octets byte[] le tableau contenant les coups codés
+     * @param debut int la position du premier octet
+     * @param longueur int le nombre d'octets (2 par coup)
+     * @return String les coups, sans séparateur
+     */
+    public static String decoderDeplacements(byte[] octets, int debut, int longueur) {
+        StringBuilder sb = new StringBuilder(longueur * 2);
+        int valeur;
+        for (int i = debut; i + 1 < debut + longueur; i += 2) {
+            valeur = (octets[i] & 0xFF) << 8 | (octets[i + 1] & 0xFF);
+            ajouterCase(sb, valeur >> 6 & 0x3F);
+            ajouterCase(sb, valeur & 0x3F);
+        }
+        return sb.toString();
+    }
+
+    //Ajoute une case, numérotée colonne * 8 + ligne, sous la forme "e2" :
+    private static void ajouterCase(StringBuilder sb, int numero) {
+        sb.append((char) ('a' + numero / 8)).append((char) ('1' + numero % 8));
+    }
+}
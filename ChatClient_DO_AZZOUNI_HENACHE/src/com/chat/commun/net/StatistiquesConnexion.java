@@ -0,0 +1,97 @@
+package com.chat.commun.net;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs d'activité d'une connexion : octets et trames reçus et envoyés, et nombre de commandes reçues par type.
+ * <p>
+ * Les compteurs d'octets et de trames ne sont pas atomiques : chacun n'est mis à jour que par un seul thread à la
+ * fois (la lecture de la connexion est protégée par son verrou de lecture, l'écriture de sa file par le marqueur
+ * d'écriture en cours). Ils sont volatils pour pouvoir être lus à tout moment par un autre thread, sans verrou.
+ */
+public class StatistiquesConnexion {
+    /**
+     * Nombre maximal de types de commande comptés séparément. Les commandes des autres types, par exemple des
+     * commandes inconnues envoyées en grand nombre par un client, sont comptées ensemble sous le type AUTRES.
+     */
+    public static final int MAX_TYPES_COMMANDES = 32;
+
+    private volatile long octetsRecus, tramesRecues, octetsEnvoyes, tramesEnvoyees;
+    private final Map<String, LongAdder> commandes = new ConcurrentHashMap<>();
+
+    /*
+      Compte des octets reçus. Appelée uniquement par le thread qui lit la connexion.
+    */
+    void compterOctetsRecus(int octets) {
+        octetsRecus += octets;
+    }
+
+    /*
+      Compte des trames reçues. Appelée uniquement par le thread qui lit la connexion.
+    */
+    void compterTramesRecues(int nb) {
+        tramesRecues += nb;
+    }
+
+    /*
+      Compte des octets et des trames écrits. Appelée uniquement par le thread qui écrit la file d'envoi.
+    */
+    void compterEnvoi(long octets, int nbTrames) {
+        octetsEnvoyes += octets;
+        tramesEnvoyees += nbTrames;
+    }
+
+    /**
+     * Compte une commande reçue.
+     *
+     * @param type String le type de la commande, par exemple MSG
+     */
+    public void compterCommande(String type) {
+        LongAdder compteur = commandes.get(type);
+        if (compteur == null) {
+            if (commandes.size() >= MAX_TYPES_COMMANDES)
+                type = "AUTRES";
+            compteur = commandes.computeIfAbsent(type, t -> new LongAdder());
+        }
+        compteur.increment();
+    }
+
+    /**
+     * Retourne le nombre de commandes reçues par type, triées par type.
+     *
+     * @return Map une copie des compteurs
+     */
+    public Map<String, Long> getCommandes() {
+        Map<String, Long> copie = new TreeMap<>();
+        commandes.forEach((type, compteur) -> copie.put(type, compteur.sum()));
+        return copie;
+    }
+
+    public long getOctetsRecus() {
+        return octetsRecus;
+    }
+
+    public long getTramesRecues() {
+        return tramesRecues;
+    }
+
+    public long getOctetsEnvoyes() {
+        return octetsEnvoyes;
+    }
+
+    public long getTramesEnvoyees() {
+        return tramesEnvoyees;
+    }
+
+    /**
+     * Retourne le nombre total d'octets reçus et envoyés, qui sert à classer les connexions les plus actives.
+     *
+     * @return long le total des octets
+     */
+    public long getOctetsTotal() {
+        return octetsRecus + octetsEnvoyes;
+    }
+}
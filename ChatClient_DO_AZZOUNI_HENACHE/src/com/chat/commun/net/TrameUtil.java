@@ -0,0 +1,67 @@
+package com.chat.commun.net;
+
+/**
+ * Classe utilitaire qui définit le découpage en trames du texte échangé sur une connexion. Chaque trame est une
+ * ligne terminée par '\n'. Les retours à la ligne et les barres obliques inverses contenus dans le texte sont
+ * échappés (\n devient \\n, \ devient \\) pour qu'un texte sur plusieurs lignes, comme l'historique, tienne dans
+ * une seule trame. Un humain peut donc toujours dialoguer avec le serveur ligne par ligne, par exemple avec telnet.
+ */
+public class TrameUtil {
+    /**
+     * Caractère qui termine chaque trame.
+     */
+    public static final char FIN_TRAME = '\n';
+
+    /*
+      Contructeur privé pour empêcher l'instanciation (inutile) de la classe.
+    */
+    private TrameUtil() {
+    }
+
+    /**
+     * Transforme un texte en trame : échappe les caractères spéciaux et ajoute la fin de trame.
+     *
+     * @param texte String le texte à envoyer
+     * @return String la trame correspondante
+     */
+    public static String encoder(String texte) {
+        StringBuilder sb = new StringBuilder(texte.length() + 8);
+        char c;
+        for (int i = 0; i < texte.length(); i++) {
+            c = texte.charAt(i);
+            if (c == '\\')
+                sb.append("\\\\");
+            else if (c == '\n')
+                sb.append("\\n");
+            else
+                sb.append(c);
+        }
+        return sb.append(FIN_TRAME).toString();
+    }
+
+    /**
+     * Retrouve le texte d'origine à partir du contenu d'une trame (sans sa fin de trame). Un '\r' final, envoyé par
+     * les terminaux, est ignoré.
+     *
+     * @param contenu String le contenu de la trame
+     * @return String le texte d'origine
+     */
+    public static String decoder(String contenu) {
+        int taille = contenu.length();
+        if (taille > 0 && contenu.charAt(taille - 1) == '\r')
+            taille--;
+        if (contenu.indexOf('\\') == -1)
+            return contenu.substring(0, taille);
+        StringBuilder sb = new StringBuilder(taille);
+        char c;
+        for (int i = 0; i < taille; i++) {
+            c = contenu.charAt(i);
+            if (c == '\\' && i + 1 < taille) {
+                c = contenu.charAt(++i);
+                sb.append(c == 'n' ? '\n' : c);
+            } else
+                sb.append(c);
+        }
+        return sb.toString();
+    }
+}
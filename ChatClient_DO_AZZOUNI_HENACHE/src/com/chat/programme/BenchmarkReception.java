@@ -0,0 +1,88 @@
+package com.chat.programme;
+
+import com.chat.client.Client;
+import com.chat.client.ModeReception;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Programme qui compare la latence de réception des deux modes du client, SCRUTATION et BLOQUANT. Pour chaque mode,
+ * un client se connecte à un serveur déjà démarré, puis envoie des PING un à un et mesure le temps écoulé jusqu'à ce
+ * que la réponse PONG soit traitée.
+ * <p>
+ * Arguments : [nombre de PING] [adresse du serveur] [port du serveur].
+ */
+public class BenchmarkReception {
+    private static final long DELAI_MAX = 5000;
+
+    //Client qui note l'arrivée des réponses au lieu de les afficher :
+    private static class ClientMesure extends Client {
+        private final BlockingQueue<String> recus = new ArrayBlockingQueue<>(1024);
+
+        @Override
+        protected void traiterTexte(String texte) {
+            if (texte.startsWith("OK") || texte.startsWith("HIST") || texte.startsWith("PONG"))
+                recus.offer(texte);
+            else if (texte.startsWith("END"))
+                deconnecter();
+        }
+
+        String attendreReponse() throws InterruptedException {
+            return recus.poll(DELAI_MAX, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Méthode principale du programme.
+     *
+     * @param args Arguments du programme
+     * @throws InterruptedException si le programme est interrompu pendant une mesure
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int nb = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        for (ModeReception mode : ModeReception.values()) {
+            ClientMesure client = new ClientMesure();
+            client.setModeReception(mode);
+            if (args.length > 1)
+                client.setAdrServeur(args[1]);
+            if (args.length > 2)
+                client.setPortServeur(Integer.parseInt(args[2]));
+            if (!client.connecter()) {
+                System.out.println("Serveur introuvable a l'adresse " + client.getAdrServeur()
+                        + " sur le port " + client.getPortServeur());
+                return;
+            }
+            client.envoyer("bench" + mode.name().toLowerCase() + System.nanoTime() % 100000);
+            if (client.attendreReponse() == null) {
+                System.out.println("Le serveur n'a pas accepte le client");
+                client.deconnecter();
+                return;
+            }
+
+            long[] durees = new long[nb];
+            int n = 0;
+            long debut;
+            for (int i = 0; i < nb; i++) {
+                debut = System.nanoTime();
+                client.envoyer("PING");
+                if (client.attendreReponse() == null)
+                    break;
+                durees[n++] = System.nanoTime() - debut;
+            }
+            client.envoyer("EXIT");
+            Thread.sleep(200);
+            client.deconnecter();
+
+            Arrays.sort(durees, 0, n);
+            if (n == 0)
+                System.out.println(mode + " : aucune reponse");
+            else
+                System.out.printf("%-10s PING/PONG (ms) sur %d essais : p50=%.2f p99=%.2f max=%.2f moyenne=%.2f%n",
+                        mode, n, durees[n / 2] / 1e6, durees[Math.min(n - 1, (int) (n * 0.99))] / 1e6,
+                        durees[n - 1] / 1e6, Arrays.stream(durees, 0, n).average().orElse(0) / 1e6);
+        }
+    }
+}
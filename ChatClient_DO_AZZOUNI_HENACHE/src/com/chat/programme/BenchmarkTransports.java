@@ -0,0 +1,92 @@
+package com.chat.programme;
+
+import com.chat.client.Client;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Programme qui compare la latence aller-retour des deux transports du client : TCP, par l'interface locale, et
+ * socket Unix. Pour chaque transport, un client se connecte à un serveur déjà démarré sur le même hôte, puis envoie
+ * des PING un à un et mesure le temps écoulé jusqu'à ce que la réponse PONG soit traitée. Le serveur doit écouter
+ * sur le socket Unix (2e argument du programme serveur).
+ * <p>
+ * Arguments : [nombre de PING] [chemin du socket Unix] [adresse du serveur] [port du serveur].
+ */
+public class BenchmarkTransports {
+    private static final long DELAI_MAX = 5000;
+    //PING envoyés avant de mesurer, le temps que le code des deux transports soit compilé :
+    private static final int NB_ECHAUFFEMENT = 2000;
+
+    //Client qui note l'arrivée des réponses au lieu de les afficher :
+    private static class ClientMesure extends Client {
+        private final BlockingQueue<String> recus = new ArrayBlockingQueue<>(1024);
+
+        @Override
+        protected void traiterTexte(String texte) {
+            if (texte.startsWith("OK") || texte.startsWith("HIST") || texte.startsWith("PONG"))
+                recus.offer(texte);
+            else if (texte.startsWith("END"))
+                deconnecter();
+        }
+
+        String attendreReponse() throws InterruptedException {
+            return recus.poll(DELAI_MAX, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Méthode principale du programme.
+     *
+     * @param args Arguments du programme
+     * @throws InterruptedException si le programme est interrompu pendant une mesure
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int nb = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String chemin = args.length > 1 ? args[1] : "/tmp/chat.sock";
+        for (String transport : new String[]{"TCP", "UNIX"}) {
+            ClientMesure client = new ClientMesure();
+            if ("UNIX".equals(transport))
+                client.setCheminSocketUnix(chemin);
+            if (args.length > 2)
+                client.setAdrServeur(args[2]);
+            if (args.length > 3)
+                client.setPortServeur(Integer.parseInt(args[3]));
+            if (!client.connecter()) {
+                System.out.println("Serveur introuvable en " + transport);
+                continue;
+            }
+            client.envoyer("bench" + transport.toLowerCase() + System.nanoTime() % 100000);
+            if (client.attendreReponse() == null) {
+                System.out.println("Le serveur n'a pas accepte le client");
+                client.deconnecter();
+                return;
+            }
+
+            long[] durees = new long[nb];
+            int n = 0;
+            long debut;
+            for (int i = 0; i < NB_ECHAUFFEMENT + nb; i++) {
+                debut = System.nanoTime();
+                client.envoyer("PING");
+                if (client.attendreReponse() == null)
+                    break;
+                if (i >= NB_ECHAUFFEMENT)
+                    durees[n++] = System.nanoTime() - debut;
+            }
+            client.envoyer("EXIT");
+            Thread.sleep(200);
+            client.deconnecter();
+
+            Arrays.sort(durees, 0, n);
+            if (n == 0)
+                System.out.println(transport + " : aucune mesure");
+            else
+                System.out.printf("%s : %d PING, aller-retour p50=%.1f us p99=%.1f us p999=%.1f us max=%.1f us%n",
+                        transport, n, durees[n / 2] / 1e3, durees[Math.min(n - 1, (int) (n * 0.99))] / 1e3,
+                        durees[Math.min(n - 1, (int) (n * 0.999))] / 1e3, durees[n - 1] / 1e3);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.chat.programme;
+
+import com.chat.client.ClientChat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Programme de test de charge d'un serveur de chat démarré sur le même hôte, sans interface. Le programme simule
+ * un grand nombre d'utilisateurs, chacun avec son propre client : ils se connectent et choisissent un alias, puis
+ * sont groupés par paires. Chaque paire ouvre un salon privé (JOIN) et y commence une partie d'échecs (CHESS).
+ * <p>
+ * Pendant la durée du test, des messages sont envoyés au salon public (MSG) et dans les salons privés (PRV), au
+ * hasard parmi les utilisateurs, chacun à un débit total donné, et chaque partie joue ses coups (MOVE) à un débit
+ * donné. Les joueurs font aller et revenir leur cavalier du roi : la partie ne se termine jamais.
+ * <p>
+ * Chaque message porte la date de son envoi ; le programme mesure ainsi le temps écoulé jusqu'à la réception par
+ * chacun des destinataires. Pour un coup, il mesure le temps écoulé jusqu'à ce que le serveur renvoie le coup
+ * validé au joueur. Il affiche, pour chaque commande, le débit de réception et les latences p50, p99 et p999.
+ * <p>
+ * Arguments : [utilisateurs] [durée en secondes] [MSG par seconde] [PRV par seconde] [coups par seconde et par
+ * partie] [adresse du serveur] [port du serveur].
+ */
+public class GenerateurCharge {
+    private static final long DELAI_MAX = 30000;
+    //Intervalle, en millisecondes, entre deux vagues d'envois de messages :
+    private static final long INTERVALLE_ENVOI = 10;
+    //Coups que chaque couleur joue à tour de rôle : le cavalier du roi sort, puis rentre.
+    private static final String[] COUPS_BLANCS = {"g1f3", "f3g1"};
+    private static final String[] COUPS_NOIRS = {"g8f6", "f6g8"};
+
+    private static final HistogrammeLatences latencesMsg = new HistogrammeLatences();
+    private static final HistogrammeLatences latencesPrv = new HistogrammeLatences();
+    private static final HistogrammeLatences latencesMove = new HistogrammeLatences();
+    private static final LongAdder nbMsg = new LongAdder(), nbPrv = new LongAdder(), nbMove = new LongAdder();
+    private static final LongAdder nbErreurs = new LongAdder();
+    //Indique que la période de mesure est en cours :
+    private static volatile boolean enCours;
+
+    private static ScheduledExecutorService planificateur;
+    private static long delaiCoup;
+
+    //Utilisateur simulé : un client qui réagit lui-même aux commandes qu'il reçoit au lieu de les afficher.
+    private static class UtilisateurSimule extends ClientChat {
+        private final String alias;
+        private volatile String partenaire;
+        private final CountDownLatch identifie = new CountDownLatch(1);
+        private final CountDownLatch pret = new CountDownLatch(1);
+        private volatile char couleur;
+        private int nbCoupsJoues;
+        private volatile long debutCoup;
+
+        UtilisateurSimule(String alias) {
+            this.alias = alias;
+        }
+
+        @Override
+        protected void traiterTexte(String texte) {
+            int i = texte.indexOf(' ');
+            String type = i == -1 ? texte : texte.substring(0, i), argument = i == -1 ? "" : texte.substring(i + 1);
+            switch (type) {
+                case "OK":
+                    identifie.countDown();
+                    break;
+                case "HIST":
+                case "WAIT_FOR":
+                case "PROTO":
+                    break;
+                case "END":
+                    deconnecter();
+                    break;
+                case "JOIN": //Invitation du partenaire, acceptée aussitôt :
+                case "CHESS":
+                    envoyer(type + " " + argument);
+                    break;
+                case "JOINOK":
+                    if (delaiCoup <= 0) //Pas de partie d'échecs
+                        pret.countDown();
+                    else if (alias.compareTo(partenaire) < 0)
+                        envoyer("CHESS " + partenaire);
+                    break;
+                case "CHESSOK":
+                    couleur = argument.charAt(0);
+                    pret.countDown();
+                    break;
+                case "MOVE":
+                    if (debutCoup != 0) { //Notre coup, validé par le serveur
+                        if (enCours) {
+                            latencesMove.noter(System.nanoTime() - debutCoup);
+                            nbMove.increment();
+                        }
+                        debutCoup = 0;
+                    } else //Le coup de l'adversaire : c'est notre tour
+                        planifierCoup();
+                    break;
+                default:
+                    i = texte.indexOf(">>");
+                    if (i != -1 && texte.length() > i + 4 && texte.charAt(i + 3) == ' ')
+                        noterMessage(texte.charAt(i + 2), texte.substring(i + 4));
+                    else if (enCours)
+                        nbErreurs.increment();
+            }
+        }
+
+        /*
+          Note la latence d'un message reçu de type m (MSG) ou p (PRV), dont le texte est sa date d'envoi.
+        */
+        private void noterMessage(char type, String dateEnvoi) {
+            long latence;
+            if (!enCours)
+                return;
+            try {
+                latence = System.nanoTime() - Long.parseLong(dateEnvoi);
+            } catch (NumberFormatException e) {
+                return;
+            }
+            if (type == 'm') {
+                latencesMsg.noter(latence);
+                nbMsg.increment();
+            } else if (type == 'p') {
+                latencesPrv.noter(latence);
+                nbPrv.increment();
+            }
+        }
+
+        void commencerPartie() {
+            if (couleur == 'b')
+                planifierCoup();
+        }
+
+        private void planifierCoup() {
+            try {
+                planificateur.schedule(this::jouer, delaiCoup, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) { //Fin du test
+            }
+        }
+
+        private void jouer() {
+            String[] coups = couleur == 'b' ? COUPS_BLANCS : COUPS_NOIRS;
+            debutCoup = System.nanoTime();
+            envoyer("MOVE " + coups[nbCoupsJoues++ % coups.length]);
+        }
+    }
+
+    /**
+     * Méthode principale du programme.
+     *
+     * @param args Arguments du programme
+     * @throws InterruptedException si le programme est interrompu pendant le test
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int nbUtilisateurs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int duree = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        double msgParSeconde = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+        double prvParSeconde = args.length > 3 ? Double.parseDouble(args[3]) : 200;
+        double coupsParSeconde = args.length > 4 ? Double.parseDouble(args[4]) : 2;
+        delaiCoup = coupsParSeconde > 0 ? Math.round(1000 / coupsParSeconde) : 0;
+        nbUtilisateurs -= nbUtilisateurs % 2; //Les utilisateurs vont par paires
+        planificateur = Executors.newScheduledThreadPool(2);
+
+        //Connexion et identification :
+        List<UtilisateurSimule> utilisateurs = new ArrayList<>();
+        String prefixe = "u" + System.currentTimeMillis() % 100000 + "_";
+        long debut = System.nanoTime();
+        for (int i = 0; i < nbUtilisateurs; i++) {
+            UtilisateurSimule utilisateur = new UtilisateurSimule(prefixe + i);
+            if (args.length > 5)
+                utilisateur.setAdrServeur(args[5]);
+            if (args.length > 6)
+                utilisateur.setPortServeur(Integer.parseInt(args[6]));
+            if (!utilisateur.connecter()) {
+                System.out.println("Serveur introuvable a l'adresse " + utilisateur.getAdrServeur()
+                        + " sur le port " + utilisateur.getPortServeur() + " (" + i + " utilisateurs connectes)");
+                arreter(utilisateurs);
+                return;
+            }
+            utilisateur.envoyer(utilisateur.alias);
+            utilisateurs.add(utilisateur);
+        }
+        for (UtilisateurSimule utilisateur : utilisateurs) {
+            if (!utilisateur.identifie.await(DELAI_MAX, TimeUnit.MILLISECONDS)) {
+                System.out.println("Le serveur n'a pas accepte " + utilisateur.alias);
+                arreter(utilisateurs);
+                return;
+            }
+        }
+        System.out.printf("%d utilisateurs connectes en %.1f s%n", nbUtilisateurs, (System.nanoTime() - debut) / 1e9);
+
+        //Salons privés et parties d'échecs, par paires :
+        for (int i = 0; i < nbUtilisateurs; i += 2) {
+            utilisateurs.get(i).partenaire = utilisateurs.get(i + 1).alias;
+            utilisateurs.get(i + 1).partenaire = utilisateurs.get(i).alias;
+            utilisateurs.get(i).envoyer("JOIN " + utilisateurs.get(i + 1).alias);
+        }
+        for (UtilisateurSimule utilisateur : utilisateurs) {
+            if (!utilisateur.pret.await(DELAI_MAX, TimeUnit.MILLISECONDS)) {
+                System.out.println("Salon prive ou partie non ouvert pour " + utilisateur.alias);
+                arreter(utilisateurs);
+                return;
+            }
+        }
+        System.out.printf("%d salons prives ouverts%s%n", nbUtilisateurs / 2, delaiCoup > 0 ? ", parties commencees" : "");
+
+        //Période de mesure :
+        enCours = true;
+        if (delaiCoup > 0)
+            for (UtilisateurSimule utilisateur : utilisateurs)
+                utilisateur.commencerPartie();
+        Random hasard = new Random(42);
+        double quotaMsg = 0, quotaPrv = 0;
+        long nbMsgEnvoyes = 0, nbPrvEnvoyes = 0;
+        debut = System.nanoTime();
+        long fin = debut + duree * 1_000_000_000L, prochainEnvoi = debut;
+        while (System.nanoTime() < fin) {
+            quotaMsg += msgParSeconde * INTERVALLE_ENVOI / 1000;
+            quotaPrv += prvParSeconde * INTERVALLE_ENVOI / 1000;
+            for (; quotaMsg >= 1; quotaMsg--, nbMsgEnvoyes++)
+                utilisateurs.get(hasard.nextInt(nbUtilisateurs)).envoyer("MSG m " + System.nanoTime());
+            for (; quotaPrv >= 1; quotaPrv--, nbPrvEnvoyes++) {
+                UtilisateurSimule utilisateur = utilisateurs.get(hasard.nextInt(nbUtilisateurs));
+                utilisateur.envoyer("PRV " + utilisateur.partenaire + " p " + System.nanoTime());
+            }
+            prochainEnvoi += INTERVALLE_ENVOI * 1_000_000;
+            long attente = prochainEnvoi - System.nanoTime();
+            if (attente > 0)
+                TimeUnit.NANOSECONDS.sleep(attente);
+        }
+        planificateur.shutdown();
+        //Laisser arriver les derniers messages et coups :
+        Thread.sleep(1000);
+        enCours = false;
+        double secondes = (System.nanoTime() - debut) / 1e9;
+
+        System.out.printf("%d utilisateurs, %d s : %d MSG et %d PRV envoyes, %d reponses inattendues%n",
+                nbUtilisateurs, duree, nbMsgEnvoyes, nbPrvEnvoyes, nbErreurs.sum());
+        afficher("MSG", nbMsg.sum(), secondes, latencesMsg);
+        afficher("PRV", nbPrv.sum(), secondes, latencesPrv);
+        afficher("MOVE", nbMove.sum(), secondes, latencesMove);
+        arreter(utilisateurs);
+    }
+
+    private static void afficher(String commande, long nbRecus, double secondes, HistogrammeLatences latences) {
+        System.out.printf("%-4s : %d recus (%.0f/s), latence (ms) p50=%.2f p99=%.2f p999=%.2f moyenne=%.2f%n",
+                commande, nbRecus, nbRecus / secondes, latences.getPercentile(50), latences.getPercentile(99),
+                latences.getPercentile(99.9), latences.getMoyenne());
+    }
+
+    private static void arreter(List<UtilisateurSimule> utilisateurs) throws InterruptedException {
+        planificateur.shutdownNow();
+        for (UtilisateurSimule utilisateur : utilisateurs)
+            if (utilisateur.isConnecte())
+                utilisateur.envoyer("EXIT");
+        Thread.sleep(500);
+        for (UtilisateurSimule utilisateur : utilisateurs)
+            utilisateur.deconnecter();
+    }
+}
@@ -0,0 +1,104 @@
+package com.chat.programme;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de latences, partagé par tous les threads qui en mesurent. Les latences sont rangées dans des
+ * intervalles de taille croissante : chaque puissance de 2 de microsecondes est découpée en 16 intervalles, ce qui
+ * donne les percentiles à 6 % près avec une mémoire fixe, quel que soit le nombre de mesures. Chaque intervalle est
+ * un compteur LongAdder : des threads qui notent des mesures en même temps ne se bloquent pas.
+ */
+public class HistogrammeLatences {
+    //Les latences de plus de 2^26 microsecondes (67 s) sont rangées dans le dernier intervalle :
+    private static final int EXPOSANT_MAX = 26;
+    private static final int NB_INTERVALLES = 16 * (EXPOSANT_MAX - 2);
+
+    private final LongAdder[] intervalles = new LongAdder[NB_INTERVALLES];
+    private final LongAdder nbMesures = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+
+    /**
+     * Construit un histogramme vide.
+     */
+    public HistogrammeLatences() {
+        for (int i = 0; i < intervalles.length; i++)
+            intervalles[i] = new LongAdder();
+    }
+
+    /**
+     * Note une latence.
+     *
+     * @param nanos long la latence, en nanosecondes
+     */
+    public void noter(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        intervalles[indice(micros)].increment();
+        nbMesures.increment();
+        totalMicros.add(micros);
+    }
+
+    /*
+      Retourne l'intervalle d'une latence : les 16 premiers contiennent chacun une microseconde, les suivants le
+      seizième d'une puissance de 2.
+    */
+    private static int indice(long micros) {
+        if (micros < 16)
+            return (int) micros;
+        int exposant = 63 - Long.numberOfLeadingZeros(micros);
+        if (exposant > EXPOSANT_MAX)
+            return NB_INTERVALLES - 1;
+        return 16 * (exposant - 3) + (int) ((micros >>> (exposant - 4)) & 0xF);
+    }
+
+    /*
+      Retourne la plus petite latence, en microsecondes, d'un intervalle.
+    */
+    private static long borne(int indice) {
+        if (indice < 16)
+            return indice;
+        return (16L + indice % 16) << (indice / 16 - 1);
+    }
+
+    /**
+     * Retourne le nombre de latences notées.
+     *
+     * @return long le nombre de mesures
+     */
+    public long getNbMesures() {
+        return nbMesures.sum();
+    }
+
+    /**
+     * Retourne la latence moyenne.
+     *
+     * @return double la moyenne, en millisecondes, ou 0 s'il n'y a aucune mesure
+     */
+    public double getMoyenne() {
+        long n = nbMesures.sum();
+        return n == 0 ? 0 : totalMicros.sum() / 1000.0 / n;
+    }
+
+    /**
+     * Retourne un percentile des latences notées.
+     *
+     * @param percentile double le percentile voulu, entre 0 et 100 (par exemple 99.9)
+     * @return double la latence, en millisecondes, en dessous de laquelle se trouvent ce pourcentage des mesures,
+     * ou 0 s'il n'y a aucune mesure
+     */
+    public double getPercentile(double percentile) {
+        long[] nb = new long[NB_INTERVALLES];
+        long total = 0;
+        for (int i = 0; i < nb.length; i++)
+            total += nb[i] = intervalles[i].sum();
+        if (total == 0)
+            return 0;
+        long rang = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumul = 0;
+        for (int i = 0; i < nb.length; i++) {
+            cumul += nb[i];
+            if (cumul >= rang)
+                return borne(i) / 1000.0;
+        }
+        return borne(NB_INTERVALLES - 1) / 1000.0;
+    }
+}
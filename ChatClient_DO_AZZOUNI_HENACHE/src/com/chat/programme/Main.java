@@ -27,13 +27,22 @@ public class Main {
 		Client client = new ClientChat();
 		String saisie;
 
+		//Le chemin du socket Unix d'un serveur du même hôte peut être donné en argument :
+		if (args.length > 0)
+			client.setCheminSocketUnix(args[0]);
 		if (!client.connecter()) {
-			System.out.println("Serveur introuvable a l'adresse " + client.getAdrServeur()
-					+ " sur le port " + client.getPortServeur());
+			if (client.getCheminSocketUnix() != null)
+				System.out.println("Serveur introuvable sur le socket " + client.getCheminSocketUnix());
+			else
+				System.out.println("Serveur introuvable a l'adresse " + client.getAdrServeur()
+						+ " sur le port " + client.getPortServeur());
 			return;
 		}
-		System.out.println("Vous etes connectes au serveur à l'adresse " + client.getAdrServeur()
-				+ " sur le port " + client.getPortServeur());
+		if (client.getCheminSocketUnix() != null)
+			System.out.println("Vous etes connectes au serveur sur le socket " + client.getCheminSocketUnix());
+		else
+			System.out.println("Vous etes connectes au serveur à l'adresse " + client.getAdrServeur()
+					+ " sur le port " + client.getPortServeur());
 
 		System.out.println("Saisissez vos textes (EXIT pour quitter) :");
 		do {
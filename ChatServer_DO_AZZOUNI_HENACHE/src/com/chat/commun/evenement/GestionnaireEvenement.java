@@ -1,18 +1,18 @@
 package com.chat.commun.evenement;
 
 /**
- * Cette interface reprsente un gestionnaire d'vnement.
+ * Cette interface représente un gestionnaire d'événement.
  *
- * @author Abdelmoumne Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
+ * @author Abdelmoumène Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
  * @version 1.0
  * @since 2023-09-01
  */
 @FunctionalInterface
 public interface GestionnaireEvenement {
     /**
-     * Mthode de gestion de l'vnement.
+     * Méthode de gestion de l'événement.
      *
-     * @param evenement L'vnement  grer.
+     * @param evenement L'événement à gérer.
      */
     void traiter(Evenement evenement);
 }
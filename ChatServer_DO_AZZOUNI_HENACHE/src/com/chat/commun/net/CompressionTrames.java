@@ -0,0 +1,116 @@
+package com.chat.commun.net;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Classe utilitaire qui définit les trames compressées, négociées par la commande PROTO DEFLATE. Une trame
+ * compressée a la forme :
+ * <pre>
+ *   MARQUEUR (0xFE) | taille originale (varint) | taille compressée (varint) | texte compressé (deflate)
+ * </pre>
+ * Comme 0xFF pour les trames binaires, l'octet 0xFE n'apparaît jamais en UTF-8 : DecodeurTrames reconnaît une trame
+ * compressée à son premier octet, la décompresse et redonne le texte, quel que soit le format des autres trames.
+ * <p>
+ * Les Deflater et Inflater, coûteux à créer, sont réutilisés par chaque thread. Le temps passé et les tailles avant
+ * et après compression sont comptés, par type de message, dans des statistiques partagées.
+ *
+ * @see DecodeurTrames
+ */
+public class CompressionTrames {
+    /**
+     * Premier octet de toute trame compressée.
+     */
+    public static final byte MARQUEUR = (byte) 0xFE;
+    /**
+     * Taille, en octets, à partir de laquelle un texte est compressé par défaut.
+     */
+    public static final int SEUIL_COMPRESSION = 1024;
+
+    //Niveau rapide : le texte du chat (l'historique surtout) est très redondant, même un niveau bas le réduit bien.
+    private static final ThreadLocal<Deflater> DEFLATERS =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+    private static final StatistiquesCompression STATISTIQUES = new StatistiquesCompression();
+
+    /*
+      Contructeur privé pour empêcher l'instanciation (inutile) de la classe.
+    */
+    private CompressionTrames() {
+    }
+
+    /**
+     * Retourne les statistiques de compression de toutes les connexions du programme.
+     *
+     * @return StatistiquesCompression les statistiques
+     */
+    public static StatistiquesCompression getStatistiques() {
+        return STATISTIQUES;
+    }
+
+    /**
+     * Compresse un texte déjà encodé en UTF-8 sous la forme d'une trame compressée.
+     *
+     * @param type String le type du message, pour les statistiques
+     * @param octets byte[] le texte encodé en UTF-8
+     * @return byte[] la trame compressée, ou null si la compression ne réduit pas la taille du texte
+     */
+    public static byte[] compresser(String type, byte[] octets) {
+        long debut = System.nanoTime();
+        Deflater deflater = DEFLATERS.get();
+        byte[] tampon = new byte[octets.length];
+        int n = 0;
+        deflater.reset();
+        deflater.setInput(octets);
+        deflater.finish();
+        while (!deflater.finished() && n < tampon.length)
+            n += deflater.deflate(tampon, n, tampon.length - n);
+        boolean reduit = deflater.finished() && n + 12 < octets.length;
+        STATISTIQUES.compterCompression(type, octets.length, reduit ? n : octets.length, System.nanoTime() - debut);
+        if (!reduit)
+            return null;
+
+        ByteArrayOutputStream trame = new ByteArrayOutputStream(n + 11);
+        trame.write(MARQUEUR);
+        ProtocoleBinaire.ecrireVarint(trame, octets.length);
+        ProtocoleBinaire.ecrireVarint(trame, n);
+        trame.write(tampon, 0, n);
+        return trame.toByteArray();
+    }
+
+    /**
+     * Décompresse le contenu d'une trame compressée.
+     *
+     * @param octets byte[] le tableau contenant le texte compressé
+     * @param debut int la position du premier octet compressé
+     * @param longueur int le nombre d'octets compressés
+     * @param tailleOriginale int la taille du texte une fois décompressé
+     * @return byte[] le texte décompressé, encodé en UTF-8, ou null si le contenu est invalide
+     */
+    public static byte[] decompresser(byte[] octets, int debut, int longueur, int tailleOriginale) {
+        Inflater inflater = INFLATERS.get();
+        byte[] resultat = new byte[tailleOriginale];
+        int n = 0, lus;
+        inflater.reset();
+        inflater.setInput(octets, debut, longueur);
+        try {
+            while (n < tailleOriginale && (lus = inflater.inflate(resultat, n, tailleOriginale - n)) > 0)
+                n += lus;
+        } catch (DataFormatException e) {
+            return null;
+        }
+        return n == tailleOriginale ? resultat : null;
+    }
+
+    /**
+     * Compte la décompression d'un message reçu dans les statistiques.
+     *
+     * @param type String le type du message
+     * @param nanos long la durée de la décompression, en nanosecondes
+     */
+    public static void compterDecompression(String type, long nanos) {
+        STATISTIQUES.compterDecompression(type, nanos);
+    }
+}
@@ -0,0 +1,183 @@
+package com.chat.commun.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * File des trames encodées qui attendent d'être écrites sur une connexion. N'importe quel thread peut y ajouter des
+ * trames : les méthodes ne font que de courtes opérations en mémoire et ne bloquent jamais sur le réseau. Un seul
+ * thread à la fois, celui qui vide la file, écrit les premières trames sur le réseau ; ces trames sont réservées
+ * et ne peuvent pas être supprimées tant que l'écriture n'est pas terminée.
+ * <p>
+ * Si des limites sont associées à la file, la trame qui les fait dépasser déclenche la politique de débordement de
+ * sa classe.
+ *
+ * @see LimitesEnvoi
+ */
+public class FileEnvoi {
+
+    /*
+      Trame en attente avec la politique de débordement de sa classe.
+    */
+    private static class Trame {
+        final ByteBuffer octets;
+        final PolitiqueDebordement politique;
+
+        Trame(ByteBuffer octets, PolitiqueDebordement politique) {
+            this.octets = octets;
+            this.politique = politique;
+        }
+    }
+
+    private final ArrayDeque<Trame> trames = new ArrayDeque<>();
+    private int nbTrames;
+    private long nbOctets;
+    //Nombre de trames, au début de la file, en cours d'écriture :
+    private int nbReservees;
+    private LimitesEnvoi limites;
+
+    /**
+     * Ajoute une trame encodée à la fin de la file, puis applique la politique de débordement si la file dépasse
+     * ses limites.
+     *
+     * @param trame ByteBuffer les octets de la trame, de la position 0 à la limite du tampon
+     * @param classe String la classe de la trame, qui détermine sa politique de débordement
+     * @return boolean false si la connexion doit être fermée (politique DECONNECTER), true sinon
+     */
+    public synchronized boolean ajouter(ByteBuffer trame, String classe) {
+        PolitiqueDebordement politique = limites == null ? PolitiqueDebordement.JAMAIS_SUPPRIMER
+                : limites.getPolitique(classe);
+        trames.addLast(new Trame(trame, politique));
+        nbTrames++;
+        nbOctets += trame.limit();
+        if (limites == null || !limites.isDepassee(nbOctets, nbTrames))
+            return true;
+        limites.compter(politique);
+        switch (politique) {
+            case SUPPRIMER_PLUS_ANCIEN:
+                supprimerPlusAnciennes();
+                return true;
+            case DECONNECTER:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /*
+      Supprime, en partant des plus anciennes, les trames non réservées de politique SUPPRIMER_PLUS_ANCIEN jusqu'à
+      repasser sous les limites.
+    */
+    private void supprimerPlusAnciennes() {
+        Iterator<Trame> it = trames.iterator();
+        Trame trame;
+        for (int i = 0; i < nbReservees && it.hasNext(); i++)
+            it.next();
+        while (it.hasNext() && limites.isDepassee(nbOctets, nbTrames)) {
+            trame = it.next();
+            if (trame.politique == PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN) {
+                it.remove();
+                nbTrames--;
+                nbOctets -= trame.octets.limit();
+            }
+        }
+    }
+
+    /**
+     * Réserve les premières trames de la file pour les écrire en une seule fois, en les copiant dans un tableau.
+     *
+     * @param lot ByteBuffer[] le tableau à remplir
+     * @return int le nombre de trames copiées dans le tableau
+     */
+    public synchronized int remplir(ByteBuffer[] lot) {
+        int n = 0;
+        for (Trame trame : trames) {
+            lot[n++] = trame.octets;
+            if (n == lot.length)
+                break;
+        }
+        nbReservees = n;
+        return n;
+    }
+
+    /**
+     * Retire du début de la file les trames qui ont été entièrement écrites et libère la réservation.
+     *
+     * @return int le nombre de trames retirées
+     */
+    public synchronized int retirerEcrites() {
+        Trame trame;
+        int n = 0;
+        while ((trame = trames.peekFirst()) != null && !trame.octets.hasRemaining()) {
+            trames.pollFirst();
+            nbTrames--;
+            nbOctets -= trame.octets.limit();
+            n++;
+        }
+        nbReservees = 0;
+        return n;
+    }
+
+    /**
+     * Abandonne toutes les trames qui ne sont pas en cours d'écriture et ajoute une dernière trame, qui ne sera
+     * soumise à aucune limite.
+     *
+     * @param derniere ByteBuffer la dernière trame à envoyer
+     */
+    public synchronized void remplacerPar(ByteBuffer derniere) {
+        while (trames.size() > nbReservees) {
+            nbOctets -= trames.pollLast().octets.limit();
+            nbTrames--;
+        }
+        trames.addLast(new Trame(derniere, PolitiqueDebordement.JAMAIS_SUPPRIMER));
+        nbTrames++;
+        nbOctets += derniere.limit();
+    }
+
+    /**
+     * Vide la file sans rien écrire, par exemple lorsque la connexion est fermée.
+     */
+    public synchronized void effacer() {
+        trames.clear();
+        nbTrames = 0;
+        nbOctets = 0;
+        nbReservees = 0;
+    }
+
+    /**
+     * Indique si la file est vide.
+     *
+     * @return boolean true si aucune trame n'attend d'être écrite, false sinon
+     */
+    public synchronized boolean isVide() {
+        return trames.isEmpty();
+    }
+
+    /**
+     * Retourne le nombre de trames en attente.
+     *
+     * @return int le nombre de trames en attente
+     */
+    public synchronized int getNbTrames() {
+        return nbTrames;
+    }
+
+    /**
+     * Retourne le nombre d'octets en attente, en comptant en entier les trames partiellement écrites.
+     *
+     * @return long le nombre d'octets en attente
+     */
+    public synchronized long getNbOctets() {
+        return nbOctets;
+    }
+
+    /**
+     * Associe des limites à la file.
+     *
+     * @param limites LimitesEnvoi les limites, ou null pour une file sans limite
+     */
+    public synchronized void setLimites(LimitesEnvoi limites) {
+        this.limites = limites;
+    }
+}
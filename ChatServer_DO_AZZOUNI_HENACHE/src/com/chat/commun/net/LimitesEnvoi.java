@@ -0,0 +1,113 @@
+package com.chat.commun.net;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limites des files d'envoi des connexions, en octets et en nombre de trames, et politique de débordement à
+ * appliquer selon la classe de la trame qui fait dépasser une limite. La classe d'une trame est, par défaut, le
+ * type de l'événement qu'elle transporte (le premier mot du texte, comme MSG ou MOVE).
+ * <p>
+ * Un même objet est habituellement partagé par toutes les connexions d'un serveur : il compte alors, pour tout le
+ * serveur, le nombre de fois où chaque politique a été appliquée. Il est consulté sans verrou à chaque trame mise en
+ * file, par tous les threads qui envoient.
+ */
+public class LimitesEnvoi {
+
+    private volatile long maxOctets;
+    private volatile int maxTrames;
+    private final Map<String, PolitiqueDebordement> politiques = new ConcurrentHashMap<>();
+    private volatile PolitiqueDebordement politiqueParDefaut = PolitiqueDebordement.DECONNECTER;
+    private final LongAdder[] nbDeclenchements = new LongAdder[PolitiqueDebordement.values().length];
+
+    /**
+     * Construit des limites de files d'envoi. Toutes les classes de trames sont soumises à la politique
+     * DECONNECTER, tant que setPolitique() ne dit pas autrement.
+     *
+     * @param maxOctets long nombre maximal d'octets en attente dans une file d'envoi
+     * @param maxTrames int nombre maximal de trames en attente dans une file d'envoi
+     */
+    public LimitesEnvoi(long maxOctets, int maxTrames) {
+        this.maxOctets = maxOctets;
+        this.maxTrames = maxTrames;
+        for (int i = 0; i < nbDeclenchements.length; i++)
+            nbDeclenchements[i] = new LongAdder();
+    }
+
+    /**
+     * Indique si une file d'envoi dépasse les limites.
+     *
+     * @param nbOctets long le nombre d'octets en attente
+     * @param nbTrames int le nombre de trames en attente
+     * @return boolean true si une des limites est dépassée, false sinon
+     */
+    public boolean isDepassee(long nbOctets, int nbTrames) {
+        return nbOctets > maxOctets || nbTrames > maxTrames;
+    }
+
+    /**
+     * Retourne la politique de débordement d'une classe de trames.
+     *
+     * @param classe String la classe de la trame
+     * @return PolitiqueDebordement la politique de la classe, ou la politique par défaut
+     */
+    public PolitiqueDebordement getPolitique(String classe) {
+        PolitiqueDebordement politique = classe == null ? null : politiques.get(classe);
+        return politique == null ? politiqueParDefaut : politique;
+    }
+
+    /**
+     * Spécifie la politique de débordement d'une classe de trames.
+     *
+     * @param classe String la classe de la trame
+     * @param politique PolitiqueDebordement la politique à appliquer aux trames de cette classe
+     */
+    public void setPolitique(String classe, PolitiqueDebordement politique) {
+        politiques.put(classe, politique);
+    }
+
+    /**
+     * Spécifie la politique de débordement des classes de trames qui n'en ont pas reçu avec setPolitique().
+     *
+     * @param politique PolitiqueDebordement la politique par défaut
+     */
+    public void setPolitiqueParDefaut(PolitiqueDebordement politique) {
+        this.politiqueParDefaut = politique;
+    }
+
+    /**
+     * Compte une application d'une politique de débordement.
+     *
+     * @param politique PolitiqueDebordement la politique appliquée
+     */
+    public void compter(PolitiqueDebordement politique) {
+        nbDeclenchements[politique.ordinal()].increment();
+    }
+
+    /**
+     * Retourne le nombre de fois où une politique de débordement a été appliquée.
+     *
+     * @param politique PolitiqueDebordement la politique
+     * @return long le nombre d'applications de la politique
+     */
+    public long getNbDeclenchements(PolitiqueDebordement politique) {
+        return nbDeclenchements[politique.ordinal()].sum();
+    }
+
+    public long getMaxOctets() {
+        return maxOctets;
+    }
+
+    public void setMaxOctets(long maxOctets) {
+        this.maxOctets = maxOctets;
+    }
+
+    public int getMaxTrames() {
+        return maxTrames;
+    }
+
+    public void setMaxTrames(int maxTrames) {
+        this.maxTrames = maxTrames;
+    }
+}
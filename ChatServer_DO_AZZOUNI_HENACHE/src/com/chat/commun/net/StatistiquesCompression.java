@@ -0,0 +1,97 @@
+package com.chat.commun.net;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistiques de compression des trames, par type de message (le premier mot du texte : HIST, MSG...). Pour
+ * chaque type, on compte les octets avant et après compression, ce qui donne le taux de compression, et le temps
+ * passé à compresser et à décompresser, ce qui donne le coût en temps processeur.
+ */
+public class StatistiquesCompression {
+    //Compteurs d'un type de message :
+    private static class Compteurs {
+        final LongAdder nbCompressions = new LongAdder();
+        final LongAdder octetsOriginaux = new LongAdder();
+        final LongAdder octetsCompresses = new LongAdder();
+        final LongAdder nanosCompression = new LongAdder();
+        final LongAdder nbDecompressions = new LongAdder();
+        final LongAdder nanosDecompression = new LongAdder();
+    }
+
+    private final Map<String, Compteurs> parType = new ConcurrentHashMap<>();
+
+    /**
+     * Compte la compression d'un message.
+     *
+     * @param type String le type du message
+     * @param octetsOriginaux int la taille du message, en octets
+     * @param octetsCompresses int la taille du message compressé, en octets
+     * @param nanos long la durée de la compression, en nanosecondes
+     */
+    public void compterCompression(String type, int octetsOriginaux, int octetsCompresses, long nanos) {
+        Compteurs compteurs = parType.computeIfAbsent(type, t -> new Compteurs());
+        compteurs.nbCompressions.increment();
+        compteurs.octetsOriginaux.add(octetsOriginaux);
+        compteurs.octetsCompresses.add(octetsCompresses);
+        compteurs.nanosCompression.add(nanos);
+    }
+
+    /**
+     * Compte la décompression d'un message reçu.
+     *
+     * @param type String le type du message
+     * @param nanos long la durée de la décompression, en nanosecondes
+     */
+    public void compterDecompression(String type, long nanos) {
+        Compteurs compteurs = parType.computeIfAbsent(type, t -> new Compteurs());
+        compteurs.nbDecompressions.increment();
+        compteurs.nanosDecompression.add(nanos);
+    }
+
+    /**
+     * Retourne le taux de compression d'un type de message : la taille originale divisée par la taille compressée.
+     *
+     * @param type String le type du message
+     * @return double le taux de compression, ou 0 si aucun message de ce type n'a été compressé
+     */
+    public double getTaux(String type) {
+        Compteurs compteurs = parType.get(type);
+        if (compteurs == null || compteurs.octetsCompresses.sum() == 0)
+            return 0;
+        return compteurs.octetsOriginaux.sum() / (double) compteurs.octetsCompresses.sum();
+    }
+
+    /**
+     * Indique si au moins un message a été compressé ou décompressé.
+     *
+     * @return boolean true si des statistiques ont été recueillies
+     */
+    public boolean isVide() {
+        return parType.isEmpty();
+    }
+
+    /**
+     * Retourne un rapport lisible des statistiques, une ligne par type de message.
+     *
+     * @return String le rapport
+     */
+    public String rapport() {
+        StringBuilder sb = new StringBuilder();
+        Compteurs c;
+        long n, nd;
+        for (Map.Entry<String, Compteurs> entree : new TreeMap<>(parType).entrySet()) {
+            c = entree.getValue();
+            n = c.nbCompressions.sum();
+            nd = c.nbDecompressions.sum();
+            sb.append(String.format("%-8s compressions: %d, %d -> %d octets (taux %.1f), %.3f ms/message ;"
+                            + " decompressions: %d, %.3f ms/message%n", entree.getKey(), n,
+                    c.octetsOriginaux.sum(), c.octetsCompresses.sum(), getTaux(entree.getKey()),
+                    n == 0 ? 0 : c.nanosCompression.sum() / 1e6 / n, nd,
+                    nd == 0 ? 0 : c.nanosDecompression.sum() / 1e6 / nd));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.chat.commun.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cette classe représente un texte envoyé à plusieurs connexions, par exemple un message du salon public. Le texte
+ * n'est encodé qu'une fois par format de trame (texte, binaire, compressé), au premier envoi qui en a besoin, et non
+ * une fois par destinataire. Les octets encodés ne sont jamais modifiés : chaque connexion met dans sa file d'envoi
+ * une simple vue sur ces octets, avec sa propre position d'écriture, sans les copier.
+ * <p>
+ * Une trame diffusée n'est jamais une réponse à une requête : elle ne porte pas d'identifiant de requête.
+ *
+ * @see Connexion#envoyer(TrameDiffusee)
+ */
+public class TrameDiffusee {
+
+    private final String texte;
+    private final String classe;
+    //Trames encodées, en lecture seule, calculées à la demande :
+    private volatile ByteBuffer trameTexte, trameBinaire, trameCompressee;
+    //Texte encodé en UTF-8, calculé à la demande pour la compression :
+    private volatile byte[] octetsUtf8;
+    private volatile boolean compressionEssayee;
+
+    /**
+     * Construit une trame diffusée.
+     *
+     * @param texte String le texte envoyé
+     * @param classe String la classe de la trame, par exemple MSG pour un message du salon public
+     */
+    public TrameDiffusee(String texte, String classe) {
+        this.texte = texte;
+        this.classe = classe;
+    }
+
+    /**
+     * Retourne une vue sur la trame encodée au format d'une connexion, avec les mêmes règles que
+     * Connexion.envoyer() : un long texte est compressé si la compression est activée et qu'elle en réduit la
+     * taille.
+     *
+     * @param binaire boolean true si la connexion reçoit des trames binaires
+     * @param compression boolean true si la connexion reçoit des trames compressées
+     * @param seuilCompression int la taille, en octets, à partir de laquelle la connexion compresse un texte
+     * @return ByteBuffer une nouvelle vue sur les octets partagés, de la position 0 à la fin de la trame
+     */
+    public ByteBuffer getTrame(boolean binaire, boolean compression, int seuilCompression) {
+        ByteBuffer trame;
+        if (compression && texte.length() >= seuilCompression / 4 //Un caractère fait au plus 4 octets en UTF-8
+                && getOctetsUtf8().length >= seuilCompression) {
+            trame = getTrameCompressee();
+            if (trame != null)
+                return trame.duplicate();
+        }
+        if (binaire) {
+            if ((trame = trameBinaire) == null)
+                trameBinaire = trame = partager(ProtocoleBinaire.encoder(texte));
+        } else {
+            if ((trame = trameTexte) == null)
+                trameTexte = trame = partager(TrameUtil.encoder(texte).getBytes(StandardCharsets.UTF_8));
+        }
+        return trame.duplicate();
+    }
+
+    private byte[] getOctetsUtf8() {
+        byte[] octets = octetsUtf8;
+        if (octets == null)
+            octetsUtf8 = octets = texte.getBytes(StandardCharsets.UTF_8);
+        return octets;
+    }
+
+    /*
+      Compresse le texte au premier appel. Retourne null si la compression ne réduit pas sa taille.
+    */
+    private ByteBuffer getTrameCompressee() {
+        byte[] trame;
+        if (!compressionEssayee) {
+            trame = CompressionTrames.compresser(classe, getOctetsUtf8());
+            trameCompressee = trame == null ? null : partager(trame);
+            compressionEssayee = true;
+        }
+        return trameCompressee;
+    }
+
+    private static ByteBuffer partager(byte[] octets) {
+        return ByteBuffer.wrap(octets).asReadOnlyBuffer();
+    }
+
+    /**
+     * Retourne le texte de la trame.
+     *
+     * @return String le texte
+     */
+    public String getTexte() {
+        return texte;
+    }
+
+    /**
+     * Retourne la classe de la trame, pour les limites des files d'envoi.
+     *
+     * @return String la classe de la trame
+     */
+    public String getClasse() {
+        return classe;
+    }
+}
@@ -1,9 +1,9 @@
 package com.chat.commun.thread;
 
 /**
- * Cette classe permet de crer des threads capables de lire continuellement sur un un objet de type Lecteur.
+ * Cette classe permet de créer des threads capables de lire continuellement sur un un objet de type Lecteur.
  *
- * @author Abdelmoumne Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
+ * @author Abdelmoumène Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
  * @version 1.0
  * @since 2023-09-01
  */
@@ -20,7 +20,7 @@ public class ThreadEcouteurDeTexte extends Thread {
     }
 
     /**
-     * Mthode principale du thread. Cette mthode appelle continuellement la mthode lire() du lecteur (client ou serveur)
+     * Méthode principale du thread. Cette méthode appelle continuellement la méthode lire() du lecteur (client ou serveur)
      */
     public void run() {
         while (!interrupted()) {
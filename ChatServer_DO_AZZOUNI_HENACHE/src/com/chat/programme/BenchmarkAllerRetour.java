@@ -0,0 +1,252 @@
+package com.chat.programme;
+
+import com.chat.commun.net.Connexion;
+import com.chat.serveur.ModeServeur;
+import com.chat.serveur.ServeurChat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Programme qui mesure les temps de réponse de bout en bout du serveur de chat, pour vérifier qu'une modification de
+ * Connexion, de Serveur ou de PartieEchecs ne les a pas dégradés. Pour chaque configuration, un serveur de chat est
+ * démarré dans le même processus et deux clients s'y connectent. On mesure :
+ * <ul>
+ *     <li>MSG : le temps écoulé entre l'envoi d'un message au salon public par le premier client et sa réception par
+ *     le second ;</li>
+ *     <li>MOVE : le temps écoulé entre l'envoi d'un coup d'échecs et la réception, par le joueur, du coup validé par
+ *     le serveur. Les deux clients jouent une partie dans leur salon privé, en faisant aller et revenir leur
+ *     cavalier du roi.</li>
+ * </ul>
+ * Une configuration s'écrit MODE[-réacteurs]/TRANSPORT/FORMAT, par exemple NIO-2/UNIX/BIN : le modèle de lecture du
+ * serveur (NIO avec son nombre de réacteurs, SCRUTATION ou THREAD_PAR_CONNEXION), le transport des clients (TCP ou
+ * UNIX) et le format des trames que le serveur leur envoie (TEXTE, BIN ou DEFLATE). En mode SCRUTATION, le serveur
+ * ne lit les connexions que toutes les 100 ms : ce mode ne fait pas partie des configurations mesurées par défaut et
+ * doit être mesuré avec peu d'allers-retours.
+ * <p>
+ * Les résultats sont affichés et écrits dans un fichier, une ligne par configuration et par mesure, au format
+ * configuration;commande;mesures;p50_us;p99_us;p999_us;max_us. Si un fichier de résultats précédents est donné, l'écart
+ * des percentiles par rapport à ces résultats est aussi affiché.
+ * <p>
+ * Arguments : [nombre de mesures] [configurations, séparées par des virgules] [fichier des résultats] [fichier des
+ * résultats précédents].
+ */
+public class BenchmarkAllerRetour {
+    private static final int PORT_BENCHMARK = 8894;
+    private static final Path CHEMIN_SOCKET = Path.of(System.getProperty("java.io.tmpdir"), "benchmark-chat.sock");
+    //Allers-retours faits avant de mesurer, le temps que le code du serveur et des clients soit compilé :
+    private static final int NB_ECHAUFFEMENT = 1000;
+    private static final String[] COUPS_BLANCS = {"g1f3", "f3g1"};
+    private static final String[] COUPS_NOIRS = {"g8f6", "f6g8"};
+    private static final String ENTETE = "configuration;commande;mesures;p50_us;p99_us;p999_us;max_us";
+
+    //Client du benchmark : une connexion bloquante et les trames reçues qui n'ont pas encore été attendues.
+    private static class ClientBenchmark {
+        private final Connexion connexion;
+        private final String alias;
+        private final ArrayDeque<String> recues = new ArrayDeque<>();
+
+        ClientBenchmark(String alias, boolean unix, String format) throws IOException {
+            this.alias = alias;
+            connexion = new Connexion(unix ? SocketChannel.open(UnixDomainSocketAddress.of(CHEMIN_SOCKET))
+                    : SocketChannel.open(new InetSocketAddress("127.0.0.1", PORT_BENCHMARK)));
+            if ("BIN".equals(format) || "DEFLATE".equals(format))
+                envoyer("PROTO " + format);
+            envoyer(alias);
+            attendre("OK");
+        }
+
+        void envoyer(String texte) {
+            connexion.envoyer(texte);
+        }
+
+        /*
+          Attend une trame qui commence par le préfixe donné et la retourne. Les trames reçues avant elle sont
+          ignorées.
+        */
+        String attendre(String prefixe) throws IOException {
+            String trame;
+            while (true) {
+                while ((trame = recues.poll()) != null)
+                    if (trame.startsWith(prefixe))
+                        return trame;
+                List<String> trames = connexion.attendreTrames();
+                if (trames == null)
+                    throw new IOException("Connexion de " + alias + " fermee par le serveur");
+                recues.addAll(trames);
+            }
+        }
+
+        void fermer() {
+            envoyer("EXIT");
+            connexion.close();
+        }
+    }
+
+    /**
+     * Méthode principale du programme.
+     *
+     * @param args Arguments du programme
+     * @throws Exception si le serveur ne peut pas être démarré ou si les clients ne peuvent pas s'y connecter
+     */
+    public static void main(String[] args) throws Exception {
+        int nb = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        String configurations = args.length > 1 ? args[1] : "NIO-1/TCP/TEXTE,NIO-1/TCP/BIN,NIO-1/TCP/DEFLATE,"
+                + "NIO-1/UNIX/TEXTE,NIO-" + Math.max(2, Runtime.getRuntime().availableProcessors()) + "/TCP/TEXTE,"
+                + "THREAD_PAR_CONNEXION/TCP/TEXTE,THREAD_PAR_CONNEXION/UNIX/TEXTE";
+        Path fichier = Path.of(args.length > 2 ? args[2] : "benchmark-aller-retour.csv");
+        Map<String, String[]> precedents = args.length > 3 ? lirePrecedents(Path.of(args[3])) : new HashMap<>();
+        PrintStream console = System.out;
+
+        console.println(ENTETE);
+        try (PrintWriter resultats = new PrintWriter(Files.newBufferedWriter(fichier))) {
+            resultats.println(ENTETE);
+            for (String configuration : configurations.split(",")) {
+                //Le serveur affiche chaque trame reçue : ses affichages sont ignorés pendant les mesures.
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                String[] lignes;
+                try {
+                    lignes = mesurer(configuration.trim(), nb);
+                } finally {
+                    System.setOut(console);
+                }
+                for (String ligne : lignes) {
+                    resultats.println(ligne);
+                    console.println(ligne + comparer(ligne, precedents));
+                }
+            }
+        }
+        console.println("Resultats ecrits dans " + fichier.toAbsolutePath());
+    }
+
+    /*
+      Démarre un serveur dans la configuration donnée, y mesure les allers-retours MSG et MOVE, et retourne les
+      lignes de résultats.
+    */
+    private static String[] mesurer(String configuration, int nb) throws Exception {
+        String[] parties = configuration.toUpperCase().split("/");
+        String[] mode = parties[0].split("-");
+        boolean unix = parties.length > 1 && "UNIX".equals(parties[1]);
+        String format = parties.length > 2 ? parties[2] : "TEXTE";
+
+        ServeurChat serveur = new ServeurChat(PORT_BENCHMARK);
+        serveur.setMode(ModeServeur.valueOf(mode[0]));
+        if (mode.length > 1)
+            serveur.setNbReacteurs(Integer.parseInt(mode[1]));
+        if (unix)
+            serveur.setCheminSocketUnix(CHEMIN_SOCKET.toString());
+        serveur.setIntervallePing(0);
+        if (!serveur.demarrer())
+            throw new IOException("Impossible de demarrer le serveur pour " + configuration);
+
+        ClientBenchmark a = null, b = null;
+        try {
+            String prefixe = "rt" + System.nanoTime() % 10000;
+            a = new ClientBenchmark(prefixe + "a", unix, format);
+            b = new ClientBenchmark(prefixe + "b", unix, format);
+            String ligneMsg = resultat(configuration, "MSG", mesurerMsg(a, b, nb));
+            String ligneMove = resultat(configuration, "MOVE", mesurerMove(a, b, nb));
+            return new String[]{ligneMsg, ligneMove};
+        } finally {
+            if (a != null)
+                a.fermer();
+            if (b != null)
+                b.fermer();
+            serveur.arreter();
+        }
+    }
+
+    private static long[] mesurerMsg(ClientBenchmark a, ClientBenchmark b, int nb) throws IOException {
+        long[] durees = new long[nb];
+        long debut;
+        int echauffement = Math.min(NB_ECHAUFFEMENT, nb);
+        for (int i = 0; i < echauffement + nb; i++) {
+            debut = System.nanoTime();
+            a.envoyer("MSG " + i);
+            b.attendre(a.alias + ">>" + i);
+            if (i >= echauffement)
+                durees[i - echauffement] = System.nanoTime() - debut;
+        }
+        return durees;
+    }
+
+    private static long[] mesurerMove(ClientBenchmark a, ClientBenchmark b, int nb) throws IOException {
+        a.envoyer("JOIN " + b.alias);
+        b.attendre("JOIN ");
+        b.envoyer("JOIN " + a.alias);
+        a.attendre("JOINOK ");
+        b.attendre("JOINOK ");
+        a.envoyer("CHESS " + b.alias);
+        b.attendre("CHESS ");
+        b.envoyer("CHESS " + a.alias);
+        boolean aBlanc = a.attendre("CHESSOK ").endsWith("b");
+        b.attendre("CHESSOK ");
+        ClientBenchmark blanc = aBlanc ? a : b, noir = aBlanc ? b : a, joueur, adversaire;
+
+        long[] durees = new long[nb];
+        long debut;
+        int echauffement = Math.min(NB_ECHAUFFEMENT, nb);
+        for (int i = 0; i < echauffement + nb; i++) {
+            joueur = i % 2 == 0 ? blanc : noir;
+            adversaire = i % 2 == 0 ? noir : blanc;
+            debut = System.nanoTime();
+            joueur.envoyer("MOVE " + (i % 2 == 0 ? COUPS_BLANCS : COUPS_NOIRS)[(i / 2) % 2]);
+            joueur.attendre("MOVE ");
+            if (i >= echauffement)
+                durees[i - echauffement] = System.nanoTime() - debut;
+            adversaire.attendre("MOVE ");
+        }
+        return durees;
+    }
+
+    private static String resultat(String configuration, String commande, long[] durees) {
+        int n = durees.length;
+        Arrays.sort(durees);
+        return String.format(Locale.ROOT, "%s;%s;%d;%.1f;%.1f;%.1f;%.1f", configuration, commande, n, durees[n / 2] / 1e3,
+                durees[Math.min(n - 1, (int) (n * 0.99))] / 1e3, durees[Math.min(n - 1, (int) (n * 0.999))] / 1e3,
+                durees[n - 1] / 1e3);
+    }
+
+    /*
+      Lit un fichier de résultats précédents : pour chaque configuration et commande, les colonnes de la ligne.
+    */
+    private static Map<String, String[]> lirePrecedents(Path fichier) throws IOException {
+        Map<String, String[]> precedents = new HashMap<>();
+        for (String ligne : Files.readAllLines(fichier)) {
+            String[] colonnes = ligne.split(";");
+            if (colonnes.length == 7 && !ENTETE.equals(ligne))
+                precedents.put(colonnes[0] + ";" + colonnes[1], colonnes);
+        }
+        return precedents;
+    }
+
+    /*
+      Retourne l'écart des percentiles p50 et p99 d'une ligne de résultats par rapport aux résultats précédents de
+      la même configuration, ou la chaîne vide s'il n'y en a pas.
+    */
+    private static String comparer(String ligne, Map<String, String[]> precedents) {
+        String[] colonnes = ligne.split(";");
+        String[] precedent = precedents.get(colonnes[0] + ";" + colonnes[1]);
+        if (precedent == null)
+            return "";
+        return String.format("   (p50 %+.0f %%, p99 %+.0f %%)",
+                ecart(colonnes[3], precedent[3]), ecart(colonnes[4], precedent[4]));
+    }
+
+    private static double ecart(String valeur, String reference) {
+        return (Double.parseDouble(valeur) / Double.parseDouble(reference) - 1) * 100;
+    }
+}
@@ -0,0 +1,168 @@
+package com.chat.programme;
+
+import com.chat.serveur.ModeServeur;
+import com.chat.serveur.Serveur;
+import com.chat.serveur.ServeurChat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Programme qui mesure la capacité du serveur à absorber une rafale de connexions. Il ouvre d'un coup un grand
+ * nombre de connexions sur l'interface locale, envoie un alias dès que le serveur le demande et mesure, pour chaque
+ * connexion, le temps écoulé jusqu'à la demande d'alias (WAIT_FOR) puis jusqu'à l'admission (OK ou HIST).
+ * <p>
+ * Arguments : [nombre de connexions] [mode du serveur | hote:port] [nombre d'accepteurs]. Si un mode est donné,
+ * un serveur de chat est démarré dans le même processus ; sinon, le programme se connecte au serveur indiqué.
+ * Il peut être nécessaire d'augmenter la limite de descripteurs de fichiers (ulimit -n) pour de grandes rafales.
+ */
+public class BenchmarkConnexions {
+    private static final int PORT_BENCHMARK = 8890;
+    private static final long DELAI_MAX = 60000;
+
+    //État d'une connexion du benchmark :
+    private static class Essai {
+        int numero;
+        long debut, demandeAlias = -1, admission = -1;
+        StringBuilder recu = new StringBuilder();
+    }
+
+    /**
+     * Méthode principale du programme.
+     *
+     * @param args Arguments du programme
+     * @throws IOException si le selector ne peut pas être ouvert
+     */
+    public static void main(String[] args) throws IOException {
+        int nb = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        String cible = args.length > 1 ? args[1] : ModeServeur.NIO.name();
+        String hote = "127.0.0.1";
+        int port = PORT_BENCHMARK, echecs = 0, admis = 0;
+        Serveur serveur = null;
+
+        if (cible.contains(":")) {
+            hote = cible.substring(0, cible.lastIndexOf(':'));
+            port = Integer.parseInt(cible.substring(cible.lastIndexOf(':') + 1));
+        } else {
+            serveur = new ServeurChat(port);
+            serveur.setMode(ModeServeur.valueOf(cible.toUpperCase()));
+            if (args.length > 2)
+                serveur.setNbAccepteurs(Integer.parseInt(args[2]));
+            serveur.setBacklog(Math.max(serveur.getBacklog(), nb));
+            if (!serveur.demarrer()) {
+                System.out.println("Impossible de demarrer le serveur sur le port " + port);
+                return;
+            }
+        }
+
+        Selector selector = Selector.open();
+        InetSocketAddress adresse = new InetSocketAddress(hote, port);
+        ByteBuffer tampon = ByteBuffer.allocate(4096);
+        Essai[] essais = new Essai[nb];
+        long debut = System.nanoTime();
+
+        //Ouverture de toutes les connexions d'un coup :
+        for (int i = 0; i < nb; i++) {
+            Essai essai = new Essai();
+            essai.numero = i;
+            essai.debut = System.nanoTime();
+            essais[i] = essai;
+            try {
+                SocketChannel canal = SocketChannel.open();
+                canal.configureBlocking(false);
+                if (canal.connect(adresse))
+                    canal.register(selector, SelectionKey.OP_READ, essai);
+                else
+                    canal.register(selector, SelectionKey.OP_CONNECT, essai);
+            } catch (IOException e) {
+                echecs++;
+            }
+        }
+
+        //Attente des demandes d'alias et des admissions :
+        long limite = System.currentTimeMillis() + DELAI_MAX;
+        while (admis + echecs < nb && System.currentTimeMillis() < limite) {
+            selector.select(100);
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey cle = it.next();
+                it.remove();
+                Essai essai = (Essai) cle.attachment();
+                SocketChannel canal = (SocketChannel) cle.channel();
+                try {
+                    if (cle.isConnectable()) {
+                        canal.finishConnect();
+                        cle.interestOps(SelectionKey.OP_READ);
+                        continue;
+                    }
+                    tampon.clear();
+                    if (canal.read(tampon) < 0)
+                        throw new IOException("connexion fermee");
+                    tampon.flip();
+                    essai.recu.append(StandardCharsets.UTF_8.decode(tampon));
+                    int fin;
+                    while ((fin = essai.recu.indexOf("\n")) >= 0) {
+                        String trame = essai.recu.substring(0, fin);
+                        essai.recu.delete(0, fin + 1);
+                        if (essai.demandeAlias < 0 && trame.startsWith("WAIT_FOR")) {
+                            essai.demandeAlias = System.nanoTime();
+                            canal.write(ByteBuffer.wrap(("bench" + essai.numero + "\n")
+                                    .getBytes(StandardCharsets.UTF_8)));
+                        } else if (essai.demandeAlias >= 0 && essai.admission < 0) {
+                            essai.admission = System.nanoTime();
+                            admis++;
+                        }
+                    }
+                } catch (IOException e) {
+                    echecs++;
+                    cle.cancel();
+                    canal.close();
+                }
+            }
+        }
+        long duree = System.nanoTime() - debut;
+
+        //Rapport :
+        long[] attente = new long[nb], admission = new long[nb];
+        int nbAttente = 0, nbAdmission = 0;
+        for (Essai essai : essais) {
+            if (essai.demandeAlias >= 0)
+                attente[nbAttente++] = essai.demandeAlias - essai.debut;
+            if (essai.admission >= 0)
+                admission[nbAdmission++] = essai.admission - essai.debut;
+        }
+        System.out.println("Connexions demandees : " + nb + ", admises : " + admis + ", echecs : " + echecs);
+        System.out.printf("Duree totale : %.1f ms (%.0f admissions/s)%n", duree / 1e6, admis / (duree / 1e9));
+        afficher("Temps jusqu'a WAIT_FOR", attente, nbAttente);
+        afficher("Temps jusqu'a l'admission", admission, nbAdmission);
+        if (serveur != null)
+            System.out.printf("Serveur : %d connexions acceptees, pic de %d/s, %d accepteur(s), mode %s%n",
+                    serveur.getAcceptations().getTotal(), serveur.getAcceptations().getPic(),
+                    serveur.getMode() == ModeServeur.NIO ? 1 : serveur.getNbAccepteurs(), serveur.getMode());
+
+        for (SelectionKey cle : selector.keys())
+            cle.channel().close();
+        selector.close();
+        if (serveur != null)
+            serveur.arreter();
+    }
+
+    //Affiche les centiles de durées (en nanosecondes) :
+    private static void afficher(String titre, long[] durees, int nb) {
+        if (nb == 0) {
+            System.out.println(titre + " : aucune mesure");
+            return;
+        }
+        Arrays.sort(durees, 0, nb);
+        System.out.printf("%s (ms) : p50=%.2f p90=%.2f p99=%.2f max=%.2f%n", titre,
+                durees[(int) (nb * 0.50)] / 1e6, durees[(int) (nb * 0.90)] / 1e6,
+                durees[Math.min(nb - 1, (int) (nb * 0.99))] / 1e6, durees[nb - 1] / 1e6);
+    }
+}
@@ -0,0 +1,260 @@
+package com.chat.programme;
+
+import com.chat.commun.net.PolitiqueDebordement;
+import com.chat.serveur.Config;
+import com.chat.serveur.ModeServeur;
+import com.chat.serveur.ServeurChat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Programme qui mesure le débit de diffusion du serveur selon son nombre de réacteurs NIO. Pour chaque nombre de
+ * réacteurs, un serveur de chat est démarré dans le même processus et des clients y envoient des messages au salon
+ * public (MSG) sans arrêt : chaque message est diffusé à tous les autres clients. Chaque client garde quelques
+ * requêtes en cours, identifiées (#42 MSG ...), et en envoie une nouvelle dès qu'il reçoit l'accusé de réception
+ * d'une précédente ; le débit mesuré est donc celui que le serveur peut soutenir.
+ * <p>
+ * Arguments : [nombre de clients] [durée de la mesure, en secondes] [nombres de réacteurs, séparés par des virgules]
+ * [nombre de connectés à partir duquel les messages sont diffusés par plusieurs threads]. Par défaut, le serveur est
+ * mesuré avec 1 réacteur puis avec un réacteur par processeur, et avec le seuil de diffusion de sa configuration.
+ */
+public class BenchmarkDiffusion {
+    private static final int PORT_BENCHMARK = 8892;
+    //Nombre de requêtes MSG en cours par client :
+    private static final int FENETRE = 4;
+    private static final long DUREE_ECHAUFFEMENT = 1000;
+    private static final byte[] MESSAGE = " MSG message de diffusion du benchmark\n".getBytes(StandardCharsets.UTF_8);
+
+    //Messages diffusés reçus par tous les clients :
+    private static final LongAdder livraisons = new LongAdder();
+    //Accusés de réception reçus par tous les clients :
+    private static final LongAdder requetes = new LongAdder();
+
+    //État d'un client du benchmark :
+    private static class Client {
+        SocketChannel canal;
+        ByteBuffer sortie = ByteBuffer.allocate(4096);
+        int prochainId;
+        boolean debutTrame = true, accuse;
+    }
+
+    //Thread qui fait envoyer et recevoir leurs trames à une partie des clients :
+    private static class ThreadClients extends Thread {
+        private final Selector selecteur;
+        private final ByteBuffer tampon = ByteBuffer.allocateDirect(64 * 1024);
+        private volatile boolean actif = true;
+
+        ThreadClients(int numero) throws IOException {
+            super("clients-" + numero);
+            selecteur = Selector.open();
+        }
+
+        void ajouter(Client client) throws IOException {
+            client.canal.configureBlocking(false);
+            client.canal.register(selecteur, SelectionKey.OP_READ, client);
+        }
+
+        public void run() {
+            for (SelectionKey cle : selecteur.keys())
+                for (int i = 0; i < FENETRE; i++)
+                    envoyer(cle, (Client) cle.attachment());
+            while (actif) {
+                try {
+                    selecteur.select(100);
+                } catch (IOException e) {
+                    break;
+                }
+                Iterator<SelectionKey> it = selecteur.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey cle = it.next();
+                    it.remove();
+                    if (!cle.isValid())
+                        continue;
+                    if (cle.isWritable())
+                        vider(cle, (Client) cle.attachment());
+                    if (cle.isValid() && cle.isReadable())
+                        lire(cle, (Client) cle.attachment());
+                }
+            }
+            for (SelectionKey cle : selecteur.keys()) {
+                try {
+                    cle.channel().close();
+                } catch (IOException e) {
+                    //Le client est arrêté de toute façon.
+                }
+            }
+            try {
+                selecteur.close();
+            } catch (IOException e) {
+                //Le benchmark se termine de toute façon.
+            }
+        }
+
+        /*
+          Lit les trames reçues par un client. Une trame qui commence par # est l'accusé de réception d'une requête
+          MSG du client, qui en envoie alors une autre ; toute autre trame est un message diffusé.
+        */
+        private void lire(SelectionKey cle, Client client) {
+            int n;
+            byte b;
+            try {
+                tampon.clear();
+                n = client.canal.read(tampon);
+            } catch (IOException e) {
+                n = -1;
+            }
+            if (n < 0) {
+                cle.cancel();
+                return;
+            }
+            tampon.flip();
+            while (tampon.hasRemaining()) {
+                b = tampon.get();
+                if (client.debutTrame) {
+                    client.accuse = b == '#';
+                    client.debutTrame = false;
+                }
+                if (b == '\n') {
+                    client.debutTrame = true;
+                    if (client.accuse) {
+                        requetes.increment();
+                        envoyer(cle, client);
+                    } else
+                        livraisons.increment();
+                }
+            }
+        }
+
+        private void envoyer(SelectionKey cle, Client client) {
+            client.sortie.put(("#" + client.prochainId++).getBytes(StandardCharsets.UTF_8)).put(MESSAGE);
+            vider(cle, client);
+        }
+
+        private void vider(SelectionKey cle, Client client) {
+            client.sortie.flip();
+            try {
+                client.canal.write(client.sortie);
+            } catch (IOException e) {
+                cle.cancel();
+                return;
+            }
+            client.sortie.compact();
+            cle.interestOps(client.sortie.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                    : SelectionKey.OP_READ);
+        }
+
+        void arreter() {
+            actif = false;
+            selecteur.wakeup();
+        }
+    }
+
+    /**
+     * Méthode principale du programme.
+     *
+     * @param args Arguments du programme
+     * @throws Exception si les clients ne peuvent pas se connecter au serveur
+     */
+    public static void main(String[] args) throws Exception {
+        int nbClients = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long duree = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 5000;
+        int nbProcesseurs = Runtime.getRuntime().availableProcessors();
+        String reacteurs = args.length > 2 ? args[2] : (nbProcesseurs > 1 ? "1," + nbProcesseurs : "1");
+        int seuil = args.length > 3 ? Integer.parseInt(args[3]) : Config.SEUIL_DIFFUSION_PARALLELE;
+        PrintStream console = System.out;
+
+        console.println("Clients : " + nbClients + ", processeurs : " + nbProcesseurs + ", duree : " + duree
+                + " ms, seuil de diffusion parallele : " + seuil);
+        console.println("reacteurs;livraisons/s;requetes/s;messages supprimes");
+        for (String nb : reacteurs.split(",")) {
+            //Le serveur affiche chaque trame reçue : ses affichages sont ignorés, sans passer par le verrou de la
+            //console, qui ferait attendre les réacteurs les uns après les autres.
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()) {
+                @Override
+                public void println(String x) {
+                }
+            });
+            try {
+                console.println(mesurer(Integer.parseInt(nb.trim()), seuil, nbClients, duree));
+            } finally {
+                System.setOut(console);
+            }
+        }
+    }
+
+    /*
+      Démarre un serveur avec le nombre de réacteurs et le seuil de diffusion donnés, y fait diffuser des messages par
+      les clients et retourne la ligne de résultats.
+    */
+    private static String mesurer(int nbReacteurs, int seuil, int nbClients, long duree) throws Exception {
+        ServeurChat serveur = new ServeurChat(PORT_BENCHMARK);
+        serveur.setMode(ModeServeur.NIO);
+        serveur.setNbReacteurs(nbReacteurs);
+        serveur.getDiffusion().setSeuil(seuil);
+        serveur.setIntervallePing(0);
+        if (!serveur.demarrer())
+            throw new IOException("Impossible de demarrer le serveur sur le port " + PORT_BENCHMARK);
+
+        ThreadClients[] threads = new ThreadClients[Math.max(1, Runtime.getRuntime().availableProcessors() / 2)];
+        for (int i = 0; i < threads.length; i++)
+            threads[i] = new ThreadClients(i);
+        InetSocketAddress adresse = new InetSocketAddress("127.0.0.1", PORT_BENCHMARK);
+        for (int i = 0; i < nbClients; i++) {
+            Client client = new Client();
+            client.canal = SocketChannel.open(adresse);
+            identifier(client.canal, "diffusion" + i);
+            threads[i % threads.length].ajouter(client);
+        }
+
+        for (ThreadClients thread : threads)
+            thread.start();
+        Thread.sleep(DUREE_ECHAUFFEMENT);
+        long livraisonsDebut = livraisons.sum(), requetesDebut = requetes.sum(), debut = System.nanoTime();
+        Thread.sleep(duree);
+        long nbLivraisons = livraisons.sum() - livraisonsDebut, nbRequetes = requetes.sum() - requetesDebut;
+        double secondes = (System.nanoTime() - debut) / 1e9;
+
+        for (ThreadClients thread : threads) {
+            thread.arreter();
+            thread.join();
+        }
+        serveur.arreter();
+        return String.format("%d;%.0f;%.0f;%d", nbReacteurs, nbLivraisons / secondes, nbRequetes / secondes,
+                serveur.getLimitesEnvoi().getNbDeclenchements(PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN));
+    }
+
+    /*
+      Envoie l'alias d'un client dès que le serveur le demande et attend son admission (OK ou HIST).
+    */
+    private static void identifier(SocketChannel canal, String alias) throws IOException {
+        ByteBuffer tampon = ByteBuffer.allocate(4096);
+        StringBuilder recu = new StringBuilder();
+        String trame;
+        int fin;
+        while (true) {
+            tampon.clear();
+            if (canal.read(tampon) < 0)
+                throw new IOException("connexion fermee pendant l'identification");
+            tampon.flip();
+            recu.append(StandardCharsets.UTF_8.decode(tampon));
+            while ((fin = recu.indexOf("\n")) >= 0) {
+                trame = recu.substring(0, fin);
+                recu.delete(0, fin + 1);
+                if (trame.startsWith("WAIT_FOR"))
+                    canal.write(ByteBuffer.wrap((alias + "\n").getBytes(StandardCharsets.UTF_8)));
+                else if (trame.startsWith("OK") || trame.startsWith("HIST"))
+                    return;
+            }
+        }
+    }
+}
@@ -1,22 +1,24 @@
 package com.chat.programme;
 
+import com.chat.commun.net.CompressionTrames;
+import com.chat.serveur.BusSocket;
 import com.chat.serveur.Config;
+import com.chat.serveur.ModeServeur;
 import com.chat.serveur.ServeurChat;
-import com.chat.serveur.Serveur;
 
 import java.util.Scanner;
 
 /**
- * Programme simple de dmonstration d'un serveur. Le programme dmarre un serveur qui se met  couter
- * l'arrive de connexions.
+ * Programme simple de démonstration d'un serveur. Le programme démarre un serveur qui se met à écouter
+ * l'arrivée de connexions.
  *
- * @author Abdelmoumne Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
+ * @author Abdelmoumène Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
  * @version 1.0
  * @since 2023-09-01
  */
 public class Main {
 	/**
-	 * Mthode principale du programme.
+	 * Méthode principale du programme.
 	 *
 	 * @param args Arguments du programme
 	 */
@@ -25,17 +27,47 @@ public class Main {
         Scanner clavier = new Scanner(System.in);
         String saisie;
 
-        Serveur serveur = new ServeurChat(Config.PORT_SERVEUR);
+        //Le port du serveur peut être donné en 4e argument, par exemple pour démarrer plusieurs noeuds d'une grappe :
+        ServeurChat serveur = new ServeurChat(args.length > 3 ? Integer.parseInt(args[3]) : Config.PORT_SERVEUR);
+        //Le modèle de lecture peut être choisi en argument (NIO ou SCRUTATION) :
+        if (args.length > 0)
+            serveur.setMode(ModeServeur.valueOf(args[0].toUpperCase()));
+        //Le serveur peut aussi écouter sur un socket Unix, dont le chemin est donné en 2e argument (- pour aucun) :
+        if (args.length > 1 && !"-".equals(args[1]))
+            serveur.setCheminSocketUnix(args[1]);
+        //Le jeton qui autorise un client à utiliser la commande STATS peut être donné en 3e argument (- pour aucun) :
+        if (args.length > 2 && !"-".equals(args[2]))
+            serveur.setJetonAdministration(args[2]);
+        //Le serveur devient un noeud d'une grappe si le port du bus de la grappe est donné en 5e argument :
+        if (args.length > 4)
+            serveur.setGrappe("noeud-" + serveur.getPort(), new BusSocket("127.0.0.1", Integer.parseInt(args[4])));
         if (serveur.demarrer()) {
             System.out.println("Serveur a l'ecoute sur le port " + serveur.getPort());
+            if (serveur.getCheminSocketUnix() != null)
+                System.out.println("Serveur a l'ecoute sur le socket " + serveur.getCheminSocketUnix());
+            if (serveur.getGrappe() != null)
+                System.out.println("Serveur relie a la grappe comme " + serveur.getGrappe().getIdNoeud());
         }
 
-        System.out.println("Saisissez EXIT pour arreter le serveur.");
+        System.out.println("Saisissez EXIT pour arreter le serveur, STATS [nombre] pour voir les connexions les plus actives et les commandes.");
         saisie = clavier.nextLine();
         while (!"EXIT".equals(saisie)) {
-            System.out.println("??? Saisissez EXIT pour arreter le serveur.");
+            if (saisie.equals("STATS") || saisie.startsWith("STATS ")) {
+                int nbMax = Config.NB_CONNEXIONS_STATS;
+                try {
+                    if (saisie.length() > 6)
+                        nbMax = Integer.parseInt(saisie.substring(6).trim());
+                } catch (NumberFormatException e) {
+                    System.out.println("Nombre invalide : " + saisie.substring(6).trim());
+                }
+                System.out.println(serveur.rapportConnexions(nbMax));
+                System.out.println(serveur.getCommandes().rapport());
+            } else
+                System.out.println("??? Saisissez EXIT pour arreter le serveur ou STATS pour voir les connexions.");
             saisie = clavier.nextLine();
         }
         serveur.arreter();
+        if (!CompressionTrames.getStatistiques().isVide())
+            System.out.print("Compression des trames :\n" + CompressionTrames.getStatistiques().rapport());
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.chat.programme;
+
+import com.chat.serveur.BusLocal;
+import com.chat.serveur.Config;
+import com.chat.serveur.ModeServeur;
+import com.chat.serveur.ServeurChat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Programme qui démarre une grappe de serveurs de chat dans le même processus, reliés par un bus local. Les noeuds
+ * écoutent sur des ports consécutifs, à partir du port du serveur : un message envoyé au salon public par un client
+ * d'un noeud est reçu par les clients de tous les noeuds, et la commande LIST donne les connectés de toute la grappe.
+ * <p>
+ * Arguments : [nombre de noeuds] [mode des serveurs (NIO, SCRUTATION ou THREAD_PAR_CONNEXION)]. Par défaut, la
+ * grappe compte 2 noeuds.
+ */
+public class MainGrappe {
+    /**
+     * Méthode principale du programme.
+     *
+     * @param args Arguments du programme
+     */
+    public static void main(String[] args) {
+        int nbNoeuds = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        List<ServeurChat> noeuds = new ArrayList<>();
+        Scanner clavier = new Scanner(System.in);
+
+        for (int i = 0; i < nbNoeuds; i++) {
+            ServeurChat serveur = new ServeurChat(Config.PORT_SERVEUR + i);
+            if (args.length > 1)
+                serveur.setMode(ModeServeur.valueOf(args[1].toUpperCase()));
+            serveur.setGrappe("noeud-" + serveur.getPort(), new BusLocal("grappe"));
+            if (serveur.demarrer()) {
+                System.out.println("Noeud " + serveur.getGrappe().getIdNoeud() + " a l'ecoute sur le port "
+                        + serveur.getPort());
+                noeuds.add(serveur);
+            }
+        }
+
+        System.out.println("Saisissez EXIT pour arreter la grappe.");
+        while (!"EXIT".equals(clavier.nextLine()))
+            System.out.println("??? Saisissez EXIT pour arreter la grappe.");
+        for (ServeurChat serveur : noeuds)
+            serveur.arreter();
+    }
+}
@@ -0,0 +1,39 @@
+package com.chat.serveur;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Bus de messages qui relie les noeuds d'une grappe de serveurs de chat. Un message publié par un noeud est reçu par
+ * tous les autres noeuds, dans l'ordre où il les a publiés, mais pas par lui-même.
+ * <p>
+ * Les messages sont des textes d'une ligne, ou dont les retours à la ligne sont échappés, qui commencent par leur
+ * type suivi de l'identifiant du noeud qui les a publiés (MSG noeud-8888 ...). Lorsqu'un bus perd le contact avec un
+ * noeud, il le signale par le message AUREVOIR suivi de l'identifiant de ce noeud, ou de * s'il a perdu tous les
+ * autres noeuds.
+ *
+ * @see Grappe
+ */
+public interface BusGrappe {
+
+    /**
+     * Relie le noeud au bus. Les messages publiés ensuite par les autres noeuds sont passés à la réception, sur un
+     * thread du bus.
+     *
+     * @param reception Consumer la méthode qui reçoit les messages des autres noeuds
+     * @throws IOException si le bus ne peut pas être joint
+     */
+    void demarrer(Consumer<String> reception) throws IOException;
+
+    /**
+     * Publie un message à tous les autres noeuds reliés au bus.
+     *
+     * @param message String le message
+     */
+    void publier(String message);
+
+    /**
+     * Détache le noeud du bus. Les messages publiés ensuite sont ignorés.
+     */
+    void arreter();
+}
@@ -0,0 +1,55 @@
+package com.chat.serveur;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bus d'une grappe dont tous les noeuds sont dans le même processus, par exemple pour essayer une grappe sur un seul
+ * poste. Les noeuds qui utilisent un bus local du même nom sont reliés entre eux. Un message publié est passé
+ * directement à la réception de chacun des autres noeuds, sur le thread qui le publie.
+ */
+public class BusLocal implements BusGrappe {
+
+    //Bus démarrés, par nom :
+    private static final Map<String, List<BusLocal>> bus = new ConcurrentHashMap<>();
+
+    private final String nom;
+    private volatile Consumer<String> reception;
+
+    /**
+     * Construit un bus local.
+     *
+     * @param nom String le nom du bus, commun à tous les noeuds de la grappe
+     */
+    public BusLocal(String nom) {
+        this.nom = nom;
+    }
+
+    @Override
+    public void demarrer(Consumer<String> reception) {
+        this.reception = reception;
+        bus.computeIfAbsent(nom, n -> new CopyOnWriteArrayList<>()).add(this);
+    }
+
+    @Override
+    public void publier(String message) {
+        if (reception == null)
+            return;
+        for (BusLocal autre : bus.getOrDefault(nom, List.of())) {
+            Consumer<String> r = autre.reception;
+            if (autre != this && r != null)
+                r.accept(message);
+        }
+    }
+
+    @Override
+    public void arreter() {
+        List<BusLocal> noeuds = bus.get(nom);
+        if (noeuds != null)
+            noeuds.remove(this);
+        reception = null;
+    }
+}
@@ -0,0 +1,145 @@
+package com.chat.serveur;
+
+import com.chat.commun.net.Connexion;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bus d'une grappe dont les noeuds sont des processus du même poste (ou du même réseau), reliés par des sockets.
+ * Le premier noeud démarré écoute sur le port du bus et sert de relais : les autres noeuds s'y connectent, et chaque
+ * message qu'il reçoit de l'un d'eux est transmis à tous les autres. Les messages sont envoyés sous forme de trames
+ * de texte, comme ceux des clients.
+ * <p>
+ * Si un noeud se déconnecte sans prévenir, le relais annonce son départ aux autres. Si le relais lui-même s'arrête,
+ * les autres noeuds perdent le bus : ils ne voient plus que leurs propres connectés.
+ */
+public class BusSocket implements BusGrappe {
+
+    private final String adresse;
+    private final int port;
+    //Socket d'écoute, si ce noeud est le relais :
+    private ServerSocket relais;
+    //Connexions vers les autres noeuds, si ce noeud est le relais, ou vers le relais sinon :
+    private final List<Connexion> pairs = new CopyOnWriteArrayList<>();
+    private volatile Consumer<String> reception;
+
+    /**
+     * Construit un bus sur socket.
+     *
+     * @param adresse String l'adresse du relais, par exemple 127.0.0.1
+     * @param port int le port du bus, commun à tous les noeuds de la grappe
+     */
+    public BusSocket(String adresse, int port) {
+        this.adresse = adresse;
+        this.port = port;
+    }
+
+    /**
+     * Relie le noeud au bus : il devient le relais si aucun autre noeud n'écoute déjà sur le port du bus, sinon il se
+     * connecte au relais.
+     *
+     * @param reception Consumer la méthode qui reçoit les messages des autres noeuds
+     * @throws IOException si le noeud ne peut ni écouter sur le port du bus, ni se connecter au relais
+     */
+    @Override
+    public void demarrer(Consumer<String> reception) throws IOException {
+        this.reception = reception;
+        try {
+            relais = new ServerSocket(port, 50, InetAddress.getByName(adresse));
+            FabriqueThreads.demarrer(this::accepter);
+        } catch (BindException e) { //Le relais existe déjà
+            Connexion connexion = new Connexion(new Socket(adresse, port));
+            pairs.add(connexion);
+            FabriqueThreads.demarrer(() -> lire(connexion));
+        }
+    }
+
+    /**
+     * Indique si ce noeud est le relais du bus.
+     *
+     * @return boolean true si les autres noeuds se connectent à ce noeud
+     */
+    public boolean isRelais() {
+        return relais != null;
+    }
+
+    /*
+      Attend les connexions des autres noeuds, tant que le relais est ouvert.
+    */
+    private void accepter() {
+        while (reception != null) {
+            try {
+                Connexion connexion = new Connexion(relais.accept());
+                pairs.add(connexion);
+                FabriqueThreads.demarrer(() -> lire(connexion));
+            } catch (IOException e) {
+                break; //Le relais a été fermé
+            }
+        }
+    }
+
+    /*
+      Reçoit les messages d'un autre noeud jusqu'à ce que sa connexion soit fermée. Le relais les transmet aussi aux
+      autres noeuds, et annonce le départ du noeud lorsque sa connexion est fermée.
+    */
+    private void lire(Connexion connexion) {
+        String noeud = null;
+        List<String> messages;
+        while ((messages = connexion.attendreTrames()) != null) {
+            for (String message : messages) {
+                if (noeud == null && message.indexOf(' ') != -1)
+                    noeud = message.split(" ")[1];
+                if (relais != null)
+                    transmettre(message, connexion);
+                recevoir(message);
+            }
+        }
+        pairs.remove(connexion);
+        connexion.close();
+        if (relais == null)
+            recevoir("AUREVOIR *");
+        else if (noeud != null) {
+            transmettre("AUREVOIR " + noeud, null);
+            recevoir("AUREVOIR " + noeud);
+        }
+    }
+
+    private void transmettre(String message, Connexion expediteur) {
+        for (Connexion pair : pairs)
+            if (pair != expediteur)
+                pair.envoyer(message);
+    }
+
+    private void recevoir(String message) {
+        Consumer<String> r = reception;
+        if (r != null)
+            r.accept(message);
+    }
+
+    @Override
+    public void publier(String message) {
+        if (reception != null)
+            transmettre(message, null);
+    }
+
+    @Override
+    public void arreter() {
+        reception = null;
+        try {
+            if (relais != null)
+                relais.close();
+        } catch (IOException e) {
+            //Le bus est arrêté de toute façon.
+        }
+        for (Connexion pair : pairs)
+            pair.close();
+        pairs.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.chat.serveur;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteur d'occurrences (par exemple de connexions acceptées) qui mesure aussi leur débit par seconde. Les
+ * occurrences sont réparties par seconde dans une fenêtre glissante de quelques secondes. L'incrémentation ne prend
+ * aucun verrou ; le débit mesuré est approximatif lorsque plusieurs threads changent de seconde en même temps.
+ */
+public class CompteurDebit {
+    /**
+     * Nombre de secondes de la fenêtre glissante.
+     */
+    public static final int NB_SECONDES = 10;
+
+    private final LongAdder total = new LongAdder();
+    //Nombre d'occurrences et seconde correspondante, pour chaque case de la fenêtre :
+    private final AtomicLongArray compteurs = new AtomicLongArray(NB_SECONDES);
+    private final AtomicLongArray secondes = new AtomicLongArray(NB_SECONDES);
+
+    /**
+     * Compte une occurrence.
+     */
+    public void incrementer() {
+        long seconde = System.currentTimeMillis() / 1000;
+        int i = (int) (seconde % NB_SECONDES);
+        long ancienne = secondes.get(i);
+        if (ancienne != seconde && secondes.compareAndSet(i, ancienne, seconde))
+            compteurs.set(i, 0);
+        compteurs.incrementAndGet(i);
+        total.increment();
+    }
+
+    /**
+     * Retourne le nombre total d'occurrences comptées.
+     *
+     * @return long le nombre total d'occurrences
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * Retourne le débit moyen, par seconde, sur les dernières secondes complètes de la fenêtre.
+     *
+     * @return double le nombre moyen d'occurrences par seconde
+     */
+    public double getDebit() {
+        long maintenant = System.currentTimeMillis() / 1000;
+        long somme = 0, seconde;
+        for (int i = 0; i < NB_SECONDES; i++) {
+            seconde = secondes.get(i);
+            if (seconde < maintenant && seconde >= maintenant - (NB_SECONDES - 1))
+                somme += compteurs.get(i);
+        }
+        return somme / (double) (NB_SECONDES - 1);
+    }
+
+    /**
+     * Retourne le plus grand nombre d'occurrences comptées en une seconde complète de la fenêtre.
+     *
+     * @return long le pic d'occurrences par seconde
+     */
+    public long getPic() {
+        long maintenant = System.currentTimeMillis() / 1000;
+        long pic = 0, seconde;
+        for (int i = 0; i < NB_SECONDES; i++) {
+            seconde = secondes.get(i);
+            if (seconde < maintenant && seconde >= maintenant - (NB_SECONDES - 1))
+                pic = Math.max(pic, compteurs.get(i));
+        }
+        return pic;
+    }
+}
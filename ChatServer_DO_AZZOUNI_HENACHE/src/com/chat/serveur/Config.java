@@ -1,11 +1,88 @@
 package com.chat.serveur;
 
 /**
- * Informations sur un serveur, utilises par dfaut.
+ * Informations sur un serveur, utilisées par défaut.
  */
 public interface Config {
     /**
-     * Port d'coute du serveur.
+     * Port d'écoute du serveur.
      */
     int PORT_SERVEUR = 8888;
+    /**
+     * Chemin du socket Unix sur lequel le serveur écoute aussi, pour les clients du même hôte (null pour n'écouter
+     * que sur le port TCP).
+     */
+    String CHEMIN_SOCKET_UNIX = null;
+    /**
+     * Modèle de lecture du serveur.
+     */
+    ModeServeur MODE_SERVEUR = ModeServeur.NIO;
+    /**
+     * Nombre de threads qui écrivent les files d'envoi des connexions, hors du mode NIO.
+     */
+    int NB_THREADS_ENVOI = 2;
+    /**
+     * Nombre de threads qui traitent les commandes des clients en modes NIO et SCRUTATION : les commandes d'un même
+     * client sont traitées dans l'ordre, celles de clients différents en parallèle (0 pour les traiter sur le thread
+     * qui les lit).
+     */
+    int NB_THREADS_TRAITEMENT = Runtime.getRuntime().availableProcessors();
+    /**
+     * Nombre maximal d'octets en attente dans la file d'envoi d'une connexion.
+     */
+    long LIMITE_ENVOI_OCTETS = 4L * 1024 * 1024;
+    /**
+     * Nombre maximal de trames en attente dans la file d'envoi d'une connexion.
+     */
+    int LIMITE_ENVOI_TRAMES = 10000;
+    /**
+     * Délai, en millisecondes, accordé à un nouveau client pour envoyer son alias.
+     */
+    long DELAI_IDENTIFICATION = 30000;
+    /**
+     * Durée maximale, en millisecondes, de l'écriture des dernières trames d'un client que le serveur déconnecte.
+     */
+    long DELAI_FERMETURE = 2000;
+    /**
+     * Jeton qu'un client doit donner pour consulter les statistiques des connexions (null pour ne l'autoriser à
+     * aucun client ; les statistiques restent disponibles sur la console du serveur).
+     */
+    String JETON_ADMINISTRATION = null;
+    /**
+     * Nombre maximal de connexions, les plus actives, listées par la commande STATS.
+     */
+    int NB_CONNEXIONS_STATS = 20;
+    /**
+     * Nombre de threads qui attendent l'arrivée de nouveaux clients (hors du mode NIO).
+     */
+    int NB_ACCEPTEURS = 1;
+    /**
+     * Nombre de boucles d'événements NIO (réacteurs) du serveur en mode NIO : une par processeur disponible.
+     */
+    int NB_REACTEURS = Runtime.getRuntime().availableProcessors();
+    /**
+     * Nombre de connectés à partir duquel un message du salon public est envoyé par plusieurs threads.
+     */
+    int SEUIL_DIFFUSION_PARALLELE = 1000;
+    /**
+     * Nombre de threads qui se partagent l'envoi d'un message du salon public à un grand nombre de connectés.
+     */
+    int NB_THREADS_DIFFUSION = Runtime.getRuntime().availableProcessors();
+    /**
+     * Taille de la file d'attente, gérée par le système, des connexions pas encore acceptées.
+     */
+    int BACKLOG = 1024;
+    /**
+     * Durée d'inactivité, en millisecondes, après laquelle le serveur envoie un PING à un client.
+     */
+    long INTERVALLE_PING = 15000;
+    /**
+     * Nombre de PING sans réponse après lequel le serveur expulse un client.
+     */
+    int NB_PINGS_MANQUES = 3;
+    /**
+     * Durée, en millisecondes, pendant laquelle un client qui a perdu sa connexion peut reprendre sa session et
+     * retrouver ses salons privés.
+     */
+    long DUREE_SESSION = 60000;
 }
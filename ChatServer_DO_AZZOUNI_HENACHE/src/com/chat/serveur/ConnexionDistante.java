@@ -0,0 +1,52 @@
+package com.chat.serveur;
+
+import com.chat.commun.net.Connexion;
+import com.chat.commun.net.TrameDiffusee;
+
+/**
+ * Représente, sur le noeud d'une grappe qui héberge un salon privé, un client connecté à un autre noeud. Les textes
+ * envoyés à cette connexion sont publiés sur le bus de la grappe, à destination du noeud du client, qui les lui
+ * envoie. Une connexion distante n'a pas de socket : elle n'est jamais lue, et la fermer n'a pas d'effet.
+ */
+public class ConnexionDistante extends Connexion {
+
+    private final String noeud;
+    private final Grappe grappe;
+
+    /**
+     * Construit la connexion distante d'un client.
+     *
+     * @param alias String l'alias du client
+     * @param noeud String l'identifiant du noeud où le client est connecté
+     * @param grappe Grappe la grappe qui relie ce noeud à celui du client
+     */
+    public ConnexionDistante(String alias, String noeud, Grappe grappe) {
+        this.noeud = noeud;
+        this.grappe = grappe;
+        setAlias(alias);
+    }
+
+    @Override
+    public void envoyer(String texte, String classe) {
+        grappe.envoyer(noeud, getAlias(), texte);
+    }
+
+    @Override
+    public void envoyer(TrameDiffusee trame) {
+        //Les messages du salon public sont déjà diffusés par chaque noeud à ses propres connectés.
+    }
+
+    @Override
+    public boolean close() {
+        return true;
+    }
+
+    /**
+     * Retourne le noeud où le client est connecté.
+     *
+     * @return String l'identifiant du noeud
+     */
+    public String getNoeud() {
+        return noeud;
+    }
+}
@@ -0,0 +1,177 @@
+package com.chat.serveur;
+
+import com.chat.commun.net.Connexion;
+import com.chat.commun.net.TrameDiffusee;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cette classe répartit sur plusieurs threads l'envoi d'un message à tous les connectés, lorsqu'ils sont nombreux.
+ * Chaque connecté est placé, à son arrivée, dans l'un des groupes de la diffusion, à tour de rôle ; chaque groupe
+ * est servi par sa propre voie, un thread qui exécute ses envois dans l'ordre où ils ont été demandés. Le thread
+ * qui diffuse un message ne fait que confier une tâche à chaque voie et reprend aussitôt le traitement des
+ * événements.
+ * <p>
+ * Un connecté reste dans le même groupe jusqu'à son départ : il reçoit donc les messages diffusés dans l'ordre où
+ * ils ont été diffusés. Pour la même raison, un message n'est envoyé directement, par le thread qui le diffuse, que
+ * si les connectés sont peu nombreux et qu'aucun message précédent n'est encore en cours d'envoi par les voies.
+ */
+public class DiffusionParallele {
+
+    //Connectés de chacun des groupes :
+    private final List<List<Connexion>> groupes = new ArrayList<>();
+    //Threads qui envoient les messages aux groupes, un par groupe, ou null si les voies sont arrêtées :
+    private volatile ExecutorService[] voies;
+    //Nombre de connectés placés dans les groupes, pour les choisir à tour de rôle :
+    private final AtomicInteger nbPlaces = new AtomicInteger();
+    //Nombre de tâches d'envoi confiées aux voies et pas encore terminées :
+    private final AtomicInteger enCours = new AtomicInteger();
+    //Nombre de connectés à partir duquel les messages sont diffusés par les voies :
+    private volatile int seuil;
+
+    /**
+     * Construit une diffusion répartie sur un nombre de groupes donné.
+     *
+     * @param nbVoies int Le nombre de groupes, et de threads qui les servent
+     * @param seuil int Le nombre de connectés à partir duquel les messages sont diffusés par les voies
+     */
+    public DiffusionParallele(int nbVoies, int seuil) {
+        for (int i = 0; i < Math.max(1, nbVoies); i++)
+            groupes.add(new CopyOnWriteArrayList<>());
+        this.seuil = seuil;
+    }
+
+    /**
+     * Démarre les threads des voies.
+     */
+    public synchronized void demarrer() {
+        if (voies != null)
+            return;
+        ExecutorService[] v = new ExecutorService[groupes.size()];
+        for (int i = 0; i < v.length; i++) {
+            String nom = "diffusion-" + i;
+            v[i] = Executors.newSingleThreadExecutor(tache -> {
+                Thread thread = new Thread(tache, nom);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        voies = v;
+    }
+
+    /**
+     * Arrête les threads des voies. Les messages diffusés ensuite sont envoyés directement.
+     */
+    public synchronized void arreter() {
+        if (voies == null)
+            return;
+        for (ExecutorService voie : voies)
+            voie.shutdown();
+        voies = null;
+    }
+
+    /**
+     * Place un nouveau connecté dans l'un des groupes. Si les voies sont démarrées, c'est la voie du groupe qui l'y
+     * place, après les envois qui lui ont déjà été confiés : le connecté ne reçoit aucun message diffusé avant son
+     * arrivée.
+     *
+     * @param connexion Connexion la connexion du connecté
+     */
+    public void ajouter(Connexion connexion) {
+        int i = Math.floorMod(nbPlaces.getAndIncrement(), groupes.size());
+        List<Connexion> groupe = groupes.get(i);
+        executerSurVoie(i, () -> groupe.add(connexion));
+    }
+
+    /**
+     * Retire un connecté de son groupe. Si les voies sont démarrées, c'est chaque voie qui le retire de son groupe,
+     * après les envois qui lui ont déjà été confiés.
+     *
+     * @param connexion Connexion la connexion du connecté
+     */
+    public void enlever(Connexion connexion) {
+        for (int i = 0; i < groupes.size(); i++) {
+            List<Connexion> groupe = groupes.get(i);
+            executerSurVoie(i, () -> groupe.remove(connexion));
+        }
+    }
+
+    /*
+      Exécute une tâche sur la voie d'un groupe, pour qu'elle suive les envois déjà confiés à cette voie, ou
+      directement si les voies sont arrêtées.
+    */
+    private void executerSurVoie(int i, Runnable tache) {
+        ExecutorService[] v = voies;
+        if (v != null) {
+            try {
+                v[i].execute(tache);
+                return;
+            } catch (RejectedExecutionException e) { //Le serveur est en train de s'arrêter
+            }
+        }
+        tache.run();
+    }
+
+    /**
+     * Envoie une trame à tous les connectés sauf à l'expéditeur : directement si les connectés sont moins nombreux
+     * que le seuil, par les voies sinon.
+     *
+     * @param connectes List la liste de tous les connectés
+     * @param trame TrameDiffusee la trame à envoyer
+     * @param aliasExpediteur String l'alias du connecté qui ne doit pas recevoir la trame
+     */
+    public void diffuser(List<Connexion> connectes, TrameDiffusee trame, String aliasExpediteur) {
+        ExecutorService[] v = voies;
+        if (v == null || (connectes.size() < seuil && enCours.get() == 0)) {
+            envoyer(connectes, trame, aliasExpediteur);
+            return;
+        }
+        for (int i = 0; i < v.length; i++) {
+            List<Connexion> groupe = groupes.get(i);
+            enCours.incrementAndGet();
+            try {
+                v[i].execute(() -> {
+                    try {
+                        envoyer(groupe, trame, aliasExpediteur);
+                    } finally {
+                        enCours.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) { //Le serveur est en train de s'arrêter
+                enCours.decrementAndGet();
+                envoyer(groupe, trame, aliasExpediteur);
+            }
+        }
+    }
+
+    private static void envoyer(List<Connexion> destinataires, TrameDiffusee trame, String aliasExpediteur) {
+        for (Connexion cnx : destinataires) {
+            if (!cnx.getAlias().equals(aliasExpediteur))
+                cnx.envoyer(trame);
+        }
+    }
+
+    /**
+     * Retourne le nombre de connectés à partir duquel les messages sont diffusés par les voies.
+     *
+     * @return int Le seuil
+     */
+    public int getSeuil() {
+        return seuil;
+    }
+
+    /**
+     * Spécifie le nombre de connectés à partir duquel les messages sont diffusés par les voies.
+     *
+     * @param seuil int Le seuil
+     */
+    public void setSeuil(int seuil) {
+        this.seuil = seuil;
+    }
+}
@@ -0,0 +1,91 @@
+package com.chat.serveur;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exécuteur série d'une connexion : les tâches qui lui sont confiées s'exécutent une à la fois, dans l'ordre où elles
+ * ont été confiées, sur les threads d'un exécuteur partagé par toutes les connexions. Les tâches de connexions
+ * différentes s'exécutent donc en parallèle, et un traitement long ne retarde que la connexion qui l'a demandé.
+ * <p>
+ * L'exécuteur série n'occupe aucun thread lorsqu'il n'a rien à faire : la première tâche qui lui est confiée alors
+ * qu'il est au repos le fait planifier sur l'exécuteur partagé, qui vide sa file. Pour ne pas accaparer un thread
+ * partagé, il rend la main après un lot de tâches et se fait planifier de nouveau s'il en reste.
+ */
+public class ExecuteurSerie implements Executor {
+
+    //Nombre maximal de tâches exécutées avant de rendre la main à l'exécuteur partagé :
+    private static final int TAILLE_LOT = 64;
+
+    private final Executor partage;
+    private final Queue<Runnable> taches = new ConcurrentLinkedQueue<>();
+    //Indique si l'exécuteur série est planifié, ou en cours d'exécution, sur l'exécuteur partagé :
+    private final AtomicBoolean planifie = new AtomicBoolean();
+
+    /**
+     * Construit l'exécuteur série d'une connexion.
+     *
+     * @param partage Executor l'exécuteur partagé par toutes les connexions
+     */
+    public ExecuteurSerie(Executor partage) {
+        this.partage = partage;
+    }
+
+    /**
+     * Confie une tâche à l'exécuteur série. Elle s'exécutera après toutes celles qui lui ont été confiées avant elle.
+     * Si l'exécuteur partagé est arrêté, parce que le serveur s'arrête, les tâches en attente sont abandonnées.
+     *
+     * @param tache Runnable la tâche
+     */
+    @Override
+    public void execute(Runnable tache) {
+        taches.offer(tache);
+        planifier();
+    }
+
+    /**
+     * Retourne le nombre de tâches qui attendent leur tour.
+     *
+     * @return int le nombre de tâches en attente
+     */
+    public int getNbTaches() {
+        return taches.size();
+    }
+
+    /*
+      Planifie l'exécuteur série sur l'exécuteur partagé, s'il a des tâches et qu'il n'est pas déjà planifié.
+    */
+    private void planifier() {
+        if (taches.isEmpty() || !planifie.compareAndSet(false, true))
+            return;
+        try {
+            partage.execute(this::vider);
+        } catch (RejectedExecutionException e) {
+            taches.clear();
+            planifie.set(false);
+        }
+    }
+
+    /*
+      Exécute un lot de tâches, puis se fait planifier de nouveau s'il en reste. Une tâche qui échoue n'empêche pas
+      les suivantes de s'exécuter.
+    */
+    private void vider() {
+        Runnable tache;
+        try {
+            for (int i = 0; i < TAILLE_LOT && (tache = taches.poll()) != null; i++) {
+                try {
+                    tache.run();
+                } catch (RuntimeException e) {
+                    System.out.println("Traitement erreur : " + e);
+                }
+            }
+        } finally {
+            planifie.set(false);
+            planifier();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.chat.serveur;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Classe utilitaire qui crée les threads des connexions en mode ModeServeur.THREAD_PAR_CONNEXION. Sur une JVM qui
+ * offre les threads virtuels (JDK 21 et plus), ce sont des threads virtuels. Sinon, ce sont des threads ordinaires
+ * en mode démon.
+ */
+public class FabriqueThreads {
+
+    //Fabrique de threads virtuels, ou null si la JVM n'en offre pas :
+    private static final ThreadFactory FABRIQUE_VIRTUELS = chercherFabriqueVirtuels();
+
+    /*
+      Contructeur privé pour empêcher l'instanciation (inutile) de la classe.
+    */
+    private FabriqueThreads() {
+    }
+
+    /**
+     * Crée et démarre un thread qui exécute une tâche.
+     *
+     * @param tache Runnable la tâche à exécuter
+     * @return Thread le thread démarré
+     */
+    public static Thread demarrer(Runnable tache) {
+        Thread thread;
+        if (FABRIQUE_VIRTUELS != null) {
+            thread = FABRIQUE_VIRTUELS.newThread(tache);
+        } else {
+            thread = new Thread(tache);
+            thread.setDaemon(true);
+        }
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Indique si les threads créés par cette fabrique sont des threads virtuels.
+     *
+     * @return boolean true si les threads sont virtuels, false sinon
+     */
+    public static boolean isVirtuels() {
+        return FABRIQUE_VIRTUELS != null;
+    }
+
+    /*
+      Obtient par réflexion Thread.ofVirtual().factory(), pour que le projet compile aussi sur un JDK plus ancien.
+    */
+    private static ThreadFactory chercherFabriqueVirtuels() {
+        try {
+            Object constructeur = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(constructeur);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
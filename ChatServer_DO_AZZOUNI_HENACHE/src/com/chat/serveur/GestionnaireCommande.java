@@ -0,0 +1,23 @@
+package com.chat.serveur;
+
+import com.chat.commun.evenement.Evenement;
+import com.chat.commun.net.Connexion;
+
+/**
+ * Gère un type de commande envoyée par un client au serveur de chat, par exemple MSG ou JOIN. Les gestionnaires de
+ * commandes sont enregistrés dans le registre des commandes du serveur, sous le type de la commande.
+ *
+ * @see RegistreCommandes
+ */
+@FunctionalInterface
+public interface GestionnaireCommande {
+
+    /**
+     * Réagit à une commande envoyée par un client.
+     *
+     * @param evenement Evenement la commande, avec son type et son argument
+     * @param cnx Connexion la connexion du client qui a envoyé la commande
+     * @param serveur ServeurChat le serveur qui a reçu la commande
+     */
+    void traiter(Evenement evenement, Connexion cnx, ServeurChat serveur);
+}
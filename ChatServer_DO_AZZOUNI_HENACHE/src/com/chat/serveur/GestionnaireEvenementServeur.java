@@ -11,206 +11,311 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Cette classe reprsente un gestionnaire d'vnement d'un serveur. Lorsqu'un serveur reoit un texte d'un client,
- * il cre un vnement  partir du texte reu et alerte ce gestionnaire qui ragit en grant l'vnement.
+ * Cette classe représente un gestionnaire d'événement d'un serveur. Lorsqu'un serveur reçoit un texte d'un client,
+ * il crée un événement à partir du texte reçu et alerte ce gestionnaire qui réagit en gérant l'événement.
  *
- * @author Abdelmoumne Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
+ * @author Abdelmoumène Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
  * @version 1.0
  * @since 2023-09-01
  */
 public class GestionnaireEvenementServeur implements GestionnaireEvenement {
-    private Serveur serveur;
+
+    private ServeurChat serveur;
 
     /**
-     * Construit un gestionnaire d'vnements pour un serveur.
+     * Construit un gestionnaire d'événements pour un serveur.
      *
-     * @param serveur Serveur Le serveur pour lequel ce gestionnaire gre des vnements
+     * @param serveur Serveur Le serveur pour lequel ce gestionnaire gère des événements
      */
     public GestionnaireEvenementServeur(Serveur serveur) {
-        this.serveur = serveur;
+        this.serveur = (ServeurChat) serveur;
     }
 
     /**
-     * Mthode de gestion d'vnements. Cette mthode contiendra le code qui gre les rponses obtenues d'un client.
+     * Méthode de gestion d'événements. La commande reçue d'un client est cherchée dans le registre des commandes du
+     * serveur, puis exécutée par son gestionnaire.
      *
-     * @param evenement L'vnement  grer.
+     * @param evenement L'événement à gérer.
      */
     @Override
     public void traiter(Evenement evenement) {
         Object source = evenement.getSource();
         Connexion cnx;
-        String msg, typeEvenement, aliasExpediteur, aliasInvite, listInvitations;
-        boolean utilisateurExiste, invitationSoi;
-        Invitation invitation;
-        int indexSalonPrive;
-        PartieEchecs partieEchecs;
-        ServeurChat serveur = (ServeurChat) this.serveur;
 
         if (source instanceof Connexion) {
             cnx = (Connexion) source;
             System.out.println("SERVEUR-Recu : " + evenement.getType() + " " + evenement.getArgument());
-            typeEvenement = evenement.getType();
-            switch (typeEvenement) {
-                case "EXIT": //Ferme la connexion avec le client qui a envoy "EXIT":
-                    cnx.envoyer("END");
-                    serveur.enlever(cnx);
-                    cnx.close();
-                    break;
-                case "LIST": //Envoie la liste des alias des personnes connectes :
-                    cnx.envoyer("LIST " + serveur.list());
-                    break;
-                case "MSG": //Envoie un message  tous les utilisateurs connects sauf l'expditeur :
-                    aliasExpediteur = cnx.getAlias();
-                    msg = evenement.getArgument();
-                    serveur.envoyerATousSauf(msg, aliasExpediteur);
-                    break;
-                case "HIST": //Affiche l'historique des messages :
-                    cnx.envoyer("HIST " + serveur.historique());
-                    break;
-                case "JOIN": //Invite un utilisateur  chatter en priv ou accepte linvitation qui lui a t
-                    //pralablement envoye par un utilisateur :
-                    aliasExpediteur = cnx.getAlias();
-                    aliasInvite = evenement.getArgument();
-
-                    indexSalonPrive = serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite);
-                    utilisateurExiste = serveur.verifierExistenceUtilisateur(aliasInvite);
-                    invitationSoi = aliasExpediteur.equals(aliasInvite);
-
-                    if (utilisateurExiste && !invitationSoi && indexSalonPrive == -1) {
-                        invitation = serveur.verifierExistenceInvitation(aliasExpediteur, aliasInvite, false);
-
-                        if (invitation != null) {
-                            serveur.traiterJoinInvitationExistente(cnx, aliasExpediteur, aliasInvite, invitation);
-                        } else {
-                            serveur.invitations.add(new Invitation(aliasExpediteur, aliasInvite, false));
-                            cnx.envoyer("Succs de l'invitation!");
-                            serveur.envoyerMessagePrive(aliasInvite).envoyer("JOIN " + aliasExpediteur);
-                        }
-                    }
-
-                    if (indexSalonPrive != -1)
-                        cnx.envoyer("Le salon priv avec " + aliasInvite + " existe dja!");
-
-                    if (!utilisateurExiste)
-                        cnx.envoyer("L'utilisateur " + aliasInvite + " n'existe pas!");
-
-                    if (invitationSoi)
-                        cnx.envoyer("Vous ne pouvez pas vous inviter vous-mme!");
-                    break;
-                case "DECLINE": //Refuse une invitation  chatter en priv d'un utilisateur ou annule une invitation
-                    //qu'il a pralablement envoye  un utilisateur :
-                    aliasExpediteur = cnx.getAlias();
-                    aliasInvite = evenement.getArgument();
-
-                    indexSalonPrive = serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite);
-                    utilisateurExiste = serveur.verifierExistenceUtilisateur(aliasInvite);
-                    invitationSoi = aliasExpediteur.equals(aliasInvite);
-
-                    if (utilisateurExiste && !invitationSoi) {
-                        if (indexSalonPrive == -1) {
-                            invitation = serveur.verifierExistenceInvitation(aliasExpediteur, aliasInvite, false);
-
-                            if (invitation != null) {
-                                serveur.traiterDeclineInvitation(cnx, aliasExpediteur, aliasInvite, invitation);
-                            } else {
-                                cnx.envoyer("Aucune invitation  refuser ou  annuler en lien avec l'utilisateur "
-                                        + aliasInvite + "!");
-                            }
-                        } else {
-                            invitation = serveur.verifierExistenceInvitation(aliasExpediteur, aliasInvite, true);
-
-                            if (invitation != null) {
-                                serveur.traiterDeclineInvitation(cnx, aliasExpediteur, aliasInvite, invitation);
-                            } else {
-                                cnx.envoyer("Aucune invitation  refuser ou  annuler en lien avec l'utilisateur "
-                                        + aliasInvite + "!");
-                            }
-                        }
-                    }
-
-                    if (!utilisateurExiste)
-                        cnx.envoyer("L'utilisateur " + aliasInvite + " n'existe pas!");
-
-                    if (invitationSoi)
-                        cnx.envoyer("Vous ne pouvez pas vous refuser ou annuler une invitation  vous-mme!");
-                    break;
-                case "INV": //Obtenir la liste de tous les alias des personnes qui lui ont envoy des invitations :
-                    aliasExpediteur = cnx.getAlias();
-                    listInvitations = serveur.listInvitations(aliasExpediteur);
-                    cnx.envoyer("INV " + listInvitations);
-                    break;
-                case "PRV": //Envoyer un message  un utilisateur dans un salon priv :
-                    aliasExpediteur = cnx.getAlias();
-                    String aliasMessage = evenement.getArgument();
-                    String[] t;
-
-                    t = EvenementUtil.extraireInfosEvenement(aliasMessage);
-                    aliasInvite = t[0];
-                    msg = aliasExpediteur + ">>" + t[1];
-
-                    indexSalonPrive = serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite);
-
-                    if (indexSalonPrive != -1)
-                        serveur.envoyerMessagePrive(aliasInvite).envoyer(msg);
-                    else
-                        cnx.envoyer("Le salon priv avec " + aliasInvite + " n'existe pas!");
-                    break;
-                case "QUIT": //Quitter le salon priv avec un utilisateur :
-                    aliasExpediteur = cnx.getAlias();
-                    aliasInvite = evenement.getArgument();
-
-                    indexSalonPrive = serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite);
-
-                    if (indexSalonPrive != -1) {
-                        serveur.salonsPrives.remove(new SalonPrive(aliasExpediteur, aliasInvite));
-                        cnx.envoyer("Vous avez quitt le salon priv avec succs!");
-                        serveur.envoyerMessagePrive(aliasInvite).envoyer("QUIT " + aliasExpediteur);
-                    } else
-                        cnx.envoyer("Le salon priv avec " + aliasInvite + " n'existe pas!");
-                    break;
-                case "CHESS": //Invite ou accepte une invitation pour une partie de jeu dchecs
-                    aliasExpediteur = cnx.getAlias();
-                    aliasInvite = evenement.getArgument();
-
-                    indexSalonPrive = serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite);
-
-                    invitation = serveur.verifierExistenceInvitation(aliasExpediteur, aliasInvite, true);
-
-                    if (indexSalonPrive != -1) {
-                        if (serveur.salonsPrives.get(indexSalonPrive).getPartieEchecs() == null) {
-                            if (invitation != null)
-                                serveur.traiterJoinInvitationExistente(cnx, aliasExpediteur, aliasInvite, invitation);
-                            else {
-                                serveur.invitationsEchec.add(new Invitation(aliasExpediteur, aliasInvite, true));
-                                cnx.envoyer("Succs de l'invitation!");
-                                serveur.envoyerMessagePrive(aliasInvite).envoyer("CHESS " + aliasExpediteur);
-                            }
-                        } else
-                            cnx.envoyer("Vous tes dj en partie d'chec avec quelqu'un!");
-                    } else
-                        cnx.envoyer("Le salon priv avec " + aliasInvite + " n'existe pas!");
-                    break;
-                case "MOVE" : //Effectue un dplacement de pice dans une partie de jeu dchecs
-                    serveur.traiterMouvement(evenement, cnx);
-                    break;
-                case "ABANDON" : //Abandonne une partie dchecs.
-                    aliasExpediteur = cnx.getAlias();
-                    indexSalonPrive = serveur.rechercheSalonPrive(aliasExpediteur);
-                    if (indexSalonPrive != -1 && serveur.salonsPrives.get(indexSalonPrive).getPartieEchecs() != null) {
-                        partieEchecs = serveur.salonsPrives.get(indexSalonPrive).getPartieEchecs();
-                        String aliasEnnemi = aliasExpediteur.equals(partieEchecs.getAliasJoueur1()) ?
-                                partieEchecs.getAliasJoueur2() : partieEchecs.getAliasJoueur1();
-
-                        cnx.envoyer("ABANDON " + aliasEnnemi);
-                        serveur.envoyerMessagePrive(aliasEnnemi).envoyer("ABANDON " + aliasEnnemi);
-                        serveur.salonsPrives.get(indexSalonPrive).setPartieEchecs(null);
-                    } else
-                        cnx.envoyer("Vous n'tes pas dans une partie d'chec!");
-                    break;
-                default: //Renvoyer le texte recu convertit en majuscules :
-                    msg = (evenement.getType() + " " + evenement.getArgument()).toUpperCase();
-                    cnx.envoyer(msg);
+            RegistreCommandes.Commande commande = serveur.getCommandes().chercher(evenement.getType());
+            if (commande == null)
+                return;
+            //Dans une grappe, une commande qui concerne un salon privé est traitée par le noeud qui l'héberge, qui
+            //répond lui-même à une requête identifiée. Une commande qui vient déjà d'un autre noeud (connexion
+            //distante) n'est jamais transmise de nouveau.
+            if (commande.isSalons() && serveur.getGrappe() != null && !(cnx instanceof ConnexionDistante)) {
+                String noeud = serveur.getGrappe().getNoeudCommande(cnx.getAlias(), evenement.getType(),
+                        evenement.getArgument());
+                if (noeud != null) {
+                    cnx.deleguerRequete();
+                    serveur.getGrappe().transmettreCommande(noeud, cnx.getAlias(), evenement.getType(),
+                            evenement.getArgument(), evenement.getIdRequete());
+                    return;
+                }
+            }
+            //Les clients sont servis en parallèle : les commandes qui touchent aux invitations et aux salons privés
+            //sont traitées une à la fois, les autres sans attendre.
+            if (commande.isVerrouSalons()) {
+                synchronized (serveur.verrouSalons) {
+                    commande.executer(evenement, cnx, serveur);
+                }
+            } else
+                commande.executer(evenement, cnx, serveur);
+        }
+    }
+
+    /**
+     * Enregistre les commandes du serveur de chat dans un registre des commandes.
+     *
+     * @param registre RegistreCommandes le registre des commandes du serveur
+     */
+    public static void enregistrerCommandes(RegistreCommandes registre) {
+        registre.enregistrer("EXIT", GestionnaireEvenementServeur::traiterExit);
+        registre.enregistrer("PING", (evenement, cnx, serveur) -> cnx.envoyer("PONG"));
+        //Réponse à un PING du serveur, dont l'arrivée a déjà été notée par la connexion :
+        registre.enregistrer("PONG", (evenement, cnx, serveur) -> { });
+        registre.enregistrer("PROTO", GestionnaireEvenementServeur::traiterProto);
+        registre.enregistrer("STATS", GestionnaireEvenementServeur::traiterStats);
+        registre.enregistrer("LIST", (evenement, cnx, serveur) -> cnx.envoyer("LIST " + serveur.list()));
+        registre.enregistrer("MSG", GestionnaireEvenementServeur::traiterMsg);
+        registre.enregistrer("HIST", (evenement, cnx, serveur) -> cnx.envoyer("HIST " + serveur.historique()));
+        registre.enregistrerSalons("JOIN", GestionnaireEvenementServeur::traiterJoin);
+        registre.enregistrerSalons("DECLINE", GestionnaireEvenementServeur::traiterDecline);
+        registre.enregistrerSalons("INV", GestionnaireEvenementServeur::traiterInv);
+        registre.enregistrerSalons("PRV", GestionnaireEvenementServeur::traiterPrv);
+        registre.enregistrerSalons("QUIT", GestionnaireEvenementServeur::traiterQuit);
+        registre.enregistrerSalons("CHESS", GestionnaireEvenementServeur::traiterChess);
+        registre.enregistrerPartie("MOVE", (evenement, cnx, serveur) -> serveur.traiterMouvement(evenement, cnx));
+        registre.enregistrerSalons("ABANDON", GestionnaireEvenementServeur::traiterAbandon);
+        registre.enregistrerDefaut(GestionnaireEvenementServeur::traiterInconnue);
+    }
+
+    /*
+      Ferme la connexion avec le client qui a envoyé "EXIT", sans garder sa session.
+    */
+    private static void traiterExit(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        serveur.fermerSession(cnx.getAlias());
+        serveur.deconnecter(cnx);
+    }
+
+    /*
+      Le client choisit les options des trames que le serveur lui envoie, format (BIN ou TEXTE) et compression
+      (DEFLATE ou BRUT), et reçoit en confirmation les options en vigueur.
+    */
+    private static void traiterProto(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        boolean binaire = cnx.isBinaire(), compression = cnx.isCompression();
+        for (String option : evenement.getArgument().toUpperCase().split(" ")) {
+            if ("BIN".equals(option) || "TEXTE".equals(option))
+                binaire = "BIN".equals(option);
+            else if ("DEFLATE".equals(option) || "BRUT".equals(option))
+                compression = "DEFLATE".equals(option);
+        }
+        //La confirmation est encore envoyée avec les anciennes options :
+        cnx.envoyer("PROTO " + (binaire ? "BIN" : "TEXTE") + (compression ? " DEFLATE" : " BRUT"));
+        cnx.setBinaire(binaire);
+        cnx.setCompression(compression);
+    }
+
+    /*
+      Envoie l'activité des connexions les plus actives et des commandes, si le client donne le bon jeton.
+    */
+    private static void traiterStats(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        if (serveur.verifierJetonAdministration(evenement.getArgument()))
+            cnx.envoyer("STATS " + serveur.rapportConnexions(Config.NB_CONNEXIONS_STATS) + "\n"
+                    + serveur.getCommandes().rapport());
+        else
+            cnx.envoyer("Commande STATS non autorisée!");
+    }
+
+    /*
+      Envoie un message à tous les utilisateurs connectés sauf l'expéditeur.
+    */
+    private static void traiterMsg(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        serveur.envoyerATousSauf(evenement.getArgument(), cnx.getAlias());
+    }
+
+    /*
+      Invite un utilisateur à chatter en privé ou accepte l'invitation qui lui a été préalablement envoyée par un
+      utilisateur.
+    */
+    private static void traiterJoin(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        String aliasExpediteur = cnx.getAlias();
+        String aliasInvite = evenement.getArgument();
+        Invitation invitation;
+
+        int indexSalonPrive = serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite);
+        boolean utilisateurExiste = serveur.verifierExistenceUtilisateur(aliasInvite);
+        boolean invitationSoi = aliasExpediteur.equals(aliasInvite);
+
+        if (utilisateurExiste && !invitationSoi && indexSalonPrive == -1) {
+            invitation = serveur.verifierExistenceInvitation(aliasExpediteur, aliasInvite, false);
+
+            if (invitation != null) {
+                serveur.traiterJoinInvitationExistente(cnx, aliasExpediteur, aliasInvite, invitation);
+            } else {
+                serveur.invitations.add(new Invitation(aliasExpediteur, aliasInvite, false));
+                cnx.envoyer("Succès de l'invitation!");
+                serveur.envoyerMessagePrive(aliasInvite).envoyer("JOIN " + aliasExpediteur);
+            }
+        }
+
+        if (indexSalonPrive != -1)
+            cnx.envoyer("Le salon privé avec " + aliasInvite + " existe déja!");
+
+        if (!utilisateurExiste)
+            cnx.envoyer("L'utilisateur " + aliasInvite + " n'existe pas!");
+
+        if (invitationSoi)
+            cnx.envoyer("Vous ne pouvez pas vous inviter vous-même!");
+    }
+
+    /*
+      Refuse une invitation à chatter en privé d'un utilisateur ou annule une invitation qu'il a préalablement envoyée
+      à un utilisateur.
+    */
+    private static void traiterDecline(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        String aliasExpediteur = cnx.getAlias();
+        String aliasInvite = evenement.getArgument();
+        Invitation invitation;
+
+        int indexSalonPrive = serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite);
+        boolean utilisateurExiste = serveur.verifierExistenceUtilisateur(aliasInvite);
+        boolean invitationSoi = aliasExpediteur.equals(aliasInvite);
+
+        if (utilisateurExiste && !invitationSoi) {
+            if (indexSalonPrive == -1) {
+                invitation = serveur.verifierExistenceInvitation(aliasExpediteur, aliasInvite, false);
+
+                if (invitation != null) {
+                    serveur.traiterDeclineInvitation(cnx, aliasExpediteur, aliasInvite, invitation);
+                } else {
+                    cnx.envoyer("Aucune invitation à refuser ou à annuler en lien avec l'utilisateur "
+                            + aliasInvite + "!");
+                }
+            } else {
+                invitation = serveur.verifierExistenceInvitation(aliasExpediteur, aliasInvite, true);
+
+                if (invitation != null) {
+                    serveur.traiterDeclineInvitation(cnx, aliasExpediteur, aliasInvite, invitation);
+                } else {
+                    cnx.envoyer("Aucune invitation à refuser ou à annuler en lien avec l'utilisateur "
+                            + aliasInvite + "!");
+                }
             }
         }
+
+        if (!utilisateurExiste)
+            cnx.envoyer("L'utilisateur " + aliasInvite + " n'existe pas!");
+
+        if (invitationSoi)
+            cnx.envoyer("Vous ne pouvez pas vous refuser ou annuler une invitation à vous-même!");
+    }
+
+    /*
+      Envoie la liste de tous les alias des personnes qui ont envoyé des invitations au client.
+    */
+    private static void traiterInv(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        cnx.envoyer("INV " + serveur.listInvitations(cnx.getAlias()));
+    }
+
+    /*
+      Envoie un message à un utilisateur dans un salon privé. Le message lui parvient sous la forme PRV alias>>texte,
+      pour qu'il ne le confonde pas avec un message du salon public (alias>>texte), qui a un numéro de séquence.
+    */
+    private static void traiterPrv(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        String aliasExpediteur = cnx.getAlias();
+        String[] t = EvenementUtil.extraireInfosEvenement(evenement.getArgument());
+        String aliasInvite = t[0];
+        String msg = "PRV " + aliasExpediteur + ">>" + t[1];
+
+        if (serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite) != -1)
+            serveur.envoyerMessagePrive(aliasInvite).envoyer(msg);
+        else
+            cnx.envoyer("Le salon privé avec " + aliasInvite + " n'existe pas!");
+    }
+
+    /*
+      Quitte le salon privé avec un utilisateur.
+    */
+    private static void traiterQuit(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        String aliasExpediteur = cnx.getAlias();
+        String aliasInvite = evenement.getArgument();
+
+        int indexSalonPrive = serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite);
+        if (indexSalonPrive != -1) {
+            serveur.retirerSalon(serveur.salonsPrives.get(indexSalonPrive));
+            cnx.envoyer("Vous avez quitté le salon privé avec succès!");
+            serveur.envoyerMessagePrive(aliasInvite).envoyer("QUIT " + aliasExpediteur);
+        } else
+            cnx.envoyer("Le salon privé avec " + aliasInvite + " n'existe pas!");
+    }
+
+    /*
+      Invite ou accepte une invitation pour une partie de jeu d'échecs.
+    */
+    private static void traiterChess(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        String aliasExpediteur = cnx.getAlias();
+        String aliasInvite = evenement.getArgument();
+
+        int indexSalonPrive = serveur.verifierExistenceSalonPrive(aliasExpediteur, aliasInvite);
+        Invitation invitation = serveur.verifierExistenceInvitation(aliasExpediteur, aliasInvite, true);
+
+        if (indexSalonPrive != -1) {
+            if (serveur.salonsPrives.get(indexSalonPrive).getPartieEchecs() == null) {
+                if (invitation != null)
+                    serveur.traiterJoinInvitationExistente(cnx, aliasExpediteur, aliasInvite, invitation);
+                else {
+                    serveur.invitationsEchec.add(new Invitation(aliasExpediteur, aliasInvite, true));
+                    cnx.envoyer("Succès de l'invitation!");
+                    serveur.envoyerMessagePrive(aliasInvite).envoyer("CHESS " + aliasExpediteur);
+                }
+            } else
+                cnx.envoyer("Vous êtes déjà en partie d'échec avec quelqu'un!");
+        } else
+            cnx.envoyer("Le salon privé avec " + aliasInvite + " n'existe pas!");
+    }
+
+    /*
+      Abandonne une partie d'échecs.
+    */
+    private static void traiterAbandon(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        String aliasExpediteur = cnx.getAlias();
+        int indexSalonPrive = serveur.rechercheSalonPrive(aliasExpediteur);
+        if (indexSalonPrive != -1 && serveur.salonsPrives.get(indexSalonPrive).getPartieEchecs() != null) {
+            SalonPrive salonPrive = serveur.salonsPrives.get(indexSalonPrive);
+            PartieEchecs partieEchecs = salonPrive.getPartieEchecs();
+            String aliasEnnemi = aliasExpediteur.equals(partieEchecs.getAliasJoueur1()) ?
+                    partieEchecs.getAliasJoueur2() : partieEchecs.getAliasJoueur1();
+
+            //La partie est terminée sous son verrou : les réponses d'un mouvement en cours arrivent aux joueurs
+            //avant ABANDON, et aucun mouvement n'est plus accepté ensuite. Ce mouvement a pu mettre fin à la partie.
+            synchronized (partieEchecs) {
+                if (salonPrive.getPartieEchecs() != partieEchecs) {
+                    cnx.envoyer("Vous n'êtes pas dans une partie d'échec!");
+                    return;
+                }
+                salonPrive.setPartieEchecs(null);
+            }
+            cnx.envoyer("ABANDON " + aliasEnnemi);
+            Connexion ennemi = serveur.envoyerMessagePrive(aliasEnnemi);
+            if (ennemi != null)
+                ennemi.envoyer("ABANDON " + aliasEnnemi);
+        } else
+            cnx.envoyer("Vous n'êtes pas dans une partie d'échec!");
+    }
+
+    /*
+      Renvoie le texte d'une commande inconnue, converti en majuscules.
+    */
+    private static void traiterInconnue(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+        cnx.envoyer((evenement.getType() + " " + evenement.getArgument()).toUpperCase());
     }
 }
@@ -0,0 +1,414 @@
+package com.chat.serveur;
+
+import com.chat.commun.evenement.Evenement;
+import com.chat.commun.evenement.EvenementUtil;
+import com.chat.commun.net.Connexion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cette classe relie un serveur de chat aux autres noeuds d'une grappe, avec lesquels il partage le salon public.
+ * Les noeuds s'échangent sur un bus les messages suivants :
+ * <ul>
+ *     <li>MSG noeud alias message : un message du salon public, envoyé par un connecté du noeud ;</li>
+ *     <li>ARRIVEE noeud alias et DEPART noeud alias : l'arrivée et le départ d'un connecté du noeud ;</li>
+ *     <li>SUSPENSION noeud alias : un connecté du noeud a perdu sa connexion, mais peut reprendre sa session. Les
+ *     autres noeuds mettent ses salons privés de côté et lui réservent son alias jusqu'à son retour (ARRIVEE) ou
+ *     jusqu'à l'expiration de sa session (DEPART) ;</li>
+ *     <li>BONJOUR noeud : un noeud vient de rejoindre la grappe. Chacun des autres lui répond par
+ *     MEMBRES noeud alias1:alias2:..., la liste de ses connectés ;</li>
+ *     <li>AUREVOIR noeud : un noeud a quitté la grappe, avec tous ses connectés ;</li>
+ *     <li>COMMANDE noeud destination alias [#id] type argument : une commande d'un connecté du noeud (JOIN, PRV,
+ *     CHESS...), que le noeud destination traite parce qu'il héberge le salon privé qu'elle concerne. Si la commande
+ *     est une requête identifiée (#42), c'est le noeud destination qui y répond : ses réponses au connecté portent
+ *     le même préfixe, et il envoie #42 ACK si elle n'en a aucune ;</li>
+ *     <li>ENVOI noeud destination alias texte : un texte que le noeud destination envoie à son connecté alias ;</li>
+ *     <li>PARTIE noeud alias1 alias2 : une partie d'échecs a commencé dans un salon privé hébergé par le noeud.</li>
+ * </ul>
+ * Chaque noeud connaît ainsi les connectés de tous les autres, pour la commande LIST et pour refuser un alias déjà
+ * utilisé ailleurs dans la grappe. Cet annuaire des alias sert aussi à choisir le noeud qui héberge le salon privé
+ * de deux connectés : c'est toujours le noeud de l'un des deux, choisi par hachage de rendez-vous, pour qu'une
+ * commande ne fasse jamais plus d'un saut sur le bus et que les salons se répartissent entre les noeuds.
+ */
+public class Grappe {
+
+    private final String idNoeud;
+    private final BusGrappe bus;
+    private final ServeurChat serveur;
+    //Connectés des autres noeuds, par noeud :
+    private final Map<String, Set<String>> membres = new ConcurrentHashMap<>();
+    //Connectés suspendus des autres noeuds, avec leur noeud :
+    private final Map<String, String> suspendus = new ConcurrentHashMap<>();
+    //Noeud qui héberge la dernière partie d'échecs commencée par chaque connecté, si ce n'est pas ce noeud :
+    private final Map<String, String> parties = new ConcurrentHashMap<>();
+    //Requête identifiée d'un connecté d'un autre noeud que le thread courant est en train de traiter :
+    private final ThreadLocal<RequeteDistante> requeteEnCours = new ThreadLocal<>();
+
+    //Requête identifiée (#42) transmise par un autre noeud, et nombre de réponses déjà envoyées à son expéditeur :
+    private static class RequeteDistante {
+        private final String id, noeud, alias;
+        private int nbReponses;
+
+        RequeteDistante(String id, String noeud, String alias) {
+            this.id = id;
+            this.noeud = noeud;
+            this.alias = alias;
+        }
+    }
+
+    /**
+     * Construit le lien d'un serveur avec une grappe.
+     *
+     * @param idNoeud String l'identifiant du noeud, unique dans la grappe et sans espace
+     * @param bus BusGrappe le bus qui relie les noeuds de la grappe
+     * @param serveur ServeurChat le serveur de ce noeud
+     */
+    public Grappe(String idNoeud, BusGrappe bus, ServeurChat serveur) {
+        this.idNoeud = idNoeud;
+        this.bus = bus;
+        this.serveur = serveur;
+    }
+
+    /**
+     * Relie le noeud au bus et s'annonce aux autres noeuds.
+     *
+     * @throws IOException si le bus ne peut pas être joint
+     */
+    public void demarrer() throws IOException {
+        bus.demarrer(this::recevoir);
+        bus.publier("BONJOUR " + idNoeud);
+    }
+
+    /**
+     * Annonce le départ du noeud aux autres noeuds et le détache du bus.
+     */
+    public void arreter() {
+        bus.publier("AUREVOIR " + idNoeud);
+        bus.arreter();
+        membres.clear();
+    }
+
+    /**
+     * Annonce aux autres noeuds l'arrivée d'un connecté.
+     *
+     * @param alias String l'alias du connecté
+     */
+    public void annoncerArrivee(String alias) {
+        bus.publier("ARRIVEE " + idNoeud + " " + alias);
+    }
+
+    /**
+     * Annonce aux autres noeuds la suspension de la session d'un connecté qui a perdu sa connexion. Son départ sera
+     * annoncé si sa session expire.
+     *
+     * @param alias String l'alias du connecté
+     */
+    public void annoncerSuspension(String alias) {
+        bus.publier("SUSPENSION " + idNoeud + " " + alias);
+    }
+
+    /**
+     * Annonce aux autres noeuds le départ d'un connecté.
+     *
+     * @param alias String l'alias du connecté
+     */
+    public void annoncerDepart(String alias) {
+        parties.remove(alias);
+        bus.publier("DEPART " + idNoeud + " " + alias);
+    }
+
+    /**
+     * Annonce aux autres noeuds qu'une partie d'échecs a commencé dans un salon privé de ce noeud, pour que les
+     * noeuds des deux joueurs y transmettent leurs coups.
+     *
+     * @param alias1 String l'alias d'un joueur
+     * @param alias2 String l'alias de l'autre joueur
+     */
+    public void annoncerPartie(String alias1, String alias2) {
+        bus.publier("PARTIE " + idNoeud + " " + alias1 + " " + alias2);
+    }
+
+    /**
+     * Retourne le noeud qui doit traiter une commande d'un connecté de ce noeud, parce qu'il héberge le salon privé
+     * qu'elle concerne : celui de l'alias en argument pour JOIN, DECLINE, QUIT et CHESS, du premier mot de
+     * l'argument pour PRV, ou celui de la partie d'échecs en cours pour MOVE et ABANDON.
+     *
+     * @param alias String l'alias du connecté qui a envoyé la commande
+     * @param type String le type de la commande
+     * @param argument String l'argument de la commande
+     * @return String l'identifiant du noeud, ou null si la commande est traitée par ce noeud
+     */
+    public String getNoeudCommande(String alias, String type, String argument) {
+        String noeud;
+        switch (type) {
+            case "JOIN":
+            case "DECLINE":
+            case "QUIT":
+            case "CHESS":
+                noeud = getProprietaire(alias, argument.trim());
+                break;
+            case "PRV":
+                noeud = getProprietaire(alias, EvenementUtil.extraireInfosEvenement(argument)[0]);
+                break;
+            case "MOVE":
+            case "ABANDON":
+                //Une partie de ce noeud passe avant celle, peut-être terminée, annoncée par un autre noeud :
+                noeud = serveur.chercherPartie(alias) != null ? idNoeud : parties.get(alias);
+                break;
+            default:
+                noeud = idNoeud;
+        }
+        return noeud == null || idNoeud.equals(noeud) ? null : noeud;
+    }
+
+    /*
+      Retourne le noeud qui héberge le salon privé de deux connectés : le noeud de l'un des deux, celui qui obtient le
+      plus grand hachage avec le salon (hachage de rendez-vous). Un alias inconnu des autres noeuds est considéré
+      comme un connecté de ce noeud, qui répondra qu'il n'existe pas.
+    */
+    private String getProprietaire(String alias1, String alias2) {
+        String noeud1 = getNoeudDistant(alias1), noeud2 = getNoeudDistant(alias2);
+        noeud1 = noeud1 == null ? idNoeud : noeud1;
+        noeud2 = noeud2 == null ? idNoeud : noeud2;
+        if (noeud1.equals(noeud2))
+            return noeud1;
+        String salon = alias1.compareTo(alias2) < 0 ? alias1 + ":" + alias2 : alias2 + ":" + alias1;
+        return hacher(salon, noeud1) >= hacher(salon, noeud2) ? noeud1 : noeud2;
+    }
+
+    private static int hacher(String salon, String noeud) {
+        int h = (salon + "@" + noeud).hashCode();
+        //Mélange des bits, pour que des noms voisins ne donnent pas des hachages voisins :
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /**
+     * Transmet une commande d'un connecté de ce noeud au noeud qui héberge le salon privé qu'elle concerne.
+     *
+     * @param noeud String l'identifiant du noeud qui traite la commande
+     * @param alias String l'alias du connecté qui a envoyé la commande
+     * @param type String le type de la commande
+     * @param argument String l'argument de la commande
+     * @param idRequete String l'identifiant de la requête, sans le #, ou null si la commande n'est pas identifiée
+     */
+    public void transmettreCommande(String noeud, String alias, String type, String argument, String idRequete) {
+        bus.publier("COMMANDE " + idNoeud + " " + noeud + " " + alias + " " + (idRequete == null ? "" : "#" + idRequete
+                + " ") + type + " " + argument);
+    }
+
+    /**
+     * Fait envoyer un texte à un connecté d'un autre noeud, par ce noeud. Si le thread courant traite une requête
+     * identifiée de ce connecté, le texte est une réponse à la requête et en porte l'identifiant.
+     *
+     * @param noeud String l'identifiant du noeud du connecté
+     * @param alias String l'alias du connecté
+     * @param texte String le texte
+     */
+    public void envoyer(String noeud, String alias, String texte) {
+        RequeteDistante requete = requeteEnCours.get();
+        if (requete != null && requete.noeud.equals(noeud) && requete.alias.equals(alias)) {
+            texte = "#" + requete.id + " " + texte;
+            requete.nbReponses++;
+        }
+        bus.publier("ENVOI " + idNoeud + " " + noeud + " " + alias + " " + texte);
+    }
+
+    /**
+     * Publie aux autres noeuds un message du salon public, pour qu'ils l'envoient à leurs connectés.
+     *
+     * @param aliasExpediteur String l'alias du connecté qui a envoyé le message
+     * @param message String le message, tel qu'il est envoyé aux connectés (alias>>texte)
+     */
+    public void publierMessage(String aliasExpediteur, String message) {
+        bus.publier("MSG " + idNoeud + " " + aliasExpediteur + " " + message);
+    }
+
+    /*
+      Traite un message publié par un autre noeud.
+    */
+    private void recevoir(String message) {
+        String[] t = message.split(" ", 3);
+        String type = t[0], noeud = t.length > 1 ? t[1] : "", reste = t.length > 2 ? t[2] : "";
+        if (idNoeud.equals(noeud))
+            return;
+        switch (type) {
+            case "MSG":
+                t = reste.split(" ", 2);
+                if (t.length == 2)
+                    serveur.diffuserLocalement(t[1], t[0]);
+                break;
+            case "ARRIVEE":
+                membres.computeIfAbsent(noeud, n -> ConcurrentHashMap.newKeySet()).add(reste);
+                //Un connecté qui reprend sa session retrouve ses salons privés de ce noeud :
+                if (suspendus.remove(reste) != null)
+                    serveur.reprendreSalons(reste);
+                break;
+            case "SUSPENSION":
+                Set<String> aliasSuspendus = membres.get(noeud);
+                if (aliasSuspendus != null)
+                    aliasSuspendus.remove(reste);
+                suspendus.put(reste, noeud);
+                serveur.suspendreSalons(reste);
+                break;
+            case "DEPART":
+                Set<String> aliasNoeud = membres.get(noeud);
+                if (aliasNoeud != null)
+                    aliasNoeud.remove(reste);
+                suspendus.remove(reste);
+                parties.remove(reste);
+                serveur.libererSalons(reste);
+                break;
+            case "BONJOUR":
+                membres.putIfAbsent(noeud, ConcurrentHashMap.newKeySet());
+                StringBuilder liste = new StringBuilder();
+                for (Connexion cnx : serveur.connectes)
+                    liste.append(cnx.getAlias()).append(':');
+                bus.publier("MEMBRES " + idNoeud + " " + liste);
+                break;
+            case "MEMBRES":
+                Set<String> aliasMembres = ConcurrentHashMap.newKeySet();
+                for (String alias : reste.split(":"))
+                    if (!alias.isEmpty())
+                        aliasMembres.add(alias);
+                membres.put(noeud, aliasMembres);
+                break;
+            case "AUREVOIR":
+                List<Set<String>> partis = new ArrayList<>();
+                if ("*".equals(noeud)) {
+                    partis.addAll(membres.values());
+                    membres.clear();
+                } else if (membres.containsKey(noeud))
+                    partis.add(membres.remove(noeud));
+                //Les connectés suspendus du noeud ne reviendront pas :
+                Set<String> suspendusPartis = new HashSet<>();
+                for (Map.Entry<String, String> entree : suspendus.entrySet())
+                    if ("*".equals(noeud) || entree.getValue().equals(noeud))
+                        suspendusPartis.add(entree.getKey());
+                suspendus.keySet().removeAll(suspendusPartis);
+                partis.add(suspendusPartis);
+                for (Set<String> aliasPartis : partis)
+                    for (String alias : aliasPartis) {
+                        parties.remove(alias);
+                        serveur.libererSalons(alias);
+                    }
+                break;
+            case "COMMANDE":
+            case "ENVOI":
+            case "PARTIE":
+                recevoirDestine(type, noeud, reste);
+                break;
+        }
+    }
+
+    /*
+      Traite un message destiné à ce noeud (COMMANDE et ENVOI), ou qui concerne ses connectés (PARTIE).
+    */
+    private void recevoirDestine(String type, String noeud, String reste) {
+        String[] t = reste.split(" ", 4);
+        if ("PARTIE".equals(type)) {
+            if (t.length > 1) {
+                parties.put(t[0], noeud);
+                parties.put(t[1], noeud);
+            }
+            return;
+        }
+        if (t.length < 3 || !idNoeud.equals(t[0]))
+            return;
+        if ("COMMANDE".equals(type)) {
+            //La commande est traitée comme celle d'un connecté de ce noeud, à qui les réponses sont renvoyées :
+            Connexion cnx = new ConnexionDistante(t[1], noeud, this);
+            String[] infos = EvenementUtil.extraireInfosRequete(t[2] + (t.length > 3 ? " " + t[3] : ""));
+            Evenement evenement = new Evenement(cnx, infos[1], infos[2], infos[0]);
+            if (infos[0] == null) {
+                serveur.gestionnaireEvenementServeur.traiter(evenement);
+                return;
+            }
+            RequeteDistante requete = new RequeteDistante(infos[0], noeud, t[1]);
+            requeteEnCours.set(requete);
+            try {
+                serveur.gestionnaireEvenementServeur.traiter(evenement);
+            } finally {
+                requeteEnCours.remove();
+                if (requete.nbReponses == 0)
+                    envoyer(noeud, t[1], "#" + infos[0] + " ACK");
+            }
+        } else {
+            Connexion cnx = serveur.envoyerMessagePrive(t[1]);
+            String texte = t[2] + (t.length > 3 ? " " + t[3] : "");
+            //La classe de la trame, pour les limites de la file d'envoi, ne tient pas compte du préfixe #42 :
+            if (cnx != null && !(cnx instanceof ConnexionDistante))
+                cnx.envoyer(texte, EvenementUtil.extraireInfosRequete(texte)[1]);
+        }
+    }
+
+    /**
+     * Retourne les alias des connectés des autres noeuds.
+     *
+     * @return List la liste des alias
+     */
+    public List<String> getAliasDistants() {
+        List<String> alias = new ArrayList<>();
+        for (Set<String> aliasNoeud : membres.values())
+            alias.addAll(aliasNoeud);
+        return alias;
+    }
+
+    /**
+     * Retourne le noeud où est connecté un alias, parmi les autres noeuds de la grappe, ou celui où sa session est
+     * suspendue : l'alias y est réservé.
+     *
+     * @param alias String l'alias cherché, sans tenir compte des majuscules
+     * @return String l'identifiant du noeud, ou null si l'alias n'est connecté, ni suspendu, à aucun autre noeud
+     */
+    public String getNoeud(String alias) {
+        for (Map.Entry<String, Set<String>> entree : membres.entrySet())
+            for (String a : entree.getValue())
+                if (a.equalsIgnoreCase(alias))
+                    return entree.getKey();
+        for (Map.Entry<String, String> entree : suspendus.entrySet())
+            if (entree.getKey().equalsIgnoreCase(alias))
+                return entree.getValue();
+        return null;
+    }
+
+    /**
+     * Retourne le noeud où est connecté un alias, parmi les autres noeuds de la grappe, en tenant compte des
+     * majuscules comme pour les salons privés.
+     *
+     * @param alias String l'alias cherché
+     * @return String l'identifiant du noeud, ou null si l'alias n'est connecté à aucun autre noeud
+     */
+    public String getNoeudDistant(String alias) {
+        for (Map.Entry<String, Set<String>> entree : membres.entrySet())
+            if (entree.getValue().contains(alias))
+                return entree.getKey();
+        return null;
+    }
+
+    /**
+     * Retourne l'identifiant de ce noeud.
+     *
+     * @return String l'identifiant du noeud
+     */
+    public String getIdNoeud() {
+        return idNoeud;
+    }
+
+    /**
+     * Retourne les identifiants des autres noeuds connus de la grappe.
+     *
+     * @return List la liste des identifiants
+     */
+    public List<String> getNoeuds() {
+        return new ArrayList<>(membres.keySet());
+    }
+}
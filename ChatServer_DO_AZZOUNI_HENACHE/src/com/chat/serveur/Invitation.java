@@ -30,7 +30,7 @@ public class Invitation {
 
     @Override
     public boolean equals(Object obj) {
-        if (this == obj) //les 2 objets sont en fait le mme
+        if (this == obj) //les 2 objets sont en fait le même
             return true;
         if (obj == null)
             return false;
@@ -0,0 +1,19 @@
+package com.chat.serveur;
+
+/**
+ * Modèles de lecture que peut utiliser un serveur pour recevoir le texte de ses clients.
+ */
+public enum ModeServeur {
+    /**
+     * Un thread scanne tous les connectés toutes les 100 ms (mode d'origine, conservé comme solution de repli).
+     */
+    SCRUTATION,
+    /**
+     * Un sélecteur NIO réveille le serveur uniquement lorsque des clients ont envoyé du texte.
+     */
+    NIO,
+    /**
+     * Chaque connexion a son propre thread (virtuel si la JVM le permet) qui bloque en lecture sur le socket.
+     */
+    THREAD_PAR_CONNEXION
+}
@@ -0,0 +1,182 @@
+package com.chat.serveur;
+
+import com.chat.commun.evenement.Evenement;
+import com.chat.commun.net.Connexion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registre des commandes du serveur de chat : associe à chaque type de commande son gestionnaire. La commande d'un
+ * client est cherchée une seule fois dans le registre, puis exécutée ; chaque exécution est comptée et chronométrée,
+ * pour voir quelles commandes occupent le serveur. Une nouvelle commande s'ajoute en enregistrant son gestionnaire,
+ * même pendant que le serveur fonctionne.
+ */
+public class RegistreCommandes {
+
+    /**
+     * Commande enregistrée : son gestionnaire et ses compteurs d'exécutions.
+     */
+    public static class Commande {
+        private final String type;
+        private final GestionnaireCommande gestionnaire;
+        private final boolean salons;
+        private final boolean verrouSalons;
+        private final LongAdder nbExecutions = new LongAdder();
+        private final LongAdder dureeTotale = new LongAdder();
+        private final LongAccumulator dureeMax = new LongAccumulator(Long::max, 0);
+
+        Commande(String type, GestionnaireCommande gestionnaire, boolean salons, boolean verrouSalons) {
+            this.type = type;
+            this.gestionnaire = gestionnaire;
+            this.salons = salons;
+            this.verrouSalons = verrouSalons;
+        }
+
+        /**
+         * Exécute la commande d'un client et note la durée de l'exécution.
+         *
+         * @param evenement Evenement la commande
+         * @param cnx Connexion la connexion du client qui a envoyé la commande
+         * @param serveur ServeurChat le serveur qui a reçu la commande
+         */
+        public void executer(Evenement evenement, Connexion cnx, ServeurChat serveur) {
+            long debut = System.nanoTime();
+            try {
+                gestionnaire.traiter(evenement, cnx, serveur);
+            } finally {
+                long duree = System.nanoTime() - debut;
+                nbExecutions.increment();
+                dureeTotale.add(duree);
+                dureeMax.accumulate(duree);
+            }
+        }
+
+        /**
+         * Indique si la commande concerne un salon privé : dans une grappe, elle est alors exécutée par le noeud qui
+         * héberge le salon.
+         *
+         * @return boolean true pour une commande des salons privés
+         */
+        public boolean isSalons() {
+            return salons;
+        }
+
+        /**
+         * Indique si la commande consulte ou modifie les invitations et les salons privés : elle est alors exécutée
+         * sous le verrou des salons, une à la fois. Un mouvement d'échecs ne prend que le verrou de sa partie.
+         *
+         * @return boolean true pour une commande exécutée sous le verrou des salons
+         */
+        public boolean isVerrouSalons() {
+            return verrouSalons;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getNbExecutions() {
+            return nbExecutions.sum();
+        }
+
+        /**
+         * Retourne la durée moyenne d'une exécution de la commande.
+         *
+         * @return long la durée moyenne, en nanosecondes, 0 si la commande n'a pas été exécutée
+         */
+        public long getDureeMoyenne() {
+            long n = nbExecutions.sum();
+            return n == 0 ? 0 : dureeTotale.sum() / n;
+        }
+
+        /**
+         * Retourne la durée de l'exécution la plus longue de la commande.
+         *
+         * @return long la durée, en nanosecondes
+         */
+        public long getDureeMax() {
+            return dureeMax.get();
+        }
+    }
+
+    private final Map<String, Commande> commandes = new ConcurrentHashMap<>();
+    private volatile Commande defaut;
+
+    /**
+     * Enregistre le gestionnaire d'une commande, à la place de celui qui était déjà enregistré pour ce type.
+     *
+     * @param type String le type de la commande, par exemple MSG
+     * @param gestionnaire GestionnaireCommande le gestionnaire de la commande
+     */
+    public void enregistrer(String type, GestionnaireCommande gestionnaire) {
+        commandes.put(type, new Commande(type, gestionnaire, false, false));
+    }
+
+    /**
+     * Enregistre le gestionnaire d'une commande qui consulte ou modifie les invitations et les salons privés.
+     *
+     * @param type String le type de la commande, par exemple JOIN
+     * @param gestionnaire GestionnaireCommande le gestionnaire de la commande
+     */
+    public void enregistrerSalons(String type, GestionnaireCommande gestionnaire) {
+        commandes.put(type, new Commande(type, gestionnaire, true, true));
+    }
+
+    /**
+     * Enregistre le gestionnaire d'une commande qui concerne la partie d'échecs d'un salon privé. Elle est exécutée
+     * hors du verrou des salons : son gestionnaire protège lui-même la partie, pour qu'un long calcul sur une partie
+     * ne fasse pas attendre les commandes des autres salons.
+     *
+     * @param type String le type de la commande, par exemple MOVE
+     * @param gestionnaire GestionnaireCommande le gestionnaire de la commande
+     */
+    public void enregistrerPartie(String type, GestionnaireCommande gestionnaire) {
+        commandes.put(type, new Commande(type, gestionnaire, true, false));
+    }
+
+    /**
+     * Enregistre le gestionnaire des commandes dont le type n'est pas enregistré.
+     *
+     * @param gestionnaire GestionnaireCommande le gestionnaire des commandes inconnues
+     */
+    public void enregistrerDefaut(GestionnaireCommande gestionnaire) {
+        defaut = new Commande("*", gestionnaire, false, false);
+    }
+
+    /**
+     * Retourne la commande enregistrée pour un type.
+     *
+     * @param type String le type de la commande
+     * @return Commande la commande, ou celle des commandes inconnues si le type n'est pas enregistré
+     */
+    public Commande chercher(String type) {
+        Commande commande = commandes.get(type);
+        return commande != null ? commande : defaut;
+    }
+
+    /**
+     * Retourne un rapport des exécutions des commandes, une ligne par commande exécutée au moins une fois, de la plus
+     * exécutée à la moins exécutée : nombre d'exécutions, durée moyenne et durée maximale.
+     *
+     * @return String le rapport
+     */
+    public String rapport() {
+        List<Commande> liste = new ArrayList<>(commandes.values());
+        if (defaut != null)
+            liste.add(defaut);
+        liste.removeIf(commande -> commande.getNbExecutions() == 0);
+        liste.sort(Comparator.comparingLong(Commande::getNbExecutions).reversed());
+        StringBuilder rapport = new StringBuilder();
+        rapport.append(liste.size()).append(" commande(s)");
+        for (Commande commande : liste)
+            rapport.append(String.format("%n%-10s executions=%d moyenne=%d us max=%d us", commande.getType(),
+                    commande.getNbExecutions(), commande.getDureeMoyenne() / 1000, commande.getDureeMax() / 1000));
+        return rapport.toString();
+    }
+}
@@ -4,7 +4,8 @@ import com.echecs.PartieEchecs;
 
 public class SalonPrive {
     private String aliasHote, aliasInvite;
-    private PartieEchecs partieEchecs;
+    //Lue sans verrou par les mouvements, qui ne prennent que le verrou de la partie :
+    private volatile PartieEchecs partieEchecs;
 
     public SalonPrive(String aliasHote, String aliasInvite) {
         this.aliasHote = aliasHote;
@@ -29,7 +30,7 @@ public class SalonPrive {
 
     @Override
     public boolean equals(Object obj) {
-        if (this == obj) //les 2 objets sont en fait le mme
+        if (this == obj) //les 2 objets sont en fait le même
             return true;
         if (obj == null)
             return false;
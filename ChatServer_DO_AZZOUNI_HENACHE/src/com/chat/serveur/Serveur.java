@@ -4,68 +4,188 @@ import com.chat.commun.evenement.Evenement;
 import com.chat.commun.evenement.EvenementUtil;
 import com.chat.commun.evenement.GestionnaireEvenement;
 import com.chat.commun.net.Connexion;
+import com.chat.commun.net.LimitesEnvoi;
+import com.chat.commun.net.PolitiqueDebordement;
+import com.chat.commun.net.StatistiquesConnexion;
 import com.chat.commun.thread.Lecteur;
 import com.chat.commun.thread.ThreadEcouteurDeTexte;
 
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Cette classe reprsente un serveur sur lequel des clients peuvent se connecter.
+ * Cette classe représente un serveur sur lequel des clients peuvent se connecter.
  *
- * @author Abdelmoumne Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
+ * @author Abdelmoumène Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
  * @version 1.0
  * @since 2023-09-01
  */
 public class Serveur implements Lecteur {
 
-    //Liste des connects au serveur :
-    protected final Vector<Connexion> connectes = new Vector<>();
+    //Liste des connectés au serveur. Elle est parcourue, sans verrou, par les réacteurs qui diffusent des messages,
+    //bien plus souvent qu'elle n'est modifiée : chaque arrivée ou départ en fait une copie.
+    protected final List<Connexion> connectes = new CopyOnWriteArrayList<>();
 
-    //Nouveaux clients qui ne se sont pas encore "identifis":
-    private final Vector<Connexion> nouveaux = new Vector<>();
-    //Ce thread s'occupe d'interagir avec les nouveaux pour valider leur connexion :
-    private Thread threadNouveaux;
+    //Nouveaux clients qui ne se sont pas encore "identifiés", avec l'expiration de leur délai d'identification :
+    private final Map<Connexion, ScheduledFuture<?>> nouveaux = new ConcurrentHashMap<>();
+    //Threads qui ferment les nouveaux clients qui ne se sont pas identifiés à temps, et les connexions dont la
+    //fermeture tarde. Ils sont deux : l'un peut fermer une connexion pendant que l'autre la surveille.
+    private ScheduledExecutorService minuterie;
+    //Délai, en millisecondes, accordé aux nouveaux clients pour s'identifier :
+    private long delaiIdentification = Config.DELAI_IDENTIFICATION;
+    //Durée maximale, en millisecondes, de l'écriture des dernières trames d'une connexion fermée par le serveur :
+    private long delaiFermeture = Config.DELAI_FERMETURE;
+    //Jeton qui autorise un client à consulter les statistiques des connexions (null pour ne l'autoriser à aucun) :
+    private String jetonAdministration = Config.JETON_ADMINISTRATION;
+    //Envoie des PING aux clients silencieux et expulse ceux qui ne répondent plus :
+    private SurveillantInactivite surveillant;
+    //Durée d'inactivité, en millisecondes, après laquelle un client reçoit un PING (0 pour ne jamais en envoyer) :
+    private long intervallePing = Config.INTERVALLE_PING;
+    //Nombre de PING sans réponse après lequel un client est expulsé :
+    private int nbPingsManques = Config.NB_PINGS_MANQUES;
     private int port = 8888;
-    //Thred qui attend de nouvelles connexions :
-    private ThreadEcouteurDeConnexions ecouteurConnexions;
-    //Thread qui coute l'arrive de texte des clients connects :
+    //Chemin du socket Unix sur lequel le serveur écoute aussi (null s'il n'écoute que sur le port) :
+    private String cheminSocketUnix = Config.CHEMIN_SOCKET_UNIX;
+    //Canal d'écoute sur le socket Unix et thread qui y attend les clients, hors du mode NIO :
+    private ServerSocketChannel serveurUnix;
+    private ThreadEcouteurDeConnexions ecouteurUnix;
+    //Threads qui attendent de nouvelles connexions :
+    private ThreadEcouteurDeConnexions[] ecouteursConnexions;
+    //Nombre de threads qui attendent de nouvelles connexions (hors du mode NIO) :
+    private int nbAccepteurs = Config.NB_ACCEPTEURS;
+    //Taille de la file d'attente des connexions pas encore acceptées, gérée par le système :
+    private int backlog = Config.BACKLOG;
+    //Nombre et débit des connexions acceptées :
+    private final CompteurDebit acceptations = new CompteurDebit();
+    //Thread qui écoute l'arrivée de texte des clients connectés :
     private ThreadEcouteurDeTexte ecouteurTexte;
-    //Le serveur-socket utilis par le serveur pour attendre que les clients se connectent :
+    //Le serveur-socket utilisé par le serveur pour attendre que les clients se connectent :
     private ServerSocket serverSocket;
-    //Indique si le serveur est dj dmarr ou non :
+    //Réacteurs NIO qui remplacent les 2 threads précédents en mode NIO (le premier accepte les nouveaux clients) :
+    private ThreadReacteurNIO[] reacteurs;
+    //Nombre de réacteurs NIO :
+    private int nbReacteurs = Config.NB_REACTEURS;
+    //Nombre de clients confiés aux réacteurs, pour les choisir à tour de rôle :
+    private final AtomicInteger nbConfies = new AtomicInteger();
+    //Threads qui écrivent les files d'envoi des connexions lorsqu'il n'y a pas de réacteur NIO :
+    private ExecutorService executeurEnvoi;
+    //Threads qui traitent les commandes des clients, partagés par les exécuteurs série des connexions :
+    private ExecutorService executeurTraitement;
+    //Nombre de threads qui traitent les commandes des clients (0 pour les traiter sur le thread qui les lit) :
+    private int nbThreadsTraitement = Config.NB_THREADS_TRAITEMENT;
+    //Exécuteur série de chaque connexion, qui traite ses trames dans l'ordre sur executeurTraitement :
+    private final Map<Connexion, ExecuteurSerie> executeursSerie = new ConcurrentHashMap<>();
+    //Modèle de lecture utilisé par le serveur :
+    private ModeServeur mode = Config.MODE_SERVEUR;
+    //Indique si le serveur est déjà démarré ou non :
     private boolean demarre;
-    //couteur qui gre les vnements correspondant  l'arrive de texte de clients :
+    //Limites des files d'envoi, partagées par toutes les connexions :
+    protected final LimitesEnvoi limitesEnvoi = new LimitesEnvoi(Config.LIMITE_ENVOI_OCTETS, Config.LIMITE_ENVOI_TRAMES);
+    //Écouteur qui gère les événements correspondant à l'arrivée de texte de clients :
     protected GestionnaireEvenement gestionnaireEvenementServeur;
 
     /**
-     * Cre un serveur qui va couter sur le port spcifi.
+     * Crée un serveur qui va écouter sur le port spécifié.
      *
-     * @param port int Port d'coute du serveur
+     * @param port int Port d'écoute du serveur
      */
     public Serveur(int port) {
         this.port = port;
+        //Un PING qui ne peut pas être envoyé à un client trop lent ne doit pas le faire déconnecter :
+        limitesEnvoi.setPolitique("PING", PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN);
     }
 
     /**
-     * Dmarre le serveur, s'il n'a pas dj t dmarr. Dmarre le thread qui coute l'arrive de clients et le
-     * qui coute l'arrive de texte. Mets en place le gestionnaire des vnements du serveur.
+     * Démarre le serveur, s'il n'a pas déjà été démarré. Démarre le thread qui écoute l'arrivée de clients et le
+     * qui écoute l'arrivée de texte. Mets en place le gestionnaire des événements du serveur.
      *
-     * @return boolean true, si le serveur a t dmarr correctement, false, si le serveur a dj t dmarr ou si
+     * @return boolean true, si le serveur a été démarré correctement, false, si le serveur a déjà été démarré ou si
      */
     public boolean demarrer() {
         if (demarre) //Serveur deja demarre.
             return false;
         try {
-            serverSocket = new ServerSocket(port);
-            ecouteurConnexions = new ThreadEcouteurDeConnexions(this);
-            ecouteurConnexions.start();
-            ecouteurTexte = new ThreadEcouteurDeTexte(this);
-            ecouteurTexte.start();
             gestionnaireEvenementServeur = new GestionnaireEvenementServeur(this);
+            minuterie = Executors.newScheduledThreadPool(2, tache -> {
+                Thread thread = new Thread(tache, "minuterie");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (intervallePing > 0) {
+                surveillant = new SurveillantInactivite(this, intervallePing, nbPingsManques);
+                minuterie.scheduleAtFixedRate(surveillant, surveillant.getDureeTic(), surveillant.getDureeTic(),
+                        TimeUnit.MILLISECONDS);
+            }
+            //Un socket Unix laissé par un serveur précédent empêcherait d'écouter sur le même chemin :
+            if (cheminSocketUnix != null)
+                Files.deleteIfExists(Path.of(cheminSocketUnix));
+            //En mode THREAD_PAR_CONNEXION, chaque connexion traite déjà ses trames sur son propre thread :
+            if (nbThreadsTraitement > 0 && mode != ModeServeur.THREAD_PAR_CONNEXION)
+                executeurTraitement = Executors.newFixedThreadPool(nbThreadsTraitement, tache -> {
+                    Thread thread = new Thread(tache, "traitement");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            if (mode == ModeServeur.NIO) {
+                reacteurs = new ThreadReacteurNIO[Math.max(1, nbReacteurs)];
+                for (int i = 0; i < reacteurs.length; i++) {
+                    reacteurs[i] = new ThreadReacteurNIO(this, i == 0);
+                    reacteurs[i].setName("reacteur-" + i);
+                }
+                serverSocket = reacteurs[0].getServerSocket();
+                for (ThreadReacteurNIO reacteur : reacteurs)
+                    reacteur.start();
+            } else {
+                serverSocket = new ServerSocket(port, backlog);
+                executeurEnvoi = Executors.newFixedThreadPool(Config.NB_THREADS_ENVOI, tache -> {
+                    Thread thread = new Thread(tache, "envoi");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                ecouteursConnexions = new ThreadEcouteurDeConnexions[nbAccepteurs];
+                for (int i = 0; i < nbAccepteurs; i++) {
+                    ecouteursConnexions[i] = new ThreadEcouteurDeConnexions(this);
+                    ecouteursConnexions[i].start();
+                }
+                //En mode THREAD_PAR_CONNEXION, chaque connexion lit elle-même son texte :
+                if (mode == ModeServeur.SCRUTATION) {
+                    ecouteurTexte = new ThreadEcouteurDeTexte(this);
+                    ecouteurTexte.start();
+                }
+                //Un canal sur un socket Unix ne peut pas être scruté sans bloquer : en mode SCRUTATION, le serveur
+                //n'écoute que sur son port.
+                if (cheminSocketUnix != null && mode == ModeServeur.THREAD_PAR_CONNEXION) {
+                    serveurUnix = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+                    serveurUnix.bind(UnixDomainSocketAddress.of(cheminSocketUnix), backlog);
+                    ecouteurUnix = new ThreadEcouteurDeConnexions(this, true);
+                    ecouteurUnix.start();
+                } else if (cheminSocketUnix != null)
+                    System.out.println("Socket Unix non disponible en mode " + mode);
+            }
             demarre = true;
             return true;
         } catch (IOException e) {
@@ -75,8 +195,8 @@ public class Serveur implements Lecteur {
     }
 
     /**
-     * Arrte le serveur en arrtant les threads qui coutent l'arrive de client, l'arrive de texte et le traitement
-     * des nouveaux clients.
+     * Arrête le serveur en arrêtant les threads qui écoutent l'arrivée de client et l'arrivée de texte, ainsi que la
+     * minuterie des nouveaux clients.
      */
     public void arreter() {
         ListIterator<Connexion> iterateur;
@@ -84,94 +204,179 @@ public class Serveur implements Lecteur {
 
         if (!demarre)
             return;
-        ecouteurConnexions.interrupt();
-        ecouteurTexte.interrupt();
-        if (threadNouveaux!=null) threadNouveaux.interrupt();
+        if (reacteurs != null)
+            for (ThreadReacteurNIO reacteur : reacteurs)
+                reacteur.fermer();
+        if (ecouteursConnexions != null)
+            for (ThreadEcouteurDeConnexions ecouteur : ecouteursConnexions)
+                ecouteur.interrupt();
+        if (ecouteurTexte != null)
+            ecouteurTexte.interrupt();
+        if (ecouteurUnix != null)
+            ecouteurUnix.interrupt();
+        minuterie.shutdownNow();
         try {
             serverSocket.close();
+            if (serveurUnix != null)
+                serveurUnix.close();
+            if (cheminSocketUnix != null)
+                Files.deleteIfExists(Path.of(cheminSocketUnix));
         } catch (IOException e) {
             System.out.println("serveurSocket erreur : " + e.getMessage());
         }
-        //On ferme toutes les connexions aprs avoir envoer "END."  chacun des clients :
-        iterateur = connectes.listIterator();
+        //On ferme toutes les connexions après avoir envoer "END." à chacun des clients :
+        //On parcourt une copie, car en mode THREAD_PAR_CONNEXION les threads des connexions retirent leur connexion
+        //de la liste lorsqu'elle est fermée :
+        iterateur = new Vector<>(connectes).listIterator();
         while (iterateur.hasNext()) {
             cnx = iterateur.next();
             cnx.envoyer("END.");
             cnx.close();
         }
+        for (Connexion nouveau : nouveaux.keySet())
+            nouveau.close();
+        nouveaux.clear();
+        if (executeurEnvoi != null)
+            executeurEnvoi.shutdown();
+        if (executeurTraitement != null)
+            executeurTraitement.shutdown();
+        executeurTraitement = null;
+        executeursSerie.clear();
         demarre = false;
     }
 
     /**
-     * Cette mthode bloque sur le ServerSocket du serveur jusqu' ce qu'un client s'y connecte. Dans ce cas, elle
-     * cre la connexion vers ce client et l'ajoute  la liste des nouveaux connects.
+     * Cette méthode bloque sur le ServerSocket du serveur jusqu'à ce qu'un client s'y connecte. Dans ce cas, elle
+     * crée la connexion vers ce client et l'ajoute à la liste des nouveaux connectés. En mode THREAD_PAR_CONNEXION,
+     * elle démarre le thread qui lira le texte de ce client. Elle peut être appelée par plusieurs threads à la fois.
+     *
+     * @return boolean true si un client a été accepté, false si l'attente a échoué
      */
-    public void attendConnexion() {
+    public boolean attendConnexion() {
         try {
             Socket sock = serverSocket.accept();
             Connexion cnx = new Connexion(sock);
-            nouveaux.add(cnx);
-            System.out.println("Nouveau connecte");
-            cnx.envoyer("WAIT_FOR alias");
-            if (threadNouveaux == null) {
-                threadNouveaux = new Thread() {
-                    @Override
-                    public void run() {
-                        int i;
-                        Connexion connexion;
-                        ListIterator<Connexion> it;
-                        boolean verifOK = true;
-                        String hist;
-
-                        while (!interrupted()) {
-                            it = Serveur.this.nouveaux.listIterator();
-                            while (it.hasNext()) {
-                                connexion = it.next();
-
-                                //Vrifier ici si le client s'est bien identifi, si ncessaire
-                                verifOK = validerConnexion(connexion);
-                                if (verifOK) {
-                                    it.remove();
-                                    Serveur.this.ajouter(connexion);
-                                }
-                            }
-                            try {
-                                Thread.sleep(10);
-                            } catch (InterruptedException e) {
-                                break;
-                            }
-                        }
-                    }
-                };
-                threadNouveaux.start();
+            accepter(cnx);
+            if (mode == ModeServeur.THREAD_PAR_CONNEXION) {
+                FabriqueThreads.demarrer(new TacheConnexion(this, cnx));
             }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Comme attendConnexion(), mais pour les clients qui se connectent au socket Unix du serveur, en mode
+     * THREAD_PAR_CONNEXION. Le canal du client reste bloquant : son thread y bloque en lecture.
+     *
+     * @return boolean true si un client a été accepté, false si l'attente a échoué
+     */
+    public boolean attendConnexionUnix() {
+        try {
+            Connexion cnx = new Connexion(serveurUnix.accept());
+            accepter(cnx);
+            FabriqueThreads.demarrer(new TacheConnexion(this, cnx));
+            return true;
         } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Retourne la minuterie du serveur, pour y planifier des tâches différées. Elle n'existe que lorsque le serveur
+     * est démarré.
+     *
+     * @return ScheduledExecutorService la minuterie
+     */
+    protected ScheduledExecutorService getMinuterie() {
+        return minuterie;
+    }
+
+    /**
+     * Ajoute une connexion qui vient d'être acceptée à la liste des nouveaux et lui demande de s'identifier.
+     *
+     * @param cnx Connexion la connexion représentant le nouveau client
+     */
+    public void accepter(Connexion cnx) {
+        //Hors du mode NIO, où c'est le réacteur qui écrit, les files d'envoi sont écrites par executeurEnvoi :
+        if (executeurEnvoi != null)
+            cnx.setPlanificateurEnvoi(this::planifierEnvoi);
+        cnx.setLimitesEnvoi(limitesEnvoi);
+        //Un client trop lent déconnecté par la politique DECONNECTER est retiré du serveur comme s'il était parti. Le
+        //thread qui écrit sa file, ou qui lui envoie une trame, n'attend pas le serveur :
+        cnx.setDeconnexion(c -> FabriqueThreads.demarrer(() -> terminer(c)));
+        if (executeurTraitement != null)
+            executeursSerie.put(cnx, new ExecuteurSerie(executeurTraitement));
+        acceptations.incrementer();
+        nouveaux.put(cnx, minuterie.schedule(() -> expirerIdentification(cnx), delaiIdentification,
+                TimeUnit.MILLISECONDS));
+        System.out.println("Nouveau connecte");
+        cnx.envoyer("WAIT_FOR alias");
+    }
 
+    /*
+      Choisit, à tour de rôle, le réacteur NIO auquel confier un client qui vient d'être accepté.
+    */
+    ThreadReacteurNIO choisirReacteur() {
+        ThreadReacteurNIO[] r = reacteurs;
+        return r[Math.floorMod(nbConfies.getAndIncrement(), r.length)];
+    }
+
+    /*
+      Ferme la connexion d'un nouveau client qui ne s'est pas identifié dans le délai accordé.
+    */
+    private void expirerIdentification(Connexion cnx) {
+        ScheduledFuture<?> expiration;
+        //Retiré des nouveaux sous le verrou du serveur, pour ne pas l'être pendant son identification :
+        synchronized (this) {
+            expiration = nouveaux.remove(cnx);
+        }
+        if (expiration != null) {
+            System.out.println("Nouveau connecte non identifie a temps");
+            cnx.envoyer("END");
+            fermerConnexion(cnx);
+        }
+    }
+
+    /*
+      Fait écrire la file d'envoi d'une connexion par executeurEnvoi, ou tout de suite si le serveur est en train
+      de s'arrêter.
+    */
+    private void planifierEnvoi(Connexion connexion) {
+        try {
+            executeurEnvoi.execute(connexion::vider);
+        } catch (RejectedExecutionException e) {
+            connexion.vider();
         }
     }
 
     /**
-     * Valide l'arrive d'un nouveau client sur le serveur. Cette implmentation
-     * par dfaut valide automatiquement le client en retournant true.
-     * Cette mthode sera redfinie dans les classes filles, comme ServerChat,
-     * pour implmenter une validation en fonction des besoins de l'application.
-     * Par exemple, ServerChat va vrifier si le nouveau client a fourni un
+     * Valide l'arrivée d'un nouveau client sur le serveur, à partir de la première trame qu'il a envoyée. Cette
+     * méthode n'est appelée que lorsqu'une trame arrive du client. Cette implémentation
+     * par défaut valide automatiquement le client en retournant true.
+     * Cette méthode sera redéfinie dans les classes filles, comme ServerChat,
+     * pour implémenter une validation en fonction des besoins de l'application.
+     * Par exemple, ServerChat va vérifier si le nouveau client a fourni un
      * alias valide.
      *
-     * @param connexion Connexion la connexion reprsentant le client.
+     * @param connexion Connexion la connexion représentant le client.
+     * @param texte String le texte envoyé par le client.
      * @return boolean true.
      */
-    protected boolean validerConnexion(Connexion connexion) {
+    protected boolean validerConnexion(Connexion connexion, String texte) {
         return true;
     }
     /**
-     * Ajoute la connexion d'un nouveau client  la liste des connects.
-     * @param connexion Connexion la connexion reprsentant le client
-     * @return boolean true, si l'ajout a t effectu avec succs, false, sinon
+     * Ajoute la connexion d'un nouveau client à la liste des connectés.
+     * @param connexion Connexion la connexion représentant le client
+     * @return boolean true, si l'ajout a été effectué avec succès, false, sinon
      */
     public synchronized boolean ajouter(Connexion connexion) {
-        System.out.println(connexion.getAlias()+" est arriv!");
+        System.out.println(connexion.getAlias()+" est arrivé!");
         boolean res = this.connectes.add(connexion);
+        if (surveillant != null)
+            surveillant.surveiller(connexion);
         return res;
     }
 
@@ -181,47 +386,481 @@ public class Serveur implements Lecteur {
         return res;
     }
     /**
-     * Cette mthode scanne tous les clients actuellement connects  ce serveur pour vrifie s'il y a du texte qui
-     * arrive. Pour chaque texte qui arrive, elle cre un vnement contenant les donnes du texte et demande au
-     * gestionnaire d'vnement serveur de traiter l'vnement.
+     * Cette méthode scanne tous les clients actuellement connectés à ce serveur pour vérifie s'il y a du texte qui
+     * arrive. Pour chaque texte qui arrive, elle crée un événement contenant les données du texte et demande au
+     * gestionnaire d'événement serveur de traiter l'événement. Les trames sont confiées à l'exécuteur série de leur
+     * connexion : le scan n'attend pas qu'elles soient traitées.
      */
-    public synchronized void lire() {
-        ListIterator<Connexion> iterateur = connectes.listIterator();
-        Connexion cnx;
+    public void lire() {
+        //Les nouveaux sont validés dès qu'une trame arrive de leur part :
+        for (Connexion nouveau : nouveaux.keySet())
+            traiterTrames(nouveau, nouveau.getTramesDisponibles());
+        for (Connexion cnx : connectes)
+            traiterTrames(cnx, cnx.getTramesDisponibles());
+    }
+
+    /**
+     * Cette méthode lit les trames arrivées sur une seule connexion, signalée prête par le réacteur NIO, et les
+     * fait traiter dans l'ordre.
+     *
+     * @param cnx Connexion la connexion sur laquelle du texte est arrivé
+     * @param tamponLecture ByteBuffer le tampon de lecture du réacteur
+     */
+    public void lire(Connexion cnx, ByteBuffer tamponLecture) {
+        traiterTrames(cnx, cnx.getTramesDisponibles(tamponLecture));
+    }
+
+    /**
+     * Traite, dans l'ordre, les trames reçues ensemble sur une connexion. Si la connexion a un exécuteur série, les
+     * trames lui sont confiées et le thread qui les a lues (réacteur NIO ou thread de scrutation) passe tout de suite
+     * aux autres connexions ; sinon, elles sont traitées sur ce thread. Les trames de connexions différentes peuvent
+     * donc être traitées en même temps par des threads différents : c'est au gestionnaire d'événements de protéger
+     * les données qu'il partage entre les clients.
+     *
+     * @param cnx Connexion la connexion sur laquelle les trames sont arrivées
+     * @param trames List les textes des trames reçues
+     */
+    public void traiterTrames(Connexion cnx, List<String> trames) {
+        ExecuteurSerie executeur;
+        if (trames.isEmpty())
+            return;
+        executeur = executeursSerie.get(cnx);
+        if (executeur == null) {
+            for (String texte : trames)
+                traiterTexte(cnx, texte);
+            return;
+        }
+        //La liste des trames est réutilisée par la prochaine lecture de la connexion :
+        List<String> copie = List.copyOf(trames);
+        executeur.execute(() -> {
+            for (String texte : copie)
+                traiterTexte(cnx, texte);
+        });
+    }
+
+    /**
+     * Retire du serveur une connexion fermée par le client, ou déconnectée parce qu'il ne lit plus assez vite, après
+     * le traitement des trames déjà reçues de sa part : une commande envoyée juste avant la fermeture est traitée
+     * avant le départ du client.
+     *
+     * @param cnx Connexion la connexion fermée
+     */
+    public void terminer(Connexion cnx) {
+        ExecuteurSerie executeur = executeursSerie.get(cnx);
+        if (executeur != null)
+            executeur.execute(() -> fermer(cnx));
+        else
+            fermer(cnx);
+    }
+
+    /**
+     * Traite un texte reçu sur une connexion. Si la connexion ne s'est pas encore identifiée, le texte sert à valider
+     * la connexion. Sinon, un événement est créé et traité par le gestionnaire d'événement serveur.
+     * <p>
+     * Si le texte est préfixé d'un identifiant de requête (#42), les réponses envoyées au client pendant le
+     * traitement portent le même préfixe. Si le traitement ne lui envoie aucune réponse (par exemple MSG), le client
+     * reçoit l'accusé de réception #42 ACK : toute requête identifiée reçoit donc au moins une réponse.
+     *
+     * @param cnx Connexion la connexion sur laquelle le texte est arrivé
+     * @param texte String le texte reçu
+     */
+    public void traiterTexte(Connexion cnx, String texte) {
         String[] t;
         Evenement evenement;
-        for (int i=0;i<connectes.size();i++) {
-            cnx = connectes.get(i);
-            String texte = cnx.getAvailableText();
-            if (!"".equals(texte)) {
-                t = EvenementUtil.extraireInfosEvenement(texte);
-                evenement = new Evenement(cnx, t[0], t[1]);
-                gestionnaireEvenementServeur.traiter(evenement);
-            }
+        if ("".equals(texte.trim()))
+            return;
+        //Les options du protocole (PROTO) peuvent être négociées avant l'identification :
+        if (nouveaux.containsKey(cnx) && !texte.startsWith("PROTO ")) {
+            identifier(cnx, texte);
+            return;
+        }
+        t = EvenementUtil.extraireInfosRequete(texte);
+        cnx.getStatistiques().compterCommande(t[1]);
+        evenement = new Evenement(cnx, t[1], t[2], t[0]);
+        if (t[0] == null) {
+            gestionnaireEvenementServeur.traiter(evenement);
+            return;
+        }
+        cnx.debuterRequete(t[0]);
+        try {
+            gestionnaireEvenementServeur.traiter(evenement);
+        } finally {
+            if (cnx.terminerRequete() == 0)
+                cnx.envoyer("#" + t[0] + " ACK");
+        }
+    }
+
+    /*
+      Valide l'identification d'un nouveau client et l'ajoute aux connectés. Les identifications sont faites une à la
+      fois : la validation d'un client voit tous les clients identifiés avant lui. Un client dont l'identification
+      est refusée en est averti par un nouveau WAIT_FOR, pour qu'il puisse en proposer une autre.
+    */
+    private synchronized void identifier(Connexion cnx, String texte) {
+        if (!nouveaux.containsKey(cnx))
+            return;
+        if (validerConnexion(cnx, texte)) {
+            nouveaux.remove(cnx).cancel(false);
+            ajouter(cnx);
+        } else
+            cnx.envoyer("WAIT_FOR alias");
+    }
+
+    /**
+     * Retourne un rapport de l'activité des connexions, une ligne par connexion : octets et trames reçus et envoyés,
+     * trames et octets en attente d'envoi, durée depuis la dernière réception et nombre de commandes reçues par
+     * type. Les connexions sont classées de la plus active à la moins active, en octets échangés.
+     *
+     * @param nbMax int le nombre maximal de connexions dans le rapport
+     * @return String le rapport
+     */
+    public String rapportConnexions(int nbMax) {
+        List<Connexion> connexions = new ArrayList<>(connectes);
+        connexions.addAll(nouveaux.keySet());
+        connexions.sort(Comparator.comparingLong((Connexion c) -> c.getStatistiques().getOctetsTotal()).reversed());
+        long maintenant = System.currentTimeMillis();
+        StringBuilder rapport = new StringBuilder();
+        rapport.append(connexions.size()).append(" connexion(s)");
+        for (Connexion cnx : connexions.subList(0, Math.max(0, Math.min(nbMax, connexions.size())))) {
+            StatistiquesConnexion stats = cnx.getStatistiques();
+            rapport.append(String.format("%n%-16s recus=%d o/%d t envoyes=%d o/%d t file=%d t/%d o inactif=%d ms %s",
+                    cnx.getAlias() == null ? "(non identifie)" : cnx.getAlias(),
+                    stats.getOctetsRecus(), stats.getTramesRecues(),
+                    stats.getOctetsEnvoyes(), stats.getTramesEnvoyees(),
+                    cnx.getFileEnvoi().getNbTrames(), cnx.getFileEnvoi().getNbOctets(),
+                    maintenant - cnx.getDerniereActivite(), stats.getCommandes()));
+        }
+        return rapport.toString();
+    }
+
+    /**
+     * Vérifie le jeton donné par un client qui demande une commande d'administration, comme STATS.
+     *
+     * @param jeton String le jeton donné par le client
+     * @return boolean true si un jeton d'administration est configuré et que le jeton donné lui est identique
+     */
+    public boolean verifierJetonAdministration(String jeton) {
+        String attendu = jetonAdministration;
+        if (attendu == null || jeton == null)
+            return false;
+        //Comparaison en temps constant, pour ne rien révéler du jeton attendu :
+        return MessageDigest.isEqual(attendu.getBytes(StandardCharsets.UTF_8), jeton.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Déconnecte un client à sa demande (EXIT) : lui envoie END, le retire des connectés et ferme sa connexion.
+     *
+     * @param cnx Connexion la connexion représentant le client
+     */
+    public void deconnecter(Connexion cnx) {
+        cnx.envoyer("END");
+        fermer(cnx);
+    }
+
+    /**
+     * Expulse un client qui ne répond plus aux PING, ou dont la connexion a été perdue sans que le serveur en soit
+     * averti (par exemple une écriture en erreur). Le client est déconnecté de la même façon que s'il avait envoyé
+     * EXIT.
+     *
+     * @param cnx Connexion la connexion représentant le client
+     */
+    public void expulser(Connexion cnx) {
+        if (!connectes.contains(cnx))
+            return;
+        if (cnx.isFermee())
+            System.out.println(cnx.getAlias() + " a perdu sa connexion");
+        else
+            System.out.println(cnx.getAlias() + " ne repond plus aux PING");
+        deconnecter(cnx);
+    }
+
+    /**
+     * Retire du serveur une connexion fermée par le client et libère ses ressources. Seul le retrait se fait sous le
+     * verrou du serveur : la connexion est fermée ensuite, pour qu'un client qui ne lit plus ne bloque pas les
+     * arrivées et les départs des autres.
+     *
+     * @param cnx Connexion la connexion fermée
+     */
+    public void fermer(Connexion cnx) {
+        retirer(cnx);
+        fermerConnexion(cnx);
+        executeursSerie.remove(cnx);
+    }
+
+    /*
+      Retire une connexion des nouveaux ou des connectés du serveur.
+    */
+    private synchronized void retirer(Connexion cnx) {
+        ScheduledFuture<?> expiration = nouveaux.remove(cnx);
+        if (expiration != null)
+            expiration.cancel(false);
+        else if (connectes.contains(cnx))
+            enlever(cnx);
+    }
+
+    /*
+      Ferme une connexion après avoir écrit ce qui reste dans sa file d'envoi. Sur un socket bloquant, cette dernière
+      écriture peut bloquer si le client ne lit plus : au-delà de delaiFermeture, la minuterie ferme le socket, ce
+      qui termine l'écriture en erreur.
+    */
+    private void fermerConnexion(Connexion cnx) {
+        ScheduledFuture<?> garde = null;
+        try {
+            garde = minuterie.schedule(cnx::interrompre, delaiFermeture, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            //Le serveur s'arrête : la connexion est fermée sans garde.
         }
+        cnx.close();
+        if (garde != null)
+            garde.cancel(false);
     }
 
     /**
-     * Retourne le port d'coute de ce serveur
+     * Retourne le port d'écoute de ce serveur
      *
-     * @return int Le port d'coute
+     * @return int Le port d'écoute
      */
     public int getPort() {
         return port;
     }
 
     /**
-     * Spcifie le port d'coute du serveur.
+     * Spécifie le port d'écoute du serveur.
      *
-     * @param port int Le port d'coute
+     * @param port int Le port d'écoute
      */
     public void setPort(int port) {
         this.port = port;
     }
     /**
-     * Indique si le serveur a t dmarr.
+     * Retourne le chemin du socket Unix sur lequel le serveur écoute aussi.
+     *
+     * @return String Le chemin du socket, ou null si le serveur n'écoute que sur son port
+     */
+    public String getCheminSocketUnix() {
+        return cheminSocketUnix;
+    }
+
+    /**
+     * Spécifie le chemin d'un socket Unix sur lequel le serveur écoute aussi, en plus de son port, pour les clients
+     * du même hôte. N'a d'effet qu'en mode NIO ou THREAD_PAR_CONNEXION, et qu'au prochain démarrage.
+     *
+     * @param cheminSocketUnix String Le chemin du socket, ou null pour n'écouter que sur le port
+     */
+    public void setCheminSocketUnix(String cheminSocketUnix) {
+        this.cheminSocketUnix = cheminSocketUnix;
+    }
+
+    /**
+     * Retourne les limites des files d'envoi des connexions du serveur, qui comptent aussi les débordements.
+     *
+     * @return LimitesEnvoi les limites des files d'envoi
+     */
+    public LimitesEnvoi getLimitesEnvoi() {
+        return limitesEnvoi;
+    }
+
+    /**
+     * Retourne le compteur des connexions acceptées, qui mesure aussi leur débit par seconde.
+     *
+     * @return CompteurDebit le compteur des connexions acceptées
+     */
+    public CompteurDebit getAcceptations() {
+        return acceptations;
+    }
+
+    /**
+     * Retourne la taille de la file d'attente des connexions pas encore acceptées.
+     *
+     * @return int La taille de la file d'attente
+     */
+    public int getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * Spécifie la taille de la file d'attente des connexions pas encore acceptées, que le système garde pendant une
+     * rafale de connexions. N'a d'effet qu'au prochain démarrage.
+     *
+     * @param backlog int La taille de la file d'attente
+     */
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    /**
+     * Retourne le nombre de threads qui attendent de nouvelles connexions.
+     *
+     * @return int Le nombre de threads
+     */
+    public int getNbAccepteurs() {
+        return nbAccepteurs;
+    }
+
+    /**
+     * Spécifie le nombre de threads qui attendent de nouvelles connexions. En mode NIO, c'est toujours le réacteur
+     * qui accepte les connexions. N'a d'effet qu'au prochain démarrage.
+     *
+     * @param nbAccepteurs int Le nombre de threads
+     */
+    public void setNbAccepteurs(int nbAccepteurs) {
+        this.nbAccepteurs = nbAccepteurs;
+    }
+
+    /**
+     * Retourne le nombre de threads qui traitent les commandes des clients.
+     *
+     * @return int Le nombre de threads
+     */
+    public int getNbThreadsTraitement() {
+        return nbThreadsTraitement;
+    }
+
+    /**
+     * Spécifie le nombre de threads qui traitent les commandes des clients, en modes NIO et SCRUTATION. Les commandes
+     * d'un même client restent traitées dans l'ordre. Avec 0 thread, les commandes sont traitées par le thread qui
+     * les lit. N'a d'effet qu'au prochain démarrage.
+     *
+     * @param nbThreadsTraitement int Le nombre de threads
+     */
+    public void setNbThreadsTraitement(int nbThreadsTraitement) {
+        this.nbThreadsTraitement = nbThreadsTraitement;
+    }
+
+    /**
+     * Retourne le nombre de réacteurs NIO du serveur.
+     *
+     * @return int Le nombre de réacteurs
+     */
+    public int getNbReacteurs() {
+        return nbReacteurs;
+    }
+
+    /**
+     * Spécifie le nombre de réacteurs NIO du serveur, chacun sur son propre thread. N'a d'effet qu'en mode NIO et
+     * qu'au prochain démarrage.
+     *
+     * @param nbReacteurs int Le nombre de réacteurs
+     */
+    public void setNbReacteurs(int nbReacteurs) {
+        this.nbReacteurs = nbReacteurs;
+    }
+
+    /**
+     * Retourne la durée d'inactivité après laquelle un client reçoit un PING.
+     *
+     * @return long La durée, en millisecondes
+     */
+    public long getIntervallePing() {
+        return intervallePing;
+    }
+
+    /**
+     * Spécifie la durée d'inactivité après laquelle un client reçoit un PING. Une durée de 0 désactive les PING et
+     * l'expulsion des clients inactifs. N'a d'effet qu'au prochain démarrage.
+     *
+     * @param intervallePing long La durée, en millisecondes
+     */
+    public void setIntervallePing(long intervallePing) {
+        this.intervallePing = intervallePing;
+    }
+
+    /**
+     * Retourne le nombre de PING sans réponse après lequel un client est expulsé.
+     *
+     * @return int Le nombre de PING
+     */
+    public int getNbPingsManques() {
+        return nbPingsManques;
+    }
+
+    /**
+     * Spécifie le nombre de PING sans réponse après lequel un client est expulsé. N'a d'effet qu'au prochain
+     * démarrage.
+     *
+     * @param nbPingsManques int Le nombre de PING
+     */
+    public void setNbPingsManques(int nbPingsManques) {
+        this.nbPingsManques = nbPingsManques;
+    }
+
+    /**
+     * Retourne le jeton qui autorise un client à consulter les statistiques des connexions.
+     *
+     * @return String Le jeton, ou null si aucun client n'y est autorisé
+     */
+    public String getJetonAdministration() {
+        return jetonAdministration;
+    }
+
+    /**
+     * Spécifie le jeton qui autorise un client à consulter les statistiques des connexions (commande STATS).
+     *
+     * @param jetonAdministration String Le jeton, ou null pour qu'aucun client n'y soit autorisé
+     */
+    public void setJetonAdministration(String jetonAdministration) {
+        this.jetonAdministration = jetonAdministration;
+    }
+
+    /**
+     * Retourne le délai accordé aux nouveaux clients pour s'identifier.
+     *
+     * @return long Le délai, en millisecondes
+     */
+    public long getDelaiIdentification() {
+        return delaiIdentification;
+    }
+
+    /**
+     * Spécifie le délai accordé aux nouveaux clients pour s'identifier. Un client qui ne s'est pas identifié dans ce
+     * délai est déconnecté.
+     *
+     * @param delaiIdentification long Le délai, en millisecondes (doit être positif)
+     */
+    public void setDelaiIdentification(long delaiIdentification) {
+        this.delaiIdentification = delaiIdentification;
+    }
+
+    /**
+     * Retourne la durée maximale de l'écriture des dernières trames d'un client que le serveur déconnecte.
+     *
+     * @return long La durée, en millisecondes
+     */
+    public long getDelaiFermeture() {
+        return delaiFermeture;
+    }
+
+    /**
+     * Spécifie la durée maximale de l'écriture des dernières trames d'un client que le serveur déconnecte. Passé ce
+     * délai, la connexion est fermée sans attendre que le client les ait lues.
+     *
+     * @param delaiFermeture long La durée, en millisecondes
+     */
+    public void setDelaiFermeture(long delaiFermeture) {
+        this.delaiFermeture = delaiFermeture;
+    }
+
+    /**
+     * Retourne le modèle de lecture utilisé par le serveur.
+     *
+     * @return ModeServeur Le modèle de lecture
+     */
+    public ModeServeur getMode() {
+        return mode;
+    }
+
+    /**
+     * Spécifie le modèle de lecture du serveur. N'a d'effet qu'au prochain démarrage.
+     *
+     * @param mode ModeServeur Le modèle de lecture
+     */
+    public void setMode(ModeServeur mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Indique si le serveur a été démarré.
      *
-     * @return boolean true si le serveur est dmarr et false sinon
+     * @return boolean true si le serveur est démarré et false sinon
      */
     public boolean isDemarre() {
         return demarre;
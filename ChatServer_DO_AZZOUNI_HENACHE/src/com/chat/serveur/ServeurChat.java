@@ -2,66 +2,449 @@ package com.chat.serveur;
 
 import com.chat.commun.evenement.Evenement;
 import com.chat.commun.net.Connexion;
+import com.chat.commun.net.PolitiqueDebordement;
+import com.chat.commun.net.TrameDiffusee;
 import com.echecs.PartieEchecs;
 import com.echecs.Position;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Cette classe tend (hrite) la classe abstraite Serveur et y ajoute le ncessaire pour que le
+ * Cette classe étend (hérite) la classe abstraite Serveur et y ajoute le nécessaire pour que le
  * serveur soit un serveur de chat.
  *
- * @author Abdelmoumne Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
+ * @author Abdelmoumène Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
  * @version 1.0
  * @since 2023-09-15
  */
 public class ServeurChat extends Serveur {
 
-    //Liste des messages envoys au salon de chat public :
-    protected Vector<String> historique = new Vector<>();
-
-    //Liste des invitations  un salon priv :
+    //Messages envoyés au salon de chat public, par numéro de séquence croissant. Les réacteurs peuvent parcourir
+    //l'historique pendant que d'autres y ajoutent des messages :
+    protected final ConcurrentNavigableMap<Long, String> historique = new ConcurrentSkipListMap<>();
+    //Numéro de séquence du dernier message ajouté à l'historique :
+    private volatile long sequenceHistorique;
+    //Les messages du salon public sont ajoutés à l'historique et diffusés sous le verrou de lecture, plusieurs à la
+    //fois ; un arrivant reçoit l'historique et rejoint les destinataires de la diffusion sous le verrou d'écriture,
+    //pour qu'aucun message ne lui échappe entre les deux :
+    private final ReadWriteLock verrouDiffusion = new ReentrantReadWriteLock();
+
+    //Sessions des clients, connectés ou suspendus, par alias :
+    protected final Map<String, SessionChat> sessions = new ConcurrentHashMap<>();
+    //Sessions suspendues des connectés des autres noeuds de la grappe, qui gardent les salons privés de ce noeud :
+    private final Map<String, SessionChat> sessionsDistantes = new ConcurrentHashMap<>();
+    //Numéro de séquence à partir duquel l'historique est envoyé à un client qui reprend sa session :
+    private final Map<Connexion, Long> reprises = new ConcurrentHashMap<>();
+    //Durée, en millisecondes, pendant laquelle un client déconnecté peut reprendre sa session :
+    private long dureeSession = Config.DUREE_SESSION;
+
+    //Verrou des invitations et des salons privés. Les commandes qui les consultent ou les modifient (JOIN, CHESS,
+    //MOVE...) sont traitées une à la fois, alors que celles du salon public (MSG, LIST, HIST) s'en passent :
+    protected final Object verrouSalons = new Object();
+
+    //Liste des invitations à un salon privé :
     protected Vector<Invitation> invitations = new Vector<>();
 
-    //Liste des invitations  une partie d'chec :
+    //Liste des invitations à une partie d'échec :
     protected Vector<Invitation> invitationsEchec = new Vector<>();
 
     //Liste salons prives :
     protected Vector<SalonPrive> salonsPrives = new Vector<>();
 
+    //Répartit sur plusieurs threads l'envoi des messages du salon public lorsque les connectés sont nombreux :
+    protected final DiffusionParallele diffusion = new DiffusionParallele(Config.NB_THREADS_DIFFUSION,
+            Config.SEUIL_DIFFUSION_PARALLELE);
+
+    //Lien avec les autres noeuds de la grappe qui partagent le salon public, ou null si le serveur est seul :
+    private Grappe grappe;
+
+    //Gestionnaires des commandes que les clients envoient au serveur, par type de commande :
+    private final RegistreCommandes commandes = new RegistreCommandes();
+
     /**
-     * Cre un serveur de chat qui va couter sur le port spcifi.
+     * Crée un serveur de chat qui va écouter sur le port spécifié.
      *
-     * @param port int Port d'coute du serveur
+     * @param port int Port d'écoute du serveur
      */
     public ServeurChat(int port) {
         super(port);
+        GestionnaireEvenementServeur.enregistrerCommandes(commandes);
+        //Un client trop lent perd d'abord les plus anciens messages du salon public, mais jamais les coups d'une
+        //partie d'échecs. Pour toute autre trame, il est déconnecté.
+        limitesEnvoi.setPolitique("MSG", PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN);
+        for (String type : new String[]{"CHESSOK", "MOVE", "ECHEC", "MAT", "ABANDON"})
+            limitesEnvoi.setPolitique(type, PolitiqueDebordement.JAMAIS_SUPPRIMER);
+    }
+
+    /**
+     * Démarre le serveur et les threads de la diffusion des messages du salon public, puis relie le serveur aux
+     * autres noeuds de sa grappe, s'il en a une.
+     *
+     * @return boolean true, si le serveur a été démarré correctement, false sinon
+     */
+    @Override
+    public boolean demarrer() {
+        diffusion.demarrer();
+        if (!super.demarrer()) {
+            diffusion.arreter();
+            return false;
+        }
+        if (grappe != null) {
+            try {
+                grappe.demarrer();
+            } catch (IOException e) {
+                System.out.println("Bus de la grappe injoignable : " + e.getMessage());
+                arreter();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Quitte la grappe, s'il y en a une, puis arrête le serveur et les threads de la diffusion des messages du salon
+     * public.
+     */
+    @Override
+    public void arreter() {
+        if (grappe != null)
+            grappe.arreter();
+        super.arreter();
+        diffusion.arreter();
     }
 
     @Override
     public synchronized boolean ajouter(Connexion connexion) {
-        String hist = this.historique();
-        if ("".equals(hist)) {
-            connexion.envoyer("OK");
+        String alias = connexion.getAlias();
+        //Un client qui reprend sa session ne reçoit que les messages qu'il n'a pas vus :
+        Long reprise = reprises.remove(connexion);
+        SessionChat session = reprise == null ? null : sessions.get(alias);
+        if (session == null) {
+            session = new SessionChat(alias);
+            sessions.put(alias, session);
         }
-        else {
-            connexion.envoyer("HIST " + hist);
+        boolean res;
+        //Aucun message n'est diffusé entre l'envoi de l'historique et l'arrivée du client parmi les destinataires :
+        //il reçoit chaque message une fois, soit dans HIST, soit par la diffusion, et le numéro annoncé dans SESSION
+        //est celui du dernier message envoyé dans HIST.
+        verrouDiffusion.writeLock().lock();
+        try {
+            long sequence = sequenceHistorique;
+            String hist = this.historique(reprise == null ? 0 : reprise);
+            if ("".equals(hist)) {
+                connexion.envoyer("OK");
+            }
+            else {
+                connexion.envoyer("HIST " + hist);
+            }
+            connexion.envoyer("SESSION " + alias + " " + session.getJeton() + " " + sequence);
+            diffusion.ajouter(connexion);
+            res = super.ajouter(connexion);
+        } finally {
+            verrouDiffusion.writeLock().unlock();
+        }
+        if (res && grappe != null)
+            grappe.annoncerArrivee(alias);
+        if (res && reprise != null)
+            restaurerSalons(connexion, session);
+        return res;
+    }
+    /**
+     * Retire un client des connectés et libère tout ce qui le concerne : ses invitations, envoyées ou reçues, et ses
+     * salons privés. L'autre membre d'un salon privé est averti du départ du client, et gagne par abandon la partie
+     * d'échecs en cours, s'il y en a une.
+     *
+     * @param connexion Connexion la connexion représentant le client
+     * @return boolean true, si le client a été retiré, false, sinon
+     */
+    @Override
+    public synchronized boolean enlever(Connexion connexion) {
+        String alias = connexion.getAlias();
+        boolean res, suspendue = false;
+        //Le client est retiré sous le verrou des salons : une commande JOIN, CHESS... ne voit pas disparaître en
+        //cours de traitement un client dont elle a vérifié l'existence.
+        synchronized (verrouSalons) {
+            res = super.enlever(connexion);
+            if (!res || alias == null)
+                return res;
+            diffusion.enlever(connexion);
+            //Un client qui a perdu sa connexion peut revenir : ses salons privés sont mis de côté en attendant.
+            SessionChat session = sessions.get(alias);
+            if (session != null && dureeSession > 0) {
+                suspendreSession(session);
+                suspendue = true;
+            } else {
+                sessions.remove(alias);
+                libererSalons(alias);
+            }
+        }
+        //Le départ est annoncé hors du verrou des salons : les autres noeuds libèrent à leur tour les salons du
+        //client sous leur propre verrou, et l'un d'eux peut être en train d'envoyer un texte à ce noeud sous le sien.
+        //Un client suspendu n'est parti que si sa session expire : les autres noeuds mettent ses salons de côté.
+        if (grappe != null && suspendue)
+            grappe.annoncerSuspension(alias);
+        else if (grappe != null)
+            grappe.annoncerDepart(alias);
+        return res;
+    }
+
+    /**
+     * Libère les invitations, envoyées ou reçues, et les salons privés d'un client qui est parti, de ce noeud ou d'un
+     * autre noeud de la grappe. L'autre membre d'un salon privé est averti du départ du client, et gagne par abandon
+     * la partie d'échecs en cours, s'il y en a une.
+     *
+     * @param alias String l'alias du client parti
+     */
+    public void libererSalons(String alias) {
+        synchronized (verrouSalons) {
+            retirerInvitations(alias);
+            for (SalonPrive salonPrive : retirerSalons(alias))
+                fermerSalon(salonPrive, alias);
+            //Les salons mis de côté d'un connecté d'un autre noeud dont la session a expiré :
+            SessionChat session = sessionsDistantes.remove(alias);
+            if (session != null)
+                for (SalonPrive salonPrive : session.retirerSalons())
+                    fermerSalon(salonPrive, alias);
         }
-        return super.ajouter(connexion);
     }
+
+    /**
+     * Met de côté les salons privés de ce noeud d'un connecté d'un autre noeud de la grappe qui a perdu sa connexion,
+     * jusqu'à ce qu'il reprenne sa session (reprendreSalons()) ou qu'elle expire (libererSalons()). Ses invitations
+     * sont retirées, et l'autre membre de chaque salon est averti de la suspension.
+     *
+     * @param alias String l'alias du connecté suspendu
+     */
+    public void suspendreSalons(String alias) {
+        synchronized (verrouSalons) {
+            SessionChat session = new SessionChat(alias);
+            session.suspendre(mettreDeCote(alias), sequenceHistorique);
+            sessionsDistantes.put(alias, session);
+        }
+    }
+
+    /**
+     * Rend à un connecté d'un autre noeud de la grappe, qui a repris sa session, les salons privés de ce noeud mis de
+     * côté à sa suspension.
+     *
+     * @param alias String l'alias du connecté
+     */
+    public void reprendreSalons(String alias) {
+        SessionChat session = sessionsDistantes.remove(alias);
+        Connexion connexion = envoyerMessagePrive(alias);
+        if (session != null && connexion != null)
+            restaurerSalons(connexion, session);
+    }
+
+    /*
+      Retire les invitations, envoyées ou reçues, d'un client.
+    */
+    private void retirerInvitations(String alias) {
+        invitations.removeIf(invitation -> alias.equals(invitation.getAliasHote())
+                || alias.equals(invitation.getAliasInvite()));
+        invitationsEchec.removeIf(invitation -> alias.equals(invitation.getAliasHote())
+                || alias.equals(invitation.getAliasInvite()));
+    }
+
+    /*
+      Retire des salons privés du serveur ceux d'un client et les retourne.
+    */
+    private List<SalonPrive> retirerSalons(String alias) {
+        List<SalonPrive> salons = new ArrayList<>();
+        for (SalonPrive salonPrive : new Vector<>(salonsPrives)) {
+            if (alias.equals(salonPrive.getAliasHote()) || alias.equals(salonPrive.getAliasInvite())) {
+                retirerSalon(salonPrive);
+                salons.add(salonPrive);
+            }
+        }
+        return salons;
+    }
+
+    /**
+     * Retire un salon privé du serveur, sous le verrou des salons. Si une partie d'échec s'y déroule, attend la fin
+     * d'un mouvement en cours : un mouvement qui a vérifié, sous le verrou de la partie, que son salon existe encore
+     * se termine avant que le salon disparaisse.
+     *
+     * @param salonPrive SalonPrive le salon privé à retirer
+     */
+    public void retirerSalon(SalonPrive salonPrive) {
+        PartieEchecs partie = salonPrive.getPartieEchecs();
+        if (partie == null) {
+            salonsPrives.remove(salonPrive);
+            return;
+        }
+        synchronized (partie) {
+            salonsPrives.remove(salonPrive);
+        }
+    }
+
+    /*
+      Avertit l'autre membre d'un salon privé retiré du départ du client, qui perd par abandon la partie d'échecs en
+      cours, s'il y en a une.
+    */
+    private void fermerSalon(SalonPrive salonPrive, String alias) {
+        String aliasAutre = alias.equals(salonPrive.getAliasHote()) ? salonPrive.getAliasInvite()
+                : salonPrive.getAliasHote();
+        Connexion autre = envoyerMessagePrive(aliasAutre);
+        if (autre == null)
+            return;
+        if (salonPrive.getPartieEchecs() != null)
+            autre.envoyer("ABANDON " + aliasAutre);
+        autre.envoyer("QUIT " + alias);
+    }
+
+    /*
+      Suspend la session d'un client qui a perdu sa connexion : ses invitations sont retirées, mais ses salons
+      privés sont mis de côté jusqu'à ce qu'il reprenne sa session ou que le délai de reprise expire. L'autre membre
+      de chaque salon est averti de la suspension.
+    */
+    private void suspendreSession(SessionChat session) {
+        int suspension = session.suspendre(mettreDeCote(session.getAlias()), sequenceHistorique);
+        getMinuterie().schedule(() -> expirerSession(session, suspension), dureeSession, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+      Retire les invitations et les salons privés d'un client suspendu, et avertit l'autre membre de chaque salon de
+      la suspension. Retourne les salons retirés.
+    */
+    private List<SalonPrive> mettreDeCote(String alias) {
+        retirerInvitations(alias);
+        List<SalonPrive> salons = retirerSalons(alias);
+        for (SalonPrive salonPrive : salons) {
+            Connexion autre = envoyerMessagePrive(alias.equals(salonPrive.getAliasHote())
+                    ? salonPrive.getAliasInvite() : salonPrive.getAliasHote());
+            if (autre != null)
+                autre.envoyer("Le salon privé avec " + alias + " est suspendu en attendant son retour!");
+        }
+        return salons;
+    }
+
+    /*
+      Ferme une session qui n'a pas été reprise à temps : ses salons privés sont fermés comme au départ du client, qui
+      est annoncé aux autres noeuds de la grappe.
+    */
+    private void expirerSession(SessionChat session, int suspension) {
+        synchronized (verrouSalons) {
+            //La session a pu être reprise, puis suspendue de nouveau, depuis :
+            if (!session.isSuspendue() || session.getNbSuspensions() != suspension
+                    || !sessions.remove(session.getAlias(), session))
+                return;
+            for (SalonPrive salonPrive : session.retirerSalons())
+                fermerSalon(salonPrive, session.getAlias());
+        }
+        if (grappe != null)
+            grappe.annoncerDepart(session.getAlias());
+    }
+
+    /*
+      Retourne la session suspendue d'un client, de ce noeud ou d'un autre noeud de la grappe, ou null s'il n'est
+      pas suspendu.
+    */
+    private SessionChat getSessionSuspendue(String alias) {
+        SessionChat session = sessions.get(alias);
+        if (session == null)
+            session = sessionsDistantes.get(alias);
+        return session != null && session.isSuspendue() ? session : null;
+    }
+
+    /*
+      Rend à un client qui a repris sa session ses salons privés mis de côté. Le client reçoit JOINOK pour chaque salon
+      et, pour une partie d'échecs en cours, CHESSOK avec sa couleur puis ECHIQUIER avec l'état de l'échiquier et la
+      couleur qui doit jouer. Un salon dont l'autre membre est lui-même suspendu lui est confié, et celui d'un membre
+      parti entre-temps est fermé.
+    */
+    private void restaurerSalons(Connexion connexion, SessionChat session) {
+        String alias = session.getAlias(), aliasAutre;
+        PartieEchecs partie;
+        synchronized (verrouSalons) {
+            for (SalonPrive salonPrive : session.retirerSalons()) {
+                aliasAutre = alias.equals(salonPrive.getAliasHote()) ? salonPrive.getAliasInvite()
+                        : salonPrive.getAliasHote();
+                partie = salonPrive.getPartieEchecs();
+                SessionChat sessionAutre = getSessionSuspendue(aliasAutre);
+                if (sessionAutre != null) {
+                    sessionAutre.ajouterSalon(salonPrive);
+                    connexion.envoyer("Le salon privé avec " + aliasAutre + " est suspendu en attendant son retour!");
+                    continue;
+                }
+                if (!verifierExistenceUtilisateur(aliasAutre)) {
+                    if (partie != null)
+                        connexion.envoyer("ABANDON " + alias);
+                    connexion.envoyer("QUIT " + aliasAutre);
+                    continue;
+                }
+                salonsPrives.add(salonPrive);
+                connexion.envoyer("JOINOK " + aliasAutre);
+                envoyerMessagePrive(aliasAutre).envoyer("JOINOK " + alias);
+                if (partie != null) {
+                    connexion.envoyer("CHESSOK " + (alias.equals(partie.getAliasJoueur1())
+                            ? partie.getCouleurJoueur1() : partie.getCouleurJoueur2()));
+                    //Un mouvement peut être en cours dans la partie :
+                    synchronized (partie) {
+                        connexion.envoyer("ECHIQUIER " + partie.getEchiquierTexte() + " " + partie.getTour());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Ferme la session d'un client qui quitte le serveur de lui-même (EXIT) : ses salons privés seront fermés à son
+     * départ, sans attendre son retour.
+     *
+     * @param alias String l'alias du client
+     */
+    public void fermerSession(String alias) {
+        if (alias != null)
+            sessions.remove(alias);
+    }
+
     /**
-     * Valide l'arrive d'un nouveau client sur le serveur. Cette redfinition
-     * de la mthode hrite de Serveur vrifie si le nouveau client a envoy
-     * un alias compos uniquement des caractres a-z, A-Z, 0-9, - et _.
+     * Retourne la durée pendant laquelle un client qui a perdu sa connexion peut reprendre sa session.
      *
-     * @param connexion Connexion la connexion reprsentant le client
-     * @return boolean true, si le client a valid correctement son arrive, false, sinon
+     * @return long la durée, en millisecondes
+     */
+    public long getDureeSession() {
+        return dureeSession;
+    }
+
+    /**
+     * Modifie la durée pendant laquelle un client qui a perdu sa connexion peut reprendre sa session. Avec une durée
+     * nulle, les salons privés d'un client sont fermés dès son départ.
+     *
+     * @param dureeSession long la durée, en millisecondes
+     */
+    public void setDureeSession(long dureeSession) {
+        this.dureeSession = dureeSession;
+    }
+
+    /**
+     * Valide l'arrivée d'un nouveau client sur le serveur. Cette redéfinition
+     * de la méthode héritée de Serveur vérifie si le nouveau client a envoyé
+     * un alias composé uniquement des caractères a-z, A-Z, 0-9, - et _, qui n'est ni utilisé ni réservé par une
+     * session suspendue. Le client peut aussi reprendre sa session en envoyant REPRISE alias jeton [sequence].
+     *
+     * @param connexion Connexion la connexion représentant le client
+     * @param texte String l'alias envoyé par le client
+     * @return boolean true, si le client a validé correctement son arrivée, false, sinon
      */
     @Override
-    protected boolean validerConnexion(Connexion connexion) {
+    protected boolean validerConnexion(Connexion connexion, String texte) {
 
-        String texte = connexion.getAvailableText().trim();
+        texte = texte.trim();
+        if (texte.startsWith("REPRISE "))
+            return validerReprise(connexion, texte.substring(8).trim().split(" "));
         char c;
         int taille;
         boolean res = true;
@@ -80,48 +463,124 @@ public class ServeurChat extends Serveur {
         if (!res)
             return false;
         for (Connexion cnx:connectes) {
-            if (texte.equalsIgnoreCase(cnx.getAlias())) { //alias dj utilis
+            if (texte.equalsIgnoreCase(cnx.getAlias())) { //alias déjà utilisé
+                res = false;
+                break;
+            }
+        }
+        for (String alias : sessions.keySet()) {
+            if (texte.equalsIgnoreCase(alias)) { //alias d'une session suspendue
                 res = false;
                 break;
             }
         }
+        if (!res)
+            return false;
+        if (grappe != null && grappe.getNoeud(texte) != null) //alias utilisé sur un autre noeud de la grappe
+            return false;
         connexion.setAlias(texte);
         return true;
     }
 
+    /*
+      Valide la reprise d'une session : REPRISE alias jeton [sequence]. Sans numéro de séquence, le client reçoit les
+      messages arrivés depuis la suspension de sa session. Si la connexion précédente du client n'a pas encore été
+      détectée comme perdue, elle est fermée et la session suspendue, puis reprise par la nouvelle connexion.
+    */
+    private boolean validerReprise(Connexion connexion, String[] t) {
+        if (t.length < 2)
+            return false;
+        String alias = t[0];
+        long sequence;
+        SessionChat session;
+        Connexion ancienne = null;
+        synchronized (verrouSalons) {
+            session = sessions.get(alias);
+            if (session == null)
+                return false;
+            if (!session.isSuspendue() && session.verifierJeton(t[1])) {
+                for (Connexion cnx : connectes)
+                    if (alias.equals(cnx.getAlias()))
+                        ancienne = cnx;
+            }
+        }
+        //L'ancienne connexion est fermée hors du verrou des salons, comme tout départ : il est annoncé aux autres
+        //noeuds de la grappe, qui libèrent les salons du client sous leur propre verrou.
+        if (ancienne != null)
+            deconnecter(ancienne);
+        synchronized (verrouSalons) {
+            if (sessions.get(alias) != session || !session.reclamer(t[1]))
+                return false;
+            try {
+                sequence = t.length > 2 ? Math.min(Long.parseLong(t[2]), session.getSequenceSuspension())
+                        : session.getSequenceSuspension();
+            } catch (NumberFormatException e) {
+                sequence = session.getSequenceSuspension();
+            }
+            session.renouvelerJeton();
+        }
+        reprises.put(connexion, sequence);
+        connexion.setAlias(alias);
+        return true;
+    }
+
     /**
-     * Retourne la liste des alias des connects au serveur dans une chane de caractres.
+     * Retourne la liste des alias des connectés au serveur dans une chaîne de caractères.
      *
-     * @return String chane de caractres contenant la liste des alias des membres connects sous la
+     * @return String chaîne de caractères contenant la liste des alias des membres connectés sous la
      * forme alias1:alias2:alias3 ...
      */
     public String list() {
         String s = "";
         for (Connexion cnx:connectes)
             s+=cnx.getAlias()+":";
+        //Les connectés des autres noeuds de la grappe partagent le salon public :
+        if (grappe != null)
+            for (String alias : grappe.getAliasDistants())
+                s+=alias+":";
         return s;
     }
 
     /**
-     * Retourne la liste des messages de l'historique de chat dans une chane
-     * de caractres.
+     * Retourne la liste des messages de l'historique de chat dans une chaîne
+     * de caractères.
      *
-     * @return String chane de caractres contenant la liste des alias des membres connects sous la
+     * @return String chaîne de caractères contenant la liste des alias des membres connectés sous la
      * forme message1\nmessage2\nmessage3 ...
      */
     public String historique() {
-        String s = "";
-        for (String str: historique)
-            s+= str + "\n";
-        return s;
+        return historique(0);
     }
 
     /**
-     * Retourne la liste des alias qui ont envoys une invitation  utilisateur.
+     * Retourne les messages de l'historique qui suivent un numéro de séquence, par exemple ceux qu'un client qui
+     * reprend sa session n'a pas vus.
      *
-     * @param alias String chane de caractres reprsentant l'alias d'utilisateur invit dans une invitation.
+     * @param sequence long le numéro de séquence du dernier message déjà vu, 0 pour tout l'historique
+     * @return String chaîne de caractères contenant les messages sous la forme message1\nmessage2\n...
+     */
+    public String historique(long sequence) {
+        StringBuilder s = new StringBuilder();
+        for (String str : historique.tailMap(sequence, false).values())
+            s.append(str).append('\n');
+        return s.toString();
+    }
+
+    /**
+     * Retourne le numéro de séquence du dernier message ajouté à l'historique.
      *
-     * @return String chane de caractres contenant la liste des alias sous la forme alias1:alias2:alias3 ...
+     * @return long le numéro de séquence, 0 si l'historique est vide
+     */
+    public long getSequenceHistorique() {
+        return sequenceHistorique;
+    }
+
+    /**
+     * Retourne la liste des alias qui ont envoyés une invitation à utilisateur.
+     *
+     * @param alias String chaîne de caractères représentant l'alias d'utilisateur invité dans une invitation.
+     *
+     * @return String chaîne de caractères contenant la liste des alias sous la forme alias1:alias2:alias3 ...
      */
     public String listInvitations(String alias) {
         String s = "";
@@ -133,37 +592,96 @@ public class ServeurChat extends Serveur {
     }
 
     /**
-     * Envoie la chane str  tous les utilisateurs connects sauf  celui
-     * qui a lalias aliasExpediteur.
+     * Envoie la chaîne str à tous les utilisateurs connectés sauf à celui
+     * qui a lalias aliasExpediteur. Le message n'est encodé qu'une fois, quel que soit le nombre de destinataires.
+     * Si les connectés sont nombreux, il leur est envoyé par les threads de la diffusion.
      *
-     * @param str String chaine de caractres reprsentant le message  envoyer
-     * @param aliasExpediteur String chaine de caractres reprsentant l'alias d'un utilisateur connect
+     * @param str String chaine de caractères représentant le message à envoyer
+     * @param aliasExpediteur String chaine de caractères représentant l'alias d'un utilisateur connecté
      */
     public void envoyerATousSauf(String str, String aliasExpediteur) {
         String message = aliasExpediteur + ">>" + str;
-        ajouterHistorique(message);
-        for (Connexion cnx:connectes) {
-            if (!cnx.getAlias().equals(aliasExpediteur))
-                cnx.envoyer(message);
+        diffuserLocalement(message, aliasExpediteur);
+        if (grappe != null)
+            grappe.publierMessage(aliasExpediteur, message);
+    }
+
+    /**
+     * Ajoute un message du salon public à l'historique et l'envoie aux connectés de ce serveur seulement, sauf à
+     * son expéditeur. Un message reçu d'un autre noeud de la grappe n'est diffusé que de cette façon.
+     *
+     * @param message String le message, tel qu'il est envoyé aux connectés (alias>>texte)
+     * @param aliasExpediteur String l'alias du connecté qui a envoyé le message
+     */
+    public void diffuserLocalement(String message, String aliasExpediteur) {
+        TrameDiffusee trame = new TrameDiffusee(message, "MSG");
+        verrouDiffusion.readLock().lock();
+        try {
+            ajouterHistorique(message);
+            diffusion.diffuser(connectes, trame, aliasExpediteur);
+        } finally {
+            verrouDiffusion.readLock().unlock();
         }
     }
 
     /**
-     * Reoit une chane de caractres (qui reprsente un message) et
-     * lajoute  lhistorique des messages.
+     * Retourne le registre des commandes du serveur, pour y enregistrer de nouvelles commandes ou consulter les
+     * compteurs d'exécutions des commandes.
+     *
+     * @return RegistreCommandes le registre des commandes
+     */
+    public RegistreCommandes getCommandes() {
+        return commandes;
+    }
+
+    /**
+     * Retourne le lien du serveur avec les autres noeuds de sa grappe.
+     *
+     * @return Grappe la grappe, ou null si le serveur est seul
+     */
+    public Grappe getGrappe() {
+        return grappe;
+    }
+
+    /**
+     * Fait du serveur un noeud d'une grappe, qui partage le salon public avec les autres noeuds. N'a d'effet qu'au
+     * prochain démarrage.
+     *
+     * @param idNoeud String l'identifiant du noeud, unique dans la grappe et sans espace
+     * @param bus BusGrappe le bus qui relie les noeuds de la grappe, ou null pour que le serveur soit seul
+     */
+    public void setGrappe(String idNoeud, BusGrappe bus) {
+        grappe = bus == null ? null : new Grappe(idNoeud, bus, this);
+    }
+
+    /**
+     * Retourne la diffusion des messages du salon public, pour en régler le seuil.
+     *
+     * @return DiffusionParallele la diffusion des messages du salon public
+     */
+    public DiffusionParallele getDiffusion() {
+        return diffusion;
+    }
+
+    /**
+     * Reçoit une chaîne de caractères (qui représente un message) et
+     * lajoute à lhistorique des messages.
      *
-     * @param str String chaine de caractres reprsentant le message  ajouter
+     * @param str String chaine de caractères représentant le message à ajouter
      */
     public void ajouterHistorique(String str) {
-        historique.add(str);
+        //Les numéros de séquence suivent l'ordre d'ajout, même si plusieurs réacteurs ajoutent des messages :
+        synchronized (historique) {
+            historique.put(++sequenceHistorique, str);
+        }
     }
 
     /**
-     * Envoie la chane message  seulement un utilisateur qui a l'alias alias en priv
+     * Envoie la chaîne message à seulement un utilisateur qui a l'alias alias en privé
      *
-     * @param alias String chaine de caractres reprsentant le message  envoyer
+     * @param alias String chaine de caractères représentant le message à envoyer
      *
-     * @return Connexion reprsentant l'object Connexion d'un utilisateur
+     * @return Connexion représentant l'object Connexion d'un utilisateur
      */
     public Connexion envoyerMessagePrive(String alias) {
         for (Connexion utilisateur : connectes) {
@@ -171,15 +689,17 @@ public class ServeurChat extends Serveur {
                 return utilisateur;
             }
         }
-        return null;
+        //Un utilisateur connecté à un autre noeud de la grappe est joint par le bus :
+        String noeud = grappe == null ? null : grappe.getNoeudDistant(alias);
+        return noeud == null ? null : new ConnexionDistante(alias, noeud, grappe);
     }
 
     /**
-     * Vrifie l'existence de l'alias en tant qu'utilisateur
+     * Vérifie l'existence de l'alias en tant qu'utilisateur
      *
-     * @param alias String chaine de caractres reprsentant l'alias d'un utilisateur
+     * @param alias String chaine de caractères représentant l'alias d'un utilisateur
      *
-     * @return Boolean reprsentant l'existence de l'utilisateur ou non
+     * @return Boolean représentant l'existence de l'utilisateur ou non
      */
     public boolean verifierExistenceUtilisateur(String alias) {
         for (Connexion utilisateur : connectes) {
@@ -187,16 +707,16 @@ public class ServeurChat extends Serveur {
                 return true;
             }
         }
-        return false;
+        return grappe != null && grappe.getNoeudDistant(alias) != null;
     }
 
     /**
-     * Vrifie l'existence d'un salon priv avec deux utilisateurs
+     * Vérifie l'existence d'un salon privé avec deux utilisateurs
      *
-     * @param alias1 String chaine de caractres reprsentant l'alias d'un utilisateur
-     * @param alias2 String chaine de caractres reprsentant l'alias d'un utilisateur
+     * @param alias1 String chaine de caractères représentant l'alias d'un utilisateur
+     * @param alias2 String chaine de caractères représentant l'alias d'un utilisateur
      *
-     * @return int reprsentant l'index du salon priv ou -1 si il n'existe pas
+     * @return int représentant l'index du salon privé ou -1 si il n'existe pas
      */
     public int verifierExistenceSalonPrive(String alias1, String alias2) {
         for (SalonPrive salonPrive:salonsPrives) {
@@ -208,11 +728,26 @@ public class ServeurChat extends Serveur {
     }
 
     /**
-     * Trouver le salon priv en partie d'chec avec un utilisateur
+     * Trouve, sous le verrou des salons, le salon privé où un utilisateur joue une partie d'échec. Sert aux commandes
+     * qui ne s'exécutent pas sous le verrou des salons, comme MOVE.
+     *
+     * @param alias String chaine de caractères représentant l'alias d'un utilisateur
+     *
+     * @return SalonPrive le salon privé, ou null si l'utilisateur ne joue pas de partie d'échec
+     */
+    public SalonPrive chercherPartie(String alias) {
+        synchronized (verrouSalons) {
+            int indexSalonPrive = rechercheSalonPrive(alias);
+            return indexSalonPrive == -1 ? null : salonsPrives.get(indexSalonPrive);
+        }
+    }
+
+    /**
+     * Trouver le salon privé en partie d'échec avec un utilisateur
      *
-     * @param alias1 String chaine de caractres reprsentant l'alias d'un utilisateur
+     * @param alias1 String chaine de caractères représentant l'alias d'un utilisateur
      *
-     * @return int reprsentant l'index du salon priv ou -1 si il n'existe pas
+     * @return int représentant l'index du salon privé ou -1 si il n'existe pas
      */
     public int rechercheSalonPrive(String alias1) {
         for (SalonPrive salonPrive:salonsPrives) {
@@ -224,12 +759,12 @@ public class ServeurChat extends Serveur {
     }
 
     /**
-     * Vrifie l'existence d'une invitation de chat priv entre deux utilisateurs
+     * Vérifie l'existence d'une invitation de chat privé entre deux utilisateurs
      *
-     * @param alias1 String chaine de caractres reprsentant l'alias d'un utilisateur
-     * @param alias2 String chaine de caractres reprsentant l'alias d'un utilisateur
+     * @param alias1 String chaine de caractères représentant l'alias d'un utilisateur
+     * @param alias2 String chaine de caractères représentant l'alias d'un utilisateur
      *
-     * @return Invitation reprsentant l'objet invitation ou null
+     * @return Invitation représentant l'objet invitation ou null
      */
     public Invitation verifierExistenceInvitation(String alias1, String alias2, boolean isInvitationEchec) {
         Invitation invitation = new Invitation(alias1, alias2, isInvitationEchec);
@@ -245,12 +780,12 @@ public class ServeurChat extends Serveur {
     }
 
     /**
-     * Gre la commande JOIN lorsqu'une invitation existe
+     * Gère la commande JOIN lorsqu'une invitation existe
      *
-     * @param cnx Connexion objet qui reprsente l'utilisateur qui envoit la commande
-     * @param aliasInvite String chaine de caractres reprsentant l'alias de l'expditeur
-     * @param aliasExpediteur String chaine de caractres reprsentant l'alias de l'invit
-     * @param invitation Invitation Objet reprsentant l'invitation
+     * @param cnx Connexion objet qui représente l'utilisateur qui envoit la commande
+     * @param aliasInvite String chaine de caractères représentant l'alias de l'expéditeur
+     * @param aliasExpediteur String chaine de caractères représentant l'alias de l'invité
+     * @param invitation Invitation Objet représentant l'invitation
      */
     public void traiterJoinInvitationExistente(Connexion cnx, String aliasExpediteur, String aliasInvite, Invitation invitation) {
         boolean isAliasHote = invitation.getIsAliasHote();
@@ -258,7 +793,7 @@ public class ServeurChat extends Serveur {
         boolean isInvitationEchec = invitation.getIsInvitationEchec();
 
         if (isAliasHote) {
-            cnx.envoyer("Vous avez dj envoy une invitation  " + aliasInvite + "!");
+            cnx.envoyer("Vous avez déjà envoyé une invitation à " + aliasInvite + "!");
         } else if (isAliasInvite) {
             if (!isInvitationEchec) {
                 salonsPrives.add(new SalonPrive(aliasInvite, aliasExpediteur));
@@ -285,6 +820,8 @@ public class ServeurChat extends Serveur {
                 salonsPrives.get(indexSalonPrive).setPartieEchecs(partieEchecs);
 
                 invitationsEchec.remove(new Invitation(aliasInvite, aliasExpediteur, true));
+                if (grappe != null)
+                    grappe.annoncerPartie(aliasInvite, aliasExpediteur);
                 envoyerMessagePrive(aliasInvite).envoyer("CHESSOK " + couleurAleatoire);
                 envoyerMessagePrive(aliasExpediteur).envoyer("CHESSOK " + (couleurAleatoire == 'b' ? 'n' : 'b'));
             }
@@ -292,12 +829,12 @@ public class ServeurChat extends Serveur {
     }
 
     /**
-     * Gre la commande DECLINE pour une invitation
+     * Gère la commande DECLINE pour une invitation
      *
-     * @param cnx             Connexion objet qui reprsente l'utilisateur qui envoit la commande
-     * @param aliasExpediteur String chaine de caractres reprsentant l'alias de l'expditeur
-     * @param aliasInvite     String chaine de caractres reprsentant l'alias de l'invit
-     * @param invitation      Invitation Objet reprsentant l'invitation
+     * @param cnx             Connexion objet qui représente l'utilisateur qui envoit la commande
+     * @param aliasExpediteur String chaine de caractères représentant l'alias de l'expéditeur
+     * @param aliasInvite     String chaine de caractères représentant l'alias de l'invité
+     * @param invitation      Invitation Objet représentant l'invitation
      */
     public void traiterDeclineInvitation(Connexion cnx, String aliasExpediteur, String aliasInvite, Invitation invitation) {
         boolean isInvitationEchec = invitation.getIsInvitationEchec();
@@ -311,26 +848,37 @@ public class ServeurChat extends Serveur {
         boolean isAliasInvite = invitation.getIsAliasInvite();
 
         if (isAliasHote) {
-            cnx.envoyer("Annulation de l'invitation avec succs!");
+            cnx.envoyer("Annulation de l'invitation avec succès!");
         } else if (isAliasInvite) {
-            cnx.envoyer("Refus de l'invitation avec succs!");
+            cnx.envoyer("Refus de l'invitation avec succès!");
             envoyerMessagePrive(aliasInvite).envoyer("DECLINE " + aliasExpediteur);
         }
     }
 
     /**
-     * Gre la commande MOVE pour un mouvement dans une partie d'chec
+     * Gère la commande MOVE pour un mouvement dans une partie d'échec
      *
-     * @param cnx             Connexion objet qui reprsente l'utilisateur qui envoit la commande
-     * @param evenement       Evenement objet reprsentant la commande
+     * @param cnx             Connexion objet qui représente l'utilisateur qui envoit la commande
+     * @param evenement       Evenement objet représentant la commande
      */
     public void traiterMouvement(Evenement evenement, Connexion cnx) {
         String aliasExpediteur = cnx.getAlias();
         String deplacement = evenement.getArgument();
-        int indexSalonPrive = rechercheSalonPrive(aliasExpediteur);
+        SalonPrive salonPrive = chercherPartie(aliasExpediteur);
+        PartieEchecs partieEchecs = salonPrive == null ? null : salonPrive.getPartieEchecs();
 
-        if (indexSalonPrive != -1 && salonsPrives.get(indexSalonPrive).getPartieEchecs() != null) {
-            PartieEchecs partieEchecs = salonsPrives.get(indexSalonPrive).getPartieEchecs();
+        if (partieEchecs == null) {
+            cnx.envoyer("Vous n'êtes pas dans une partie d'échec!");
+            return;
+        }
+        //Le mouvement n'est validé que sous le verrou de sa partie : le test d'échec et mat ne fait pas attendre les
+        //commandes des autres salons.
+        synchronized (partieEchecs) {
+            //La partie a pu se terminer (abandon, départ d'un joueur) depuis qu'elle a été trouvée :
+            if (salonPrive.getPartieEchecs() != partieEchecs || !salonsPrives.contains(salonPrive)) {
+                cnx.envoyer("Vous n'êtes pas dans une partie d'échec!");
+                return;
+            }
             char couleurJoueurActuel = aliasExpediteur.equals(partieEchecs.getAliasJoueur1()) ?
                     partieEchecs.getCouleurJoueur1() : partieEchecs.getCouleurJoueur2();
             String aliasJoueurEnnemi = aliasExpediteur.equals(partieEchecs.getAliasJoueur1()) ?
@@ -350,31 +898,30 @@ public class ServeurChat extends Serveur {
                     }
                 }
 
-                // Vrification du format
+                // Vérification du format
                 if (chars.length == 4 && digits.length() == 2) {
-                    traiterMouvementValide(chars, digits, deplacement, partieEchecs, cnx, aliasExpediteur, aliasJoueurEnnemi, couleurJoueurEnnemi);
+                    traiterMouvementValide(chars, digits, deplacement, salonPrive, cnx, aliasExpediteur, aliasJoueurEnnemi, couleurJoueurEnnemi);
                 } else {
                     cnx.envoyer("INVALID");
                 }
             }
-        } else {
-            cnx.envoyer("Vous n'tes pas dans une partie d'chec!");
         }
     }
 
     /**
-     * Gre une commande MOVE qui est valide pour un mouvement dans une partie d'chec
+     * Gère une commande MOVE qui est valide pour un mouvement dans une partie d'échec
      *
-     * @param chars           Tableau des caractres reprsentant le mouvement
-     * @param digits          Chaine de caractres reprsentant les lignes d'un mouvement
-     * @param deplacement     Chaine de caractres reprsentant le mouvement
-     * @param partieEchecs    PartieEchecs objet reprsentant une partie d'chec
-     * @param cnx             Connexion objet qui reprsente l'utilisateur qui envoit la commande
-     * @param aliasExpediteur String chaine de caractres reprsentant l'alias de l'expditeur
-     * @param aliasJoueurEnnemi String chaine de caractres reprsentant le joueur adverse
-     * @param couleurJoueurEnnemi char caractre reprsentant la couleur du joueur adverse
+     * @param chars           Tableau des caractères représentant le mouvement
+     * @param digits          Chaine de caractères représentant les lignes d'un mouvement
+     * @param deplacement     Chaine de caractères représentant le mouvement
+     * @param salonPrive      SalonPrive objet représentant le salon privé où se déroule la partie d'échec
+     * @param cnx             Connexion objet qui représente l'utilisateur qui envoit la commande
+     * @param aliasExpediteur String chaine de caractères représentant l'alias de l'expéditeur
+     * @param aliasJoueurEnnemi String chaine de caractères représentant le joueur adverse
+     * @param couleurJoueurEnnemi char caractère représentant la couleur du joueur adverse
      */
-    private void traiterMouvementValide(char[] chars, String digits,  String deplacement, PartieEchecs partieEchecs, Connexion cnx, String aliasExpediteur, String aliasJoueurEnnemi, char couleurJoueurEnnemi) {
+    private void traiterMouvementValide(char[] chars, String digits,  String deplacement, SalonPrive salonPrive, Connexion cnx, String aliasExpediteur, String aliasJoueurEnnemi, char couleurJoueurEnnemi) {
+        PartieEchecs partieEchecs = salonPrive.getPartieEchecs();
         char colonne1 = chars[0];
         byte ligne1 = Byte.parseByte(digits.substring(0, 1));
         char colonne2 = chars[2];
@@ -389,55 +936,62 @@ public class ServeurChat extends Serveur {
             boolean estEnEchec = partieEchecs.estEnEchec() == couleurJoueurEnnemi;
 
             if (!partieEchecs.estEnEchecEtMat(partieEchecs.getTour())) {
-                traiterNonEchecEtMat(roqueRoiFait, roqueDameFait, deplacementRoqueRoi, deplacementRoqueDame, estEnEchec, deplacement, cnx, aliasJoueurEnnemi, aliasExpediteur);
+                traiterNonEchecEtMat(roqueRoiFait, roqueDameFait, deplacementRoqueRoi, deplacementRoqueDame, estEnEchec, deplacement, cnx, aliasJoueurEnnemi, partieEchecs);
             } else {
-                traiterEchecEtMat(roqueRoiFait, roqueDameFait, deplacementRoqueRoi, deplacementRoqueDame, deplacement, cnx, aliasExpediteur, aliasJoueurEnnemi, partieEchecs);
+                traiterEchecEtMat(roqueRoiFait, roqueDameFait, deplacementRoqueRoi, deplacementRoqueDame, deplacement, cnx, aliasExpediteur, aliasJoueurEnnemi, salonPrive);
             }
         } else {
             cnx.envoyer("INVALID");
         }
     }
 
-    private void traiterNonEchecEtMat(boolean roqueRoiFait, boolean roqueDameFait, String deplacementRoqueRoi, String deplacementRoqueDame,  boolean estEnEchec, String deplacement, Connexion cnx, String aliasJoueurEnnemi, String aliasExpediteur) {
-        int indexSalonPrive = rechercheSalonPrive(aliasExpediteur);
-        PartieEchecs partieEchecs = salonsPrives.get(indexSalonPrive).getPartieEchecs();
+    /*
+      Envoie un texte à l'adversaire d'un joueur qui vient de jouer. L'adversaire a pu partir pendant le mouvement :
+      son départ, traité après le mouvement, en avertira alors le joueur.
+    */
+    private void envoyerAdversaire(String aliasJoueurEnnemi, String texte) {
+        Connexion ennemi = envoyerMessagePrive(aliasJoueurEnnemi);
+        if (ennemi != null)
+            ennemi.envoyer(texte);
+    }
 
+    private void traiterNonEchecEtMat(boolean roqueRoiFait, boolean roqueDameFait, String deplacementRoqueRoi, String deplacementRoqueDame,  boolean estEnEchec, String deplacement, Connexion cnx, String aliasJoueurEnnemi, PartieEchecs partieEchecs) {
         if ((roqueRoiFait || roqueDameFait) && !estEnEchec) {
             String deplacementRoque = roqueRoiFait ? deplacementRoqueRoi : deplacementRoqueDame;
             cnx.envoyer("MOVE " + deplacement + deplacementRoque);
-            envoyerMessagePrive(aliasJoueurEnnemi).envoyer("MOVE " + deplacement + deplacementRoque);
+            envoyerAdversaire(aliasJoueurEnnemi, "MOVE " + deplacement + deplacementRoque);
             partieEchecs.setRoqueRoiVientEtreFait(false);
             partieEchecs.setRoqueDameVientEtreFait(false);
         } else if ((!roqueRoiFait && !roqueDameFait) && !estEnEchec) {
             cnx.envoyer("MOVE " + deplacement);
-            envoyerMessagePrive(aliasJoueurEnnemi).envoyer("MOVE " + deplacement);
+            envoyerAdversaire(aliasJoueurEnnemi, "MOVE " + deplacement);
         } else if (roqueRoiFait || roqueDameFait) {
             String deplacementRoque = roqueRoiFait ? deplacementRoqueRoi : deplacementRoqueDame;
             String moveMessage = "ECHEC " + aliasJoueurEnnemi + "/" + deplacement + deplacementRoque;
             cnx.envoyer(moveMessage);
-            envoyerMessagePrive(aliasJoueurEnnemi).envoyer(moveMessage);
+            envoyerAdversaire(aliasJoueurEnnemi, moveMessage);
             partieEchecs.setRoqueRoiVientEtreFait(false);
             partieEchecs.setRoqueDameVientEtreFait(false);
         } else {
             String moveMessage = "ECHEC " + aliasJoueurEnnemi + "/" + deplacement;
             cnx.envoyer(moveMessage);
-            envoyerMessagePrive(aliasJoueurEnnemi).envoyer(moveMessage);
+            envoyerAdversaire(aliasJoueurEnnemi, moveMessage);
         }
     }
 
-    private void traiterEchecEtMat(boolean roqueRoiFait, boolean roqueDameFait, String deplacementRoqueRoi, String deplacementRoqueDame, String deplacement, Connexion cnx, String aliasExpediteur, String aliasJoueurEnnemi, PartieEchecs partieEchecs) {
-        int indexSalonPrive = rechercheSalonPrive(aliasExpediteur);
+    private void traiterEchecEtMat(boolean roqueRoiFait, boolean roqueDameFait, String deplacementRoqueRoi, String deplacementRoqueDame, String deplacement, Connexion cnx, String aliasExpediteur, String aliasJoueurEnnemi, SalonPrive salonPrive) {
+        PartieEchecs partieEchecs = salonPrive.getPartieEchecs();
         if (roqueRoiFait || roqueDameFait) {
             String deplacementRoque = roqueRoiFait ? deplacementRoqueRoi : deplacementRoqueDame;
             String moveMessage = "MAT " + aliasExpediteur + "/" + deplacement + deplacementRoque;
             cnx.envoyer(moveMessage);
-            envoyerMessagePrive(aliasJoueurEnnemi).envoyer(moveMessage);
+            envoyerAdversaire(aliasJoueurEnnemi, moveMessage);
             partieEchecs.setRoqueRoiVientEtreFait(false);
             partieEchecs.setRoqueDameVientEtreFait(false);
         } else {
             cnx.envoyer("MAT " + aliasExpediteur + "/" + deplacement);
-            envoyerMessagePrive(aliasJoueurEnnemi).envoyer("MAT " + aliasExpediteur + "/" + deplacement);
-            salonsPrives.get(indexSalonPrive).setPartieEchecs(null);
+            envoyerAdversaire(aliasJoueurEnnemi, "MAT " + aliasExpediteur + "/" + deplacement);
+            salonPrive.setPartieEchecs(null);
         }
     }
 }
@@ -0,0 +1,132 @@
+package com.chat.serveur;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Représente la session d'un client du serveur de chat. À son arrivée, le client reçoit un jeton de reprise
+ * (SESSION alias jeton sequence). Si sa connexion est perdue, sa session est suspendue : ses salons privés, et les
+ * parties d'échecs qui s'y déroulent, sont mis de côté. Pendant un délai limité, le client peut alors se reconnecter
+ * en répondant au serveur REPRISE alias jeton [sequence] au lieu de son alias : il ne reçoit que les messages du salon
+ * public qui suivent la séquence donnée, et retrouve ses salons privés.
+ */
+public class SessionChat {
+
+    private static final SecureRandom ALEATOIRE = new SecureRandom();
+
+    private final String alias;
+    private String jeton;
+    //Salons privés du client mis de côté pendant que sa session est suspendue :
+    private final List<SalonPrive> salons = new ArrayList<>();
+    //Numéro du dernier message de l'historique au moment où la session a été suspendue :
+    private long sequenceSuspension;
+    private boolean suspendue;
+    private int nbSuspensions;
+
+    /**
+     * Construit la session d'un client qui vient d'arriver, avec un nouveau jeton.
+     *
+     * @param alias String l'alias du client
+     */
+    public SessionChat(String alias) {
+        this.alias = alias;
+        renouvelerJeton();
+    }
+
+    /**
+     * Remplace le jeton de la session par un nouveau jeton aléatoire : un jeton ne sert qu'à une reprise.
+     *
+     * @return String le nouveau jeton
+     */
+    public synchronized String renouvelerJeton() {
+        byte[] octets = new byte[18];
+        ALEATOIRE.nextBytes(octets);
+        jeton = Base64.getUrlEncoder().withoutPadding().encodeToString(octets);
+        return jeton;
+    }
+
+    /**
+     * Suspend la session d'un client dont la connexion a été perdue.
+     *
+     * @param salonsClient List les salons privés du client, retirés des salons du serveur
+     * @param sequence long le numéro du dernier message de l'historique
+     * @return int le nombre de suspensions de la session, celle-ci comprise
+     */
+    public synchronized int suspendre(List<SalonPrive> salonsClient, long sequence) {
+        salons.addAll(salonsClient);
+        sequenceSuspension = sequence;
+        suspendue = true;
+        return ++nbSuspensions;
+    }
+
+    /**
+     * Vérifie le jeton présenté par un client. La comparaison prend le même temps quel que soit le nombre de
+     * caractères corrects.
+     *
+     * @param jetonClient String le jeton présenté par le client
+     * @return boolean true si le jeton est celui de la session
+     */
+    public synchronized boolean verifierJeton(String jetonClient) {
+        return jetonClient != null && MessageDigest.isEqual(jeton.getBytes(StandardCharsets.UTF_8),
+                jetonClient.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Réclame une session suspendue pour un client qui se reconnecte.
+     *
+     * @param jetonClient String le jeton présenté par le client
+     * @return boolean true si la session était suspendue et que le jeton est le bon ; la session n'est alors plus
+     * suspendue
+     */
+    public synchronized boolean reclamer(String jetonClient) {
+        if (!suspendue || !verifierJeton(jetonClient))
+            return false;
+        suspendue = false;
+        return true;
+    }
+
+    /**
+     * Retire et retourne les salons privés mis de côté pendant la suspension.
+     *
+     * @return List les salons privés
+     */
+    public synchronized List<SalonPrive> retirerSalons() {
+        List<SalonPrive> res = new ArrayList<>(salons);
+        salons.clear();
+        return res;
+    }
+
+    /**
+     * Met de côté un salon privé de plus, par exemple celui d'un autre client suspendu dont l'autre membre est ce
+     * client.
+     *
+     * @param salon SalonPrive le salon privé
+     */
+    public synchronized void ajouterSalon(SalonPrive salon) {
+        salons.add(salon);
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public synchronized String getJeton() {
+        return jeton;
+    }
+
+    public synchronized long getSequenceSuspension() {
+        return sequenceSuspension;
+    }
+
+    public synchronized boolean isSuspendue() {
+        return suspendue;
+    }
+
+    public synchronized int getNbSuspensions() {
+        return nbSuspensions;
+    }
+}
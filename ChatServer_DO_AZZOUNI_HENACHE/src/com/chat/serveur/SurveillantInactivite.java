@@ -0,0 +1,144 @@
+package com.chat.serveur;
+
+import com.chat.commun.net.Connexion;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Surveille l'activité des clients connectés et expulse ceux qui ne répondent plus. Un client silencieux depuis un
+ * intervalle reçoit un PING ; s'il reste silencieux après plusieurs PING, il est expulsé du serveur. Toute trame
+ * reçue du client, PONG ou autre, compte comme une activité.
+ * <p>
+ * Les échéances sont rangées dans une roue temporelle : une liste de cases, une par tic de la minuterie, que la
+ * méthode run() parcourt une à une. Une trame reçue ne touche pas à la roue, elle met seulement à jour la date de
+ * dernière activité de la connexion ; l'échéance est repoussée paresseusement, lorsque sa case est parcourue. Ajouter
+ * une connexion et traiter une échéance coûtent donc un temps constant, quel que soit le nombre de connectés.
+ */
+public class SurveillantInactivite implements Runnable {
+    /**
+     * Nombre de cases de la roue temporelle.
+     */
+    public static final int NB_CASES = 64;
+    /**
+     * Nombre de tics de la minuterie par intervalle de PING.
+     */
+    public static final int TICS_PAR_INTERVALLE = 16;
+
+    //Échéance d'une connexion surveillée :
+    private static class Echeance {
+        final Connexion connexion;
+        //Nombre de PING envoyés sans activité du client depuis :
+        int pingsSansReponse;
+        //Date d'envoi du dernier PING :
+        long dernierPing;
+        //Tic auquel l'échéance doit être traitée (elle peut attendre plusieurs tours de roue) :
+        long tic;
+        //Délai avant la prochaine échéance, pendant le parcours d'une case :
+        long delai;
+
+        Echeance(Connexion connexion) {
+            this.connexion = connexion;
+        }
+    }
+
+    private final Serveur serveur;
+    private final long intervalle;
+    private final int nbPingsManquesMax;
+    private final long dureeTic;
+    private final List<List<Echeance>> cases;
+    //Tic courant de la roue :
+    private long ticCourant;
+
+    /**
+     * Crée un surveillant pour les connectés d'un serveur.
+     *
+     * @param serveur Serveur le serveur dont les clients sont surveillés
+     * @param intervalle long la durée d'inactivité, en millisecondes, après laquelle un PING est envoyé
+     * @param nbPingsManquesMax int le nombre de PING sans réponse après lequel un client est expulsé
+     */
+    public SurveillantInactivite(Serveur serveur, long intervalle, int nbPingsManquesMax) {
+        this.serveur = serveur;
+        this.intervalle = intervalle;
+        this.nbPingsManquesMax = nbPingsManquesMax;
+        this.dureeTic = Math.max(1, intervalle / TICS_PAR_INTERVALLE);
+        cases = new ArrayList<>(NB_CASES);
+        for (int i = 0; i < NB_CASES; i++)
+            cases.add(new ArrayList<>());
+    }
+
+    /**
+     * Retourne la durée d'un tic, soit la période à laquelle la méthode run() doit être appelée.
+     *
+     * @return long la durée d'un tic, en millisecondes
+     */
+    public long getDureeTic() {
+        return dureeTic;
+    }
+
+    /**
+     * Commence à surveiller l'activité d'un client connecté.
+     *
+     * @param connexion Connexion la connexion représentant le client
+     */
+    public synchronized void surveiller(Connexion connexion) {
+        planifier(new Echeance(connexion), intervalle);
+    }
+
+    /**
+     * Avance la roue d'un tic et traite les échéances de la case atteinte. Les clients qui ont manqué trop de PING,
+     * ou dont la connexion a été perdue, sont expulsés après le parcours, hors du verrou de la roue.
+     */
+    @Override
+    public void run() {
+        List<Connexion> aExpulser = new ArrayList<>();
+        synchronized (this) {
+            ticCourant++;
+            long maintenant = System.currentTimeMillis(), inactivite;
+            List<Echeance> caseCourante = cases.get((int) (ticCourant % NB_CASES));
+            List<Echeance> aReplanifier = new ArrayList<>();
+            Iterator<Echeance> it = caseCourante.iterator();
+            while (it.hasNext()) {
+                Echeance echeance = it.next();
+                if (echeance.tic > ticCourant) //Prévue pour un prochain tour de roue
+                    continue;
+                it.remove();
+                //Une connexion fermée sans que le serveur le sache (écriture en erreur) doit quand même être retirée :
+                if (echeance.connexion.isFermee()) {
+                    aExpulser.add(echeance.connexion);
+                    continue;
+                }
+                if (echeance.connexion.getDerniereActivite() >= echeance.dernierPing)
+                    echeance.pingsSansReponse = 0; //Le client a donné signe de vie depuis le dernier PING
+                inactivite = maintenant - echeance.connexion.getDerniereActivite();
+                if (inactivite < intervalle) {
+                    //Le client n'est pas resté silencieux tout un intervalle : on repousse l'échéance.
+                    echeance.delai = intervalle - inactivite;
+                    aReplanifier.add(echeance);
+                } else if (echeance.pingsSansReponse >= nbPingsManquesMax) {
+                    aExpulser.add(echeance.connexion);
+                } else {
+                    echeance.pingsSansReponse++;
+                    echeance.dernierPing = maintenant;
+                    echeance.connexion.envoyer("PING");
+                    echeance.delai = intervalle;
+                    aReplanifier.add(echeance);
+                }
+            }
+            for (Echeance echeance : aReplanifier)
+                planifier(echeance, echeance.delai);
+        }
+        for (Connexion connexion : aExpulser)
+            serveur.expulser(connexion);
+    }
+
+    /*
+      Range une échéance dans la case correspondant au délai donné, arrondi au tic suivant.
+    */
+    private void planifier(Echeance echeance, long delai) {
+        long nbTics = Math.max(1, (delai + dureeTic - 1) / dureeTic);
+        echeance.tic = ticCourant + nbTics;
+        cases.get((int) (echeance.tic % NB_CASES)).add(echeance);
+    }
+}
@@ -0,0 +1,39 @@
+package com.chat.serveur;
+
+import com.chat.commun.net.Connexion;
+
+import java.util.List;
+
+/**
+ * Cette classe représente la tâche qui lit le texte d'une seule connexion en mode ModeServeur.THREAD_PAR_CONNEXION.
+ * Elle bloque en lecture sur le socket du client et fait traiter chaque trame reçue par le serveur, dès son arrivée.
+ */
+public class TacheConnexion implements Runnable {
+
+    private final Serveur serveur;
+    private final Connexion connexion;
+
+    /**
+     * Construit la tâche de lecture d'une connexion.
+     *
+     * @param serveur Serveur Le serveur qui traite le texte reçu
+     * @param connexion Connexion La connexion sur laquelle la tâche lit
+     */
+    public TacheConnexion(Serveur serveur, Connexion connexion) {
+        this.serveur = serveur;
+        this.connexion = connexion;
+    }
+
+    /**
+     * Méthode principale de la tâche. Lit le texte de la connexion jusqu'à ce que celle-ci soit fermée, puis la
+     * retire du serveur.
+     */
+    public void run() {
+        List<String> trames;
+        while ((trames = connexion.attendreTrames()) != null) {
+            serveur.traiterTrames(connexion, trames);
+        }
+        if (serveur.isDemarre())
+            serveur.fermer(connexion);
+    }
+}
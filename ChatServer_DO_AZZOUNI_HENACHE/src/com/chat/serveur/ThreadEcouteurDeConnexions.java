@@ -3,34 +3,53 @@ package com.chat.serveur;
 import com.chat.serveur.Serveur;
 
 /**
- * Cette classe permet de crer des threads capables d'couter continuellement sur un objet de type Serveur
- * l'arrive de nouveaux clients.
+ * Cette classe permet de créer des threads capables d'écouter continuellement sur un objet de type Serveur
+ * l'arrivée de nouveaux clients. Plusieurs de ces threads peuvent attendre sur le même serveur pour absorber plus
+ * vite une rafale de connexions. Un thread peut aussi attendre les clients qui se connectent au socket Unix du
+ * serveur.
  *
- * @author Abdelmoumne Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
+ * @author Abdelmoumène Toudeft (Abdelmoumene.Toudeft@etsmtl.ca)
  * @version 1.0
  * @since 2023-09-01
  */
 public class ThreadEcouteurDeConnexions extends Thread {
 
     Serveur serveur;
+    //Indique si le thread attend les clients du socket Unix plutôt que ceux du port TCP :
+    private final boolean unix;
 
     /**
      * Construit un thread sur un serveur.
      *
-     * @param s Serveur Le serveur sur lequel le thread va couter.
+     * @param s Serveur Le serveur sur lequel le thread va écouter.
      */
     public ThreadEcouteurDeConnexions(Serveur s) {
+        this(s, false);
+    }
+
+    /**
+     * Construit un thread sur un serveur, qui attend les clients du port TCP ou du socket Unix du serveur.
+     *
+     * @param s Serveur Le serveur sur lequel le thread va écouter.
+     * @param unix boolean true pour attendre les clients du socket Unix, false pour ceux du port TCP
+     */
+    public ThreadEcouteurDeConnexions(Serveur s, boolean unix) {
         serveur = s;
+        this.unix = unix;
     }
 
     /**
-     * Mthode principale du thread. Cette mthode appelle continuellement la mthode attendConnexion() du serveur.
+     * Méthode principale du thread. Cette méthode appelle continuellement la méthode attendConnexion() (ou
+     * attendConnexionUnix()) du serveur, qui bloque jusqu'à l'arrivée d'un client. Elle ne fait une courte pause
+     * qu'après un échec, pour ne pas tourner à vide si, par exemple, le processus n'a plus de descripteurs de
+     * fichiers disponibles.
      */
     public void run() {
         while (!interrupted()) {
-            serveur.attendConnexion();
+            if (unix ? serveur.attendConnexionUnix() : serveur.attendConnexion())
+                continue;
             try {
-                Thread.sleep(100);
+                Thread.sleep(10);
             } catch (InterruptedException e) {
                 break;
             }
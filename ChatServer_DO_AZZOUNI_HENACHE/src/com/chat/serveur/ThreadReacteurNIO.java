@@ -0,0 +1,229 @@
+package com.chat.serveur;
+
+import com.chat.commun.net.Connexion;
+import com.chat.commun.net.PlanificateurEnvoi;
+import com.chat.commun.net.PoolTampons;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cette classe représente une boucle d'événements NIO pour un serveur. Un seul thread attend sur un sélecteur
+ * l'arrivée de nouveaux clients et de texte, et ne se réveille que pour les sockets prêts. Elle remplace, en mode
+ * ModeServeur.NIO, le ThreadEcouteurDeConnexions et le ThreadEcouteurDeTexte.
+ * <p>
+ * Le serveur peut avoir plusieurs réacteurs, un par processeur. Seul le premier écoute sur le port du serveur : il
+ * confie chaque client accepté à l'un des réacteurs, à tour de rôle, et ce réacteur lit et écrit la connexion du
+ * client jusqu'à sa fermeture. Les trames d'un même client sont donc toujours traitées dans l'ordre, par le même
+ * thread, alors que celles de clients de réacteurs différents le sont en parallèle.
+ * <p>
+ * Si le serveur a un chemin de socket Unix, le premier réacteur écoute aussi sur ce socket : les clients du même
+ * hôte qui s'y connectent évitent la pile TCP et sont ensuite servis exactement comme les autres.
+ * <p>
+ * Le réacteur écrit aussi les files d'envoi de ses connexions. Les envois demandés pendant le traitement d'un lot
+ * de clés sont écrits à la fin du lot, ce qui regroupe tous les messages destinés à un même client. Si le socket
+ * d'un client est plein, le réacteur attend qu'il redevienne disponible en écriture.
+ */
+public class ThreadReacteurNIO extends Thread implements PlanificateurEnvoi {
+
+    private final Serveur serveur;
+    private final Selector selecteur;
+    //Canal d'écoute, pour le seul réacteur qui accepte les nouveaux clients (null pour les autres) :
+    private final ServerSocketChannel canalServeur;
+    //Canal d'écoute sur le socket Unix du serveur, pour le même réacteur (null s'il n'y en a pas) :
+    private final ServerSocketChannel canalUnix;
+    //Tampon direct dans lequel le réacteur lit le texte de tous les clients :
+    private final ByteBuffer tampon = PoolTampons.commun().obtenir();
+    //Connexions qui ont des trames à écrire :
+    private final ConcurrentLinkedQueue<Connexion> aEcrire = new ConcurrentLinkedQueue<>();
+    //Clients acceptés et confiés à ce réacteur, pas encore enregistrés auprès de son sélecteur :
+    private final ConcurrentLinkedQueue<SocketChannel> aEnregistrer = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Construit le réacteur d'un serveur et, s'il doit accepter les nouveaux clients, ouvre le canal d'écoute sur le
+     * port du serveur, ainsi que sur son socket Unix s'il en a un.
+     *
+     * @param s Serveur Le serveur pour lequel le réacteur lit le texte des clients
+     * @param ecoute boolean true si le réacteur accepte les nouveaux clients, false s'il ne fait que servir les
+     *               clients qui lui sont confiés
+     * @throws IOException si le canal d'écoute ou le sélecteur ne peut pas être ouvert
+     */
+    public ThreadReacteurNIO(Serveur s, boolean ecoute) throws IOException {
+        serveur = s;
+        selecteur = Selector.open();
+        if (ecoute) {
+            canalServeur = ServerSocketChannel.open();
+            canalServeur.bind(new InetSocketAddress(serveur.getPort()), serveur.getBacklog());
+            canalServeur.configureBlocking(false);
+            canalServeur.register(selecteur, SelectionKey.OP_ACCEPT);
+        } else
+            canalServeur = null;
+        if (ecoute && serveur.getCheminSocketUnix() != null) {
+            canalUnix = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            canalUnix.bind(UnixDomainSocketAddress.of(serveur.getCheminSocketUnix()), serveur.getBacklog());
+            canalUnix.configureBlocking(false);
+            canalUnix.register(selecteur, SelectionKey.OP_ACCEPT);
+        } else
+            canalUnix = null;
+    }
+
+    /**
+     * Retourne le socket d'écoute associé au canal du réacteur.
+     *
+     * @return ServerSocket le socket d'écoute, ou null si le réacteur n'accepte pas les nouveaux clients
+     */
+    public ServerSocket getServerSocket() {
+        return canalServeur == null ? null : canalServeur.socket();
+    }
+
+    /**
+     * Méthode principale du thread. Attend sur le sélecteur et traite les clés prêtes : acceptation des nouveaux
+     * clients et lecture du texte des clients. Enregistre ensuite les clients qui lui ont été confiés, puis écrit les
+     * files d'envoi en attente.
+     */
+    public void run() {
+        Iterator<SelectionKey> it;
+        SelectionKey cle;
+        SocketChannel canal;
+        Connexion cnx;
+        while (!interrupted()) {
+            try {
+                selecteur.select();
+                it = selecteur.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    cle = it.next();
+                    it.remove();
+                    if (!cle.isValid())
+                        continue;
+                    if (cle.isAcceptable())
+                        accepter((ServerSocketChannel) cle.channel());
+                    else {
+                        if (cle.isWritable())
+                            ecrire((Connexion) cle.attachment());
+                        if (cle.isValid() && cle.isReadable())
+                            lire(cle);
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                break;
+            }
+            while ((canal = aEnregistrer.poll()) != null)
+                enregistrer(canal);
+            while ((cnx = aEcrire.poll()) != null)
+                ecrire(cnx);
+        }
+        try {
+            selecteur.close();
+        } catch (IOException e) {
+            System.out.println("Reacteur erreur : " + e.getMessage());
+        }
+        PoolTampons.commun().rendre(tampon);
+    }
+
+    /*
+      Accepte tous les clients en attente sur un canal d'écoute et les confie aux réacteurs du serveur, à tour de
+      rôle.
+    */
+    private void accepter(ServerSocketChannel canalEcoute) {
+        SocketChannel canal;
+        try {
+            while ((canal = canalEcoute.accept()) != null)
+                serveur.choisirReacteur().confier(canal);
+        } catch (IOException e) {
+            System.out.println("Reacteur erreur : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Confie un client qui vient d'être accepté à ce réacteur, qui lira et écrira sa connexion jusqu'à sa fermeture.
+     * Le client est enregistré par le thread du réacteur lui-même, seul à utiliser son sélecteur.
+     *
+     * @param canal SocketChannel le canal du client accepté
+     */
+    public void confier(SocketChannel canal) {
+        aEnregistrer.offer(canal);
+        if (Thread.currentThread() != this)
+            selecteur.wakeup();
+    }
+
+    /*
+      Enregistre auprès du sélecteur un client confié au réacteur et le fait accepter par le serveur.
+    */
+    private void enregistrer(SocketChannel canal) {
+        Connexion cnx;
+        try {
+            canal.configureBlocking(false);
+            cnx = new Connexion(canal);
+            cnx.setPlanificateurEnvoi(this);
+            canal.register(selecteur, SelectionKey.OP_READ, cnx);
+            serveur.accepter(cnx);
+        } catch (IOException e) {
+            System.out.println("Reacteur erreur : " + e.getMessage());
+        }
+    }
+
+    /*
+      Lit le texte arrivé sur la connexion attachée à la clé. Si le client a fermé la connexion, la clé est annulée et
+      le client est retiré du serveur une fois son texte traité.
+    */
+    private void lire(SelectionKey cle) {
+        Connexion cnx = (Connexion) cle.attachment();
+        serveur.lire(cnx, tampon);
+        if (cnx.isFermee()) {
+            cle.cancel();
+            serveur.terminer(cnx);
+        }
+    }
+
+    /**
+     * Demande au réacteur d'écrire la file d'envoi d'une connexion. Si la demande vient d'un autre thread, le
+     * sélecteur est réveillé ; sinon, l'écriture se fera à la fin du lot de clés en cours de traitement.
+     *
+     * @param connexion Connexion la connexion qui a des trames en attente
+     */
+    @Override
+    public void planifier(Connexion connexion) {
+        aEcrire.offer(connexion);
+        if (Thread.currentThread() != this)
+            selecteur.wakeup();
+    }
+
+    /*
+      Écrit la file d'envoi d'une connexion et ne s'intéresse à la disponibilité en écriture de son socket que s'il
+      reste des trames à écrire.
+    */
+    private void ecrire(Connexion cnx) {
+        boolean vide = cnx.vider();
+        SelectionKey cle = cnx.getCanal().keyFor(selecteur);
+        if (cle != null && cle.isValid())
+            cle.interestOps(vide ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Arrête le réacteur et ferme, s'il y en a, les canaux d'écoute. Le sélecteur est fermé par le thread du
+     * réacteur lui-même, une fois sorti de sa boucle.
+     */
+    public void fermer() {
+        interrupt();
+        selecteur.wakeup();
+        try {
+            if (canalServeur != null)
+                canalServeur.close();
+            if (canalUnix != null)
+                canalUnix.close();
+        } catch (IOException e) {
+            System.out.println("Reacteur erreur : " + e.getMessage());
+        }
+    }
+}
@@ -509,6 +509,40 @@ public class PartieEchecs {
         this.couleurJoueur2 = couleurJoueur2;
     }
 
+    /**
+     * Retourne l'état de l'échiquier sous la forme de 64 caractères, ligne 8 d'abord et colonne a d'abord dans
+     * chaque ligne : t, c, f, d, r et p pour les tours, cavaliers, fous, dames, rois et pions, en majuscules pour
+     * les blancs et en minuscules pour les noirs, et . pour une case vide.
+     *
+     * @return String l'état de l'échiquier
+     */
+    public String getEchiquierTexte() {
+        StringBuilder texte = new StringBuilder(64);
+        char lettre;
+        for (Piece[] ligne : echiquier) {
+            for (Piece piece : ligne) {
+                if (piece == null) {
+                    texte.append('.');
+                    continue;
+                }
+                if (piece instanceof Tour)
+                    lettre = 't';
+                else if (piece instanceof Cavalier)
+                    lettre = 'c';
+                else if (piece instanceof Fou)
+                    lettre = 'f';
+                else if (piece instanceof Dame)
+                    lettre = 'd';
+                else if (piece instanceof Roi)
+                    lettre = 'r';
+                else
+                    lettre = 'p';
+                texte.append(piece.getCouleur() == 'b' ? Character.toUpperCase(lettre) : lettre);
+            }
+        }
+        return texte.toString();
+    }
+
     public boolean getRoqueRoiVientEtreFait() {
         return roqueRoiVientEtreFait;
     }
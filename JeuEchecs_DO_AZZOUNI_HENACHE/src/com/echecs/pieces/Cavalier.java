@@ -17,7 +17,7 @@ public class Cavalier extends com.echecs.pieces.Piece {
         int diffLigne = Math.abs(ligne2 - ligne1);
         int diffColonne = Math.abs(colonne2 - colonne1);
 
-        // Vrification du mouvement en "L"
+        // Vérification du mouvement en "L"
         return (diffLigne == 2 && diffColonne == 1) || (diffLigne == 1 && diffColonne == 2);
     }
 }
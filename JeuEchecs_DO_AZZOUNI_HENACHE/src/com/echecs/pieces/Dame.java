@@ -14,17 +14,17 @@ public class Dame extends com.echecs.pieces.Piece {
         byte colonne1 = EchecsUtil.indiceColonne(pos1);
         byte colonne2 = EchecsUtil.indiceColonne(pos2);
 
-        // Vrification du dplacement vertical
+        // Vérification du déplacement vertical
         if (colonne1 == colonne2 && peutSeDeplacerVerticalement(ligne1, ligne2, colonne2, echiquier)) {
             return true;
         }
 
-        // Vrification du dplacement horizontal
+        // Vérification du déplacement horizontal
         if (ligne1 == ligne2 && peutSeDeplacerHorizontalement(colonne1, colonne2, ligne2, echiquier)) {
             return true;
         }
 
-        // Vrification du dplacement en diagonale
+        // Vérification du déplacement en diagonale
         return pos1.estSurLaMemeDiagonaleQue(pos2) && peutSeDeplacerEnDiagonale(ligne1, colonne1, ligne2, colonne2, echiquier);
     }
 
@@ -34,7 +34,7 @@ public class Dame extends com.echecs.pieces.Piece {
 
         for (byte i = start; i < end; i++) {
             if (echiquier[i][colonne2] != null) {
-                return false; // Il y a une pice sur le chemin
+                return false; // Il y a une pièce sur le chemin
             }
         }
 
@@ -47,7 +47,7 @@ public class Dame extends com.echecs.pieces.Piece {
 
         for (byte j = start; j < end; j++) {
             if (echiquier[ligne2][j] != null) {
-                return false; // Il y a une pice sur le chemin
+                return false; // Il y a une pièce sur le chemin
             }
         }
 
@@ -55,13 +55,13 @@ public class Dame extends com.echecs.pieces.Piece {
     }
 
     private boolean peutSeDeplacerEnDiagonale(byte ligne1, byte colonne1, byte ligne2, byte colonne2, Piece[][] echiquier) {
-        // Dplacement en diagonale
+        // Déplacement en diagonale
         byte stepLigne = (byte) ((ligne2 > ligne1) ? 1 : -1);
         byte stepColonne = (byte) ((colonne2 > colonne1) ? 1 : -1);
 
         for (byte i = (byte) (ligne1 + stepLigne), j = (byte) (colonne1 + stepColonne); i != ligne2 || j != colonne2; i += stepLigne, j += stepColonne) {
             if (echiquier[i][j] != null) {
-                return false; // Il y a une pice sur le chemin
+                return false; // Il y a une pièce sur le chemin
             }
         }
 
@@ -25,7 +25,7 @@ public class Pion extends com.echecs.pieces.Piece {
     }
 
     private boolean peutSeDeplacerBlanc(byte ligne1, byte ligne2, byte colonne1, byte colonne2, com.echecs.pieces.Piece[][] echiquier) {
-        // 2 cases depuis la ligne de dpart
+        // 2 cases depuis la ligne de départ
         if (ligne1 == 6 && ligne2 == 4 && colonne2 == colonne1) {
             return echiquier[5][colonne2] == null && echiquier[4][colonne2] == null;
         }
@@ -42,7 +42,7 @@ public class Pion extends com.echecs.pieces.Piece {
     }
 
     private boolean peutSeDeplacerNoir(byte ligne1, byte ligne2, byte colonne1, byte colonne2, Piece[][] echiquier) {
-        // 2 cases depuis la ligne de dpart
+        // 2 cases depuis la ligne de départ
         if (ligne1 == 1 && ligne2 == 3 && colonne2 == colonne1) {
             return echiquier[2][colonne2] == null && echiquier[3][colonne2] == null;
         }
@@ -22,7 +22,7 @@ public class Roi extends Piece {
 
         if (pos1.estVoisineDe(pos2)) {
             aBouge = true;
-            return true; // Dplacement simple
+            return true; // Déplacement simple
         }
 
         return false;
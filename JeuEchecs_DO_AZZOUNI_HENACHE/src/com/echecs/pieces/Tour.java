@@ -25,13 +25,13 @@ public class Tour extends com.echecs.pieces.Piece {
         byte colonne1 = EchecsUtil.indiceColonne(pos1);
         byte colonne2 = EchecsUtil.indiceColonne(pos2);
 
-        // Vrification du dplacement vertical
+        // Vérification du déplacement vertical
         if (colonne1 == colonne2 && peutSeDeplacerVerticalement(ligne1, ligne2, colonne2, echiquier)) {
             aBouge = true;
             return true;
         }
 
-        // Vrification du dplacement horizontal
+        // Vérification du déplacement horizontal
         if (ligne1 == ligne2 && peutSeDeplacerHorizontalement(colonne1, colonne2, ligne2, echiquier)) {
             aBouge = true;
             return true;
@@ -46,7 +46,7 @@ public class Tour extends com.echecs.pieces.Piece {
 
         for (byte i = start; i < end; i++) {
             if (echiquier[i][colonne2] != null) {
-                return false; // Il y a une pice sur le chemin
+                return false; // Il y a une pièce sur le chemin
             }
         }
 
@@ -59,7 +59,7 @@ public class Tour extends com.echecs.pieces.Piece {
 
         for (byte j = start; j < end; j++) {
             if (echiquier[ligne2][j] != null) {
-                return false; // Il y a une pice sur le chemin
+                return false; // Il y a une pièce sur le chemin
             }
         }
 